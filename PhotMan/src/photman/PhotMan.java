@@ -25,6 +25,7 @@ import javax.swing.UnsupportedLookAndFeelException;
  * <pre>
  * Change history:
  *   2014-02-08 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the batch mode, used when arguments are given (see PhotManBatch).
  * </pre>
  * @author Grald Eberle (GEB)
  */
@@ -58,11 +59,16 @@ public class PhotMan {
 	}
 
   /**
-   * Main entry point. No arguments.
+   * Main entry point. Without arguments, the main window is shown. With arguments, the program
+   * runs in batch mode, without user interface (see PhotManBatch).
    * 
    * @param args
    */
   public static void main(String[] args) {
+    if (args.length > 0) {
+    	System.setProperty("java.awt.headless","true");
+    	System.exit(new PhotManBatch().run(args));
+    }
     try {
 		UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
 		if (checkVersion()) new PhotMan();
@@ -0,0 +1,306 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * This class runs the program without user interface (batch mode), for instance on a server without
+ * display. The pictures of the source directories are loaded (meta-data only, no thumbnails), the time
+ * offsets given for the cameras are applied, the pictures are ordered by adjusted date, renamed if a
+ * prefix is given, and saved in the destination directory. The pictures found several times (same file
+ * content) are saved once, unless the duplicates search is disabled. All the pictures are kept in memory
+ * (meta-data only) until they are saved, as they must be ordered by adjusted date. The result is given by
+ * the exit code.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  The files are saved in parallel, as set by the options.
+ *   2026-10-18 GEB  Added the save strategy argument.
+ *   2026-10-18 GEB  The interrupted renames are finished first (see PhotManRenamer).
+ *   2026-10-18 GEB  Added the incremental save argument.
+ *   2026-10-18 GEB  The duplicate pictures are ignored (see PhotManDuplicates).
+ *   2026-10-18 GEB  The save is prepared once (see PhotManSavePlan).
+ *   2026-10-18 GEB  Added the time offsets estimation argument.
+ *   2026-10-18 GEB  Added the numbering by event argument (see PhotManEvents).
+ *   2026-10-18 GEB  The save is refused if several pictures have the same new name.
+ *   2026-10-18 GEB  Only the interrupted renames of the destination directory are finished, unless
+ *                   asked for. The duplicates search can be disabled. The destination directory is
+ *                   created only if all the arguments are valid.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManBatch {
+	protected static final int m_exitOk = 0;
+	protected static final int m_exitUsage = 1;
+	protected static final int m_exitNoPicture = 2;
+	protected static final int m_exitConflict = 3;
+	protected static final int m_exitSaveError = 4;
+	protected static final int m_exitReadError = 5;
+
+	private final ArrayList<File> m_sourceDir = new ArrayList<File>();
+	private File m_destinationDir = null;
+	private final HashMap<String,String> m_offsets = new HashMap<String,String>();
+	private String m_prefix = null;
+	private boolean m_replace = false;
+	private boolean m_estimate = false;
+	private boolean m_byEvent = false;
+	private boolean m_recoverAll = false;
+	private boolean m_duplicates = true;
+	private final PhotManOptions m_options = new PhotManOptions();
+	private PhotManSaver.Strategy m_strategy = m_options.getSaveStrategy();
+	private PhotManSaver.Update m_update = m_options.getSaveUpdate();
+	private int m_errors = 0;
+
+	/**
+	 * Runs the batch mode with the given command line arguments.
+	 * @param args the command line arguments
+	 * @return the exit code
+	 */
+	protected int run(String[] args) {
+		if (!parseArguments(args)) {
+			printUsage();
+			return m_exitUsage;
+		}
+		for (PhotManRenamer pmr : PhotManRenamer.findInterrupted()) {
+			if (!m_recoverAll && !pmr.getDirectory().getAbsoluteFile().equals(m_destinationDir.getAbsoluteFile())) {
+				System.out.println("Interrupted renaming left in "+pmr.getDirectory().getAbsolutePath()+" (use -r to finish it).");
+				continue;
+			}
+			try {
+				pmr.rollForward();
+				System.out.println("Interrupted renaming finished in "+pmr.getDirectory().getAbsolutePath()+".");
+			}
+			catch (IOException e) {
+				System.err.println("PhotMan: the interrupted renaming in "+pmr.getDirectory().getAbsolutePath()
+						+" could not be finished. Error is "+e.getMessage()+".");
+				return m_exitSaveError;
+			}
+		}
+		List<PhotManImage> images;
+		try {
+			images = loadImages();
+		}
+		catch (InterruptedException e) {
+			System.err.println("PhotMan: the loading of the pictures was interrupted.");
+			return m_exitReadError;
+		}
+		if (images.isEmpty()) {
+			System.err.println("PhotMan: the source directories do not contain any allowed image file.");
+			return m_exitNoPicture;
+		}
+		if (m_duplicates) {
+			try {
+				List<PhotManImage> duplicates = new PhotManDuplicates(m_options.getSaveThreads()).find(images,null);
+				if (!duplicates.isEmpty()) {
+					images = new ArrayList<PhotManImage>(images);
+					images.removeAll(new HashSet<PhotManImage>(duplicates));
+					System.out.println(duplicates.size()+" duplicate pictures ignored.");
+				}
+			}
+			catch (IOException e) {
+				System.err.println("PhotMan: the duplicate pictures could not be searched. Error is "+e.getMessage()+".");
+				return m_exitReadError;
+			}
+		}
+		HashMap<String,String> cameras = new HashMap<String,String>();
+		PhotManProcessor.analyseImages(images,cameras);
+		for (Map.Entry<String,String> me : m_offsets.entrySet()) {
+			if (cameras.containsKey(me.getKey())) cameras.put(me.getKey(),me.getValue());
+			else System.err.println("PhotMan: no picture was taken by the camera \""+me.getKey()+"\".");
+		}
+		HashMap<String,PhotManSkewEstimator.Estimate> estimates = new HashMap<String,PhotManSkewEstimator.Estimate>();
+		if (m_estimate) estimates = PhotManProcessor.estimateTimeOffsets(images,cameras);
+		for (Map.Entry<String,String> me : cameras.entrySet()) {
+			PhotManSkewEstimator.Estimate pe = estimates.get(me.getKey());
+			String how = "";
+			if ((pe != null) && pe.isReference()) how = " (reference)";
+			else if (pe != null) how = " (estimated, confidence "+Math.round(pe.getConfidence()*100)+" %)";
+			System.out.println("Camera \""+me.getKey()+"\", time offset "+me.getValue()+how);
+		}
+		PhotManProcessor.setTimeOffsets(images,cameras);
+		images = Arrays.asList(PhotManProcessor.reorderImages(images));
+		System.out.println(PhotManEvents.segment(images)+" events found.");
+		if (m_prefix != null) PhotManProcessor.renameImages(images,m_prefix,m_byEvent);
+		PhotManSaver saver = new PhotManSaver(m_destinationDir,m_options.getSaveThreads(),m_strategy,m_update);
+		PhotManSavePlan plan = saver.plan(images);
+		if (plan.hasDuplicates()) {
+			System.err.println("PhotMan: "+plan.getDuplicates().size()+" picture(s) have the same name as another picture"
+					+ " of the list, and would replace it (first is "+plan.getDuplicates().get(0).getFinalName()+").");
+			return m_exitConflict;
+		}
+		if (!m_replace && plan.hasConflicts()) {
+			System.err.println("PhotMan: the destination directory does already contain "+plan.getConflicts().size()
+					+ " file(s) with the same name as files in the list (use -f to replace them).");
+			return m_exitConflict;
+		}
+		try {
+			saver.save(plan,null);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			System.err.println("PhotMan: an I/O error occurred during file copying. Error is "+e.getMessage()+".");
+			return m_exitSaveError;
+		}
+		System.out.println(images.size()+" pictures saved in "+m_destinationDir.getAbsolutePath()+".");
+		return (m_errors > 0) ? m_exitReadError : m_exitOk;
+	}
+
+	/**
+	 * Searches and loads the pictures of the source directories. Only the meta-data are read.
+	 * @return the loaded pictures
+	 * @throws InterruptedException if the thread is interrupted while waiting for the pictures
+	 */
+	private List<PhotManImage> loadImages() throws InterruptedException {
+		final ArrayList<PhotManImage> images = new ArrayList<PhotManImage>();
+		PhotManScanner scanner = new PhotManScanner(m_sourceDir.toArray(new File[m_sourceDir.size()]));
+		PhotManLoader loader = new PhotManLoader(m_options,null);
+		scanner.start();
+		try {
+			loader.load(scanner,false,new PhotManLoader.Listener() {
+				@Override
+				public void imageLoaded(PhotManImage pmi) {
+					images.add(pmi);
+				}
+
+				@Override
+				public void loadFailed(File f, String msg) {
+					m_errors++;
+					System.err.println("PhotMan: "+f.getAbsolutePath()+": "+msg.replace('\n',' '));
+				}
+			});
+		}
+		finally {
+			scanner.cancel();
+		}
+		if (scanner.getErrors() > 0) {
+			m_errors += scanner.getErrors();
+			System.err.println("PhotMan: "+scanner.getErrors()+" file(s) or directorie(s) could not be read.");
+		}
+		System.out.println(images.size()+" pictures loaded.");
+		return images;
+	}
+
+	/**
+	 * Reads the command line arguments.
+	 * @param args the command line arguments
+	 * @return true if the arguments are valid, false otherwise
+	 */
+	private boolean parseArguments(String[] args) {
+		for (int i1 = 0; i1 < args.length; i1++) {
+			String arg = args[i1];
+			if ("-f".equals(arg)) {
+				m_replace = true;
+				continue;
+			}
+			if ("-a".equals(arg)) {
+				m_estimate = true;
+				continue;
+			}
+			if ("-e".equals(arg)) {
+				m_byEvent = true;
+				continue;
+			}
+			if ("-r".equals(arg)) {
+				m_recoverAll = true;
+				continue;
+			}
+			if ("-k".equals(arg)) {
+				m_duplicates = false;
+				continue;
+			}
+			if (i1 == args.length - 1) return false;
+			String value = args[++i1];
+			if ("-s".equals(arg)) {
+				File sourceDir = new File(value);
+				if (!sourceDir.isDirectory()) {
+					System.err.println("PhotMan: "+value+" is not a directory.");
+					return false;
+				}
+				m_sourceDir.add(sourceDir);
+			}
+			else if ("-d".equals(arg)) {
+				m_destinationDir = new File(value);
+			}
+			else if ("-o".equals(arg)) {
+				int i = value.lastIndexOf('=');
+				if ((i <= 0) || !PhotManProcessor.isValidOffset(value.substring(i+1))) {
+					System.err.println("PhotMan: "+value+" is not a valid camera time offset.");
+					return false;
+				}
+				m_offsets.put(value.substring(0,i),value.substring(i+1));
+			}
+			else if ("-m".equals(arg)) {
+				try {
+					m_strategy = PhotManSaver.Strategy.valueOf(value.toUpperCase());
+				}
+				catch (IllegalArgumentException e) {
+					System.err.println("PhotMan: "+value+" is not a valid save strategy.");
+					return false;
+				}
+			}
+			else if ("-u".equals(arg)) {
+				try {
+					m_update = PhotManSaver.Update.valueOf(value.toUpperCase());
+				}
+				catch (IllegalArgumentException e) {
+					System.err.println("PhotMan: "+value+" is not a valid incremental save mode.");
+					return false;
+				}
+			}
+			else if ("-p".equals(arg)) {
+				if ("".equals(value)) return false;
+				m_prefix = value;
+			}
+			else return false;
+		}
+		if (m_sourceDir.isEmpty() || (m_destinationDir == null)) return false;
+		if (!m_destinationDir.isDirectory() && !m_destinationDir.mkdirs()) {
+			System.err.println("PhotMan: the directory "+m_destinationDir.getPath()+" cannot be created.");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Prints how to use the batch mode.
+	 */
+	private void printUsage() {
+		System.err.println("Usage: PhotMan -s <source> [-s <source>...] -d <destination>"
+				+ " [-o <camera>=[+|-]hh:mm:ss...] [-p <prefix> [-e]] [-m copy|link|move] [-u all|changed|content] [-a] [-k] [-f] [-r]");
+		System.err.println("  -s  source directory, searched with its sub-directories");
+		System.err.println("  -d  destination directory, created if needed");
+		System.err.println("  -o  time offset of the pictures taken by the given camera");
+		System.err.println("  -p  new files names prefix, the pictures keep their names if not given");
+		System.err.println("  -e  number the new files names by event, the events being split at the long pauses");
+		System.err.println("  -m  save the files by copying, linking or moving them (linking and moving need the same disk)");
+		System.err.println("  -u  save again all the files, the changed files, or the files whose content changed");
+		System.err.println("  -a  estimate the time offsets of the cameras without offset, from the bursts of pictures");
+		System.err.println("  -k  keep the duplicate pictures, without searching them (faster)");
+		System.err.println("  -f  replace the files of the destination directory having the same name");
+		System.err.println("  -r  finish the interrupted renames of all the directories, not only of the destination");
+		System.err.println("Exit codes: 0 done, 1 bad arguments, 2 no picture found, 3 files would be replaced"
+				+ " or pictures have the same name,"
+				+ " 4 save error, 5 some pictures could not be read");
+	}
+}
@@ -0,0 +1,316 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * This class manages a persistent cache of the thumbnails and of the few EXIF meta-data used by the
+ * program (camera make and model, date and time the picture was taken). Reopening a directory that was
+ * already loaded does not need to read the pictures again. An entry is identified by the picture path,
+ * size and last modification time, and by the thumbnail size and scaling method, so that any change of
+ * the picture or of the options gives a new entry. Each entry is stored in its own file in the cache
+ * directory, and when the cache gets bigger than the allowed size, the least recently used entries
+ * are deleted. An entry may have no thumbnail, when the thumbnails are created on demand. The last use of an entry is the modification time of its file, which is only updated
+ * when it is older than a day, so that loading a directory already cached does not write to the disk
+ * for each picture.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  The perceptual hash of the thumbnail is cached too.
+ *   2026-10-18 GEB  The last use of an entry is updated at most once a day.
+ *   2026-10-18 GEB  The picture orientation is cached too, and the size of a replaced entry is
+ *                   not counted twice.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManCache {
+	private static final int m_magic = 0x504d4333; // "PMC3"
+	private static final String m_suffix = ".pmc";
+	private static final long m_touchPeriod = 24*3600*1000L;
+
+	private final File m_dir;
+	private final AtomicLong m_size = new AtomicLong(-1);
+	private final Object m_evictLock = new Object();
+
+	/**
+	 * This class contains the cached information about one picture.
+	 */
+	protected static class Entry {
+		private final String m_camera;
+		private final long m_date;
+		private final int m_orientation;
+		private final byte[] m_thumbnail;
+		private final long m_hash;
+		private final boolean m_hashKnown;
+
+		/**
+		 * Class constructor.
+		 * @param camera the camera make and/or model, or null if unknown
+		 * @param date the date and time the picture was taken, in milliseconds, or Long.MIN_VALUE if unknown
+		 * @param orientation the picture orientation (EXIF value), or 0 if unknown
+		 * @param thumbnail the encoded thumbnail image, or null if none
+		 * @param hash the perceptual hash of the thumbnail
+		 * @param hashKnown is the perceptual hash known ?
+		 */
+		protected Entry(String camera, long date, int orientation, byte[] thumbnail, long hash, boolean hashKnown) {
+			m_camera = camera;
+			m_date = date;
+			m_orientation = orientation;
+			m_thumbnail = thumbnail;
+			m_hash = hash;
+			m_hashKnown = hashKnown;
+		}
+
+		/**
+		 * Returns the camera make and/or model.
+		 * @return the camera make and/or model, or null if unknown
+		 */
+		protected String getCamera() {
+			return m_camera;
+		}
+
+		/**
+		 * Returns the date and time the picture was taken.
+		 * @return the date in milliseconds, or Long.MIN_VALUE if unknown
+		 */
+		protected long getDate() {
+			return m_date;
+		}
+
+		/**
+		 * Returns the picture orientation.
+		 * @return the orientation (EXIF value), or 0 if unknown
+		 */
+		protected int getOrientation() {
+			return m_orientation;
+		}
+
+		/**
+		 * Returns the encoded thumbnail image (JPEG or PNG).
+		 * @return the thumbnail bytes, or null if none
+		 */
+		protected byte[] getThumbnail() {
+			return m_thumbnail;
+		}
+
+		/**
+		 * Returns the perceptual hash of the thumbnail (see PhotManSimilarityIndex).
+		 * @return the perceptual hash, meaningful only if isHashKnown() returns true
+		 */
+		protected long getHash() {
+			return m_hash;
+		}
+
+		/**
+		 * Returns the information if the perceptual hash of the thumbnail is known.
+		 * @return true if the hash is known, false otherwise
+		 */
+		protected boolean isHashKnown() {
+			return m_hashKnown;
+		}
+	}
+
+	/**
+	 * Class constructor. Uses the default cache directory, in the user home directory.
+	 */
+	public PhotManCache() {
+		this(new File(System.getProperty("user.home"),".photman"+File.separator+"cache"));
+	}
+
+	/**
+	 * Class constructor.
+	 * @param dir the cache directory
+	 */
+	public PhotManCache(File dir) {
+		m_dir = dir;
+	}
+
+	/**
+	 * Creates the key identifying a cache entry.
+	 * @param f the file containing the picture
+	 * @param size the file size
+	 * @param modified the file last modification time
+	 * @param options the program options (thumbnail size and scaling method)
+	 * @return the entry key
+	 */
+	protected String createKey(File f, long size, long modified, PhotManOptions options) {
+		return f.getAbsolutePath()+"|"+size+"|"+modified+"|"+options.getThumbnailSize()+"|"
+				+options.getGenerateMethod().name()+"|"+options.isOriginalThumbnail();
+	}
+
+	/**
+	 * Returns the cached entry for the given key.
+	 * @param key the entry key
+	 * @return the cached entry, or null if the entry is not in the cache
+	 */
+	protected Entry get(String key) {
+		File ef = entryFile(key);
+		if (!ef.isFile()) return null;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(ef)))) {
+			if (in.readInt() != m_magic) return null;
+			if (!key.equals(in.readUTF())) return null;
+			String camera = in.readUTF();
+			long date = in.readLong();
+			int orientation = in.readInt();
+			int len = in.readInt();
+			byte[] thumbnail = null;
+			if (len >= 0) {
+				thumbnail = new byte[len];
+				in.readFully(thumbnail);
+			}
+			boolean hashKnown = in.readBoolean();
+			long hash = in.readLong();
+			long now = System.currentTimeMillis();
+			if (now - ef.lastModified() > m_touchPeriod) ef.setLastModified(now);
+			return new Entry("".equals(camera) ? null : camera,date,orientation,thumbnail,hash,hashKnown);
+		}
+		catch (IOException e) {
+			// A damaged entry is simply ignored, it will be replaced
+			return null;
+		}
+	}
+
+	/**
+	 * Stores an entry into the cache. If the cache gets bigger than the given maximal size, the least
+	 * recently used entries are deleted. The cache is not modified if the maximal size is 0.
+	 * @param key the entry key
+	 * @param entry the entry to be stored
+	 * @param maxSize the maximal size of the cache, in bytes
+	 */
+	protected void put(String key, Entry entry, long maxSize) {
+		if (maxSize <= 0) return;
+		if (!m_dir.isDirectory() && !m_dir.mkdirs()) return;
+		File ef = entryFile(key);
+		// The size is read before the temporary file is created, so that the first scan does not count it
+		long size = currentSize();
+		File tf = new File(m_dir,ef.getName()+"."+Thread.currentThread().getId()+".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tf)))) {
+				out.writeInt(m_magic);
+				out.writeUTF(key);
+				out.writeUTF(entry.getCamera() == null ? "" : entry.getCamera());
+				out.writeLong(entry.getDate());
+				out.writeInt(entry.getOrientation());
+				byte[] thumbnail = entry.getThumbnail();
+				if (thumbnail == null) out.writeInt(-1);
+				else {
+					out.writeInt(thumbnail.length);
+					out.write(thumbnail);
+				}
+				out.writeBoolean(entry.isHashKnown());
+				out.writeLong(entry.getHash());
+			}
+			long len = tf.length();
+			long replaced = ef.length();
+			Files.move(tf.toPath(),ef.toPath(),StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+			if (size + len - replaced > maxSize) evict(maxSize);
+			else m_size.addAndGet(len - replaced);
+		}
+		catch (IOException e) {
+			tf.delete();
+		}
+	}
+
+	/**
+	 * Returns the actual size of the cache. The first call scans the cache directory.
+	 * @return the size of the cache, in bytes
+	 */
+	private long currentSize() {
+		long size = m_size.get();
+		if (size >= 0) return size;
+		synchronized (m_evictLock) {
+			if (m_size.get() < 0) {
+				long total = 0;
+				File[] entries = m_dir.listFiles();
+				if (entries != null) for (File ef : entries) total += ef.length();
+				m_size.set(total);
+			}
+			return m_size.get();
+		}
+	}
+
+	/**
+	 * Deletes the least recently used entries, until the cache size is 3/4 of the maximal size.
+	 * @param maxSize the maximal size of the cache, in bytes
+	 */
+	private void evict(long maxSize) {
+		synchronized (m_evictLock) {
+			File[] entries = m_dir.listFiles();
+			if (entries == null) return;
+			final long[] used = new long[entries.length];
+			Integer[] order = new Integer[entries.length];
+			long total = 0;
+			for (int i1 = 0; i1 < entries.length; i1++) {
+				used[i1] = entries[i1].lastModified();
+				order[i1] = i1;
+				total += entries[i1].length();
+			}
+			Arrays.sort(order,new Comparator<Integer>() {
+				@Override
+				public int compare(Integer i1, Integer i2) {
+					return Long.compare(used[i1],used[i2]);
+				}
+			});
+			long target = maxSize / 4 * 3;
+			for (int i1 = 0; (i1 < order.length) && (total > target); i1++) {
+				File ef = entries[order[i1]];
+				long len = ef.length();
+				if (ef.delete()) total -= len;
+			}
+			m_size.set(total);
+		}
+	}
+
+	/**
+	 * Returns the file containing the cache entry of the given key. The file name is the SHA-1
+	 * digest of the key.
+	 * @param key the entry key
+	 * @return the entry file
+	 */
+	private File entryFile(String key) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("SHA-1");
+			byte[] digest = md.digest(key.getBytes(StandardCharsets.UTF_8));
+			StringBuilder sb = new StringBuilder(digest.length*2+m_suffix.length());
+			for (byte b : digest) {
+				sb.append(Character.forDigit((b >> 4) & 0xf,16));
+				sb.append(Character.forDigit(b & 0xf,16));
+			}
+			sb.append(m_suffix);
+			return new File(m_dir,sb.toString());
+		}
+		catch (NoSuchAlgorithmException e) {
+			// SHA-1 is available on every Java platform
+			throw new IllegalStateException(e);
+		}
+	}
+}
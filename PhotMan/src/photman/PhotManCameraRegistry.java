@@ -0,0 +1,70 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * <p>
+ * This class registers the names of the cameras that took the pictures. Each name is stored only once
+ * and is identified by a small number, so that the images only keep this number instead of their own
+ * copy of the name. The registry is shared by all the threads loading the images.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the number of cameras registered.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManCameraRegistry {
+	private static final HashMap<String,Short> m_ids = new HashMap<>();
+	private static final ArrayList<String> m_names = new ArrayList<>();
+
+	/**
+	 * Returns the identifier of the given camera name, registering the name if it is new.
+	 * @param name the camera make and/or model
+	 * @return the camera identifier, or -1 if the name is null
+	 */
+	protected static synchronized short intern(String name) {
+		if (name == null) return -1;
+		Short id = m_ids.get(name);
+		if (id == null) {
+			if (m_names.size() > Short.MAX_VALUE) throw new IllegalStateException("Too many cameras registered");
+			id = (short) m_names.size();
+			m_names.add(name);
+			m_ids.put(name,id);
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the camera name registered with the given identifier.
+	 * @param id the camera identifier
+	 * @return the camera make and/or model, or null if the identifier is -1
+	 */
+	protected static synchronized String getName(short id) {
+		if ((id < 0) || (id >= m_names.size())) return null;
+		return m_names.get(id);
+	}
+
+	/**
+	 * Returns the number of cameras registered. The identifiers go from 0 to this number less one.
+	 * @return the number of cameras registered
+	 */
+	protected static synchronized int getCount() {
+		return m_names.size();
+	}
+}
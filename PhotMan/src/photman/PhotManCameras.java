@@ -24,6 +24,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.WindowEvent;
 import java.util.HashMap;
+import java.util.Map;
 
 import javax.swing.JButton;
 import javax.swing.JDialog;
@@ -31,17 +32,22 @@ import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.WindowConstants;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
 
 /**
  * <p>
  * This class is used to ask the user about cameras time offsets. When you take pictures of the same events
  * with different cameras, the date and time of the several cameras are usually not synchronized. If you want
  * to look at the pictures in the order the pictures were taken, you have to introduce time offsets between
- * the different cameras, taking one of the camera as a time base.
+ * the different cameras, taking one of the camera as a time base. Each modified offset can be followed
+ * at once, for instance to show the pictures list in the new order.
  * </p>
  * <pre>
  * Change history:
  *   2014-02-19 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the listener following the modified offsets.
+ *   2026-10-18 GEB  Shows the confidence of the estimated offsets.
  * </pre>
  * @author Grald Eberle (GEB)
  */
@@ -50,15 +56,50 @@ public class PhotManCameras extends JDialog {
 	private JPanel m_contentPane;
 
 	private HashMap<String,String> m_cameras;
+	private Map<String,PhotManSkewEstimator.Estimate> m_estimates;
+	private Listener m_listener;
+
+	/**
+	 * This interface must be implemented by the objects following the modified offsets.
+	 */
+	protected interface Listener {
+		/**
+		 * Called, in the event dispatching thread, each time an offset was modified.
+		 * @param cameras the cameras-time offsets map, as actually shown
+		 */
+		void offsetsChanged(HashMap<String,String> cameras);
+	}
 	
 	/**
 	 * Class constructor.
 	 * @param cameras the cameras-time offsets map to be managed
 	 */
 	public PhotManCameras(HashMap<String,String> cameras) {
+		this(cameras,null);
+	}
+
+	/**
+	 * Class constructor.
+	 * @param cameras the cameras-time offsets map to be managed
+	 * @param listener the object following the modified offsets, or null
+	 */
+	public PhotManCameras(HashMap<String,String> cameras, Listener listener) {
+		this(cameras,null,listener);
+	}
+
+	/**
+	 * Class constructor.
+	 * @param cameras the cameras-time offsets map to be managed
+	 * @param estimates the estimated offsets, whose confidence is shown, or null
+	 * @param listener the object following the modified offsets, or null
+	 */
+	public PhotManCameras(HashMap<String,String> cameras, Map<String,PhotManSkewEstimator.Estimate> estimates,
+			Listener listener) {
 		enableEvents(AWTEvent.WINDOW_EVENT_MASK);
 		try {
 			m_cameras = cameras;
+			m_estimates = estimates;
+			m_listener = listener;
 			photManCamerasInit();
 		}
 		catch(Exception e) {
@@ -84,7 +125,7 @@ public class PhotManCameras extends JDialog {
 		setIconImage(applIcon);
 		setTitle("Cameras Time Offsets");
 		setModal(true);
-		setSize(new Dimension(400,300));
+		setSize(new Dimension(500,300));
 		setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
 		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
 		Dimension frameSize = getSize();
@@ -104,10 +145,19 @@ public class PhotManCameras extends JDialog {
 	 */
 	private void createMainPane() {
 		final PhotManCamerasTableModel ctm = new PhotManCamerasTableModel();
-        ctm.setData(m_cameras);
+        ctm.setData(m_cameras,m_estimates);
         final JTable cameras = new JTable(ctm);
         cameras.getColumnModel().getColumn(0).setPreferredWidth(250);
         cameras.getColumnModel().getColumn(1).setPreferredWidth(150);
+        cameras.getColumnModel().getColumn(2).setPreferredWidth(100);
+		if (m_listener != null) {
+			ctm.addTableModelListener(new TableModelListener() {
+				@Override
+				public void tableChanged(TableModelEvent tme) {
+					m_listener.offsetsChanged(ctm.getData());
+				}
+			});
+		}
 		m_contentPane.add(new JScrollPane(cameras),BorderLayout.CENTER);
 		JButton okButton = new JButton();
 		okButton.setText("Ok");
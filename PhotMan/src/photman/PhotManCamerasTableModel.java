@@ -13,8 +13,8 @@
  */
 package photman;
 
-import java.text.SimpleDateFormat;
 import java.util.HashMap;
+import java.util.Map;
 
 import javax.swing.table.AbstractTableModel;
 
@@ -25,6 +25,8 @@ import javax.swing.table.AbstractTableModel;
  * <pre>
  * Change history:
  *   2014-02-19 GEB  Initial coding.
+ *   2026-10-18 GEB  The offsets are checked with the format used to apply them (see PhotManProcessor).
+ *   2026-10-18 GEB  Added the confidence of the estimated offsets (see PhotManSkewEstimator).
  * </pre>
  * @author Grald Eberle (GEB)
  */
@@ -33,8 +35,7 @@ public class PhotManCamerasTableModel extends AbstractTableModel {
 	
 	private String[][] m_data;
 
-	private final String[] m_columns = {"Cameras","Time offset [hh:mm:ss]"};
-	private final SimpleDateFormat m_sdf = new SimpleDateFormat("HH:mm:ss");
+	private final String[] m_columns = {"Cameras","Time offset [hh:mm:ss]","Confidence"};
 	private final String m_timeInit = "00:00:00";
 
 	/* (non-Javadoc)
@@ -105,21 +106,7 @@ public class PhotManCamerasTableModel extends AbstractTableModel {
     public void setValueAt(Object value, int row, int col) {
 		if (value == null) return;
 		String str = (String) value;
-		if (col == 1) {
-			try {
-				String str1 = str.substring(0,1);
-				boolean hasSign = false;
-				if (("+".equals(str1)) || ("-".equals(str1))) {
-					str = str.substring(1);
-					hasSign = true;
-				}
-				m_sdf.parse(str);
-				if (hasSign) str = str1 + str;
-			}
-			catch (Exception e) {
-				str = m_timeInit;
-			}
-		}
+		if ((col == 1) && !PhotManProcessor.isValidOffset(str)) str = m_timeInit;
         m_data[row][col] = str;
         fireTableCellUpdated(row,col);
     }
@@ -129,11 +116,26 @@ public class PhotManCamerasTableModel extends AbstractTableModel {
      * @param data the data to be displayed
      */
     protected void setData(HashMap<String,String> data) {
+    	setData(data,null);
+    }
+
+    /**
+     * Initializes the data to be displayed on the screen in the table, with the confidence of the
+     * estimated offsets.
+     * @param data the data to be displayed
+     * @param estimates the estimated offsets of the cameras (see PhotManProcessor.estimateTimeOffsets()),
+     * or null
+     */
+    protected void setData(HashMap<String,String> data, Map<String,PhotManSkewEstimator.Estimate> estimates) {
 		m_data = new String[data.size()][m_columns.length];
 		int row = 0;
 		for (String cam : data.keySet()) {
 			m_data[row][0] = cam;
 			m_data[row][1] = data.get(cam);
+			PhotManSkewEstimator.Estimate pe = (estimates == null) ? null : estimates.get(cam);
+			if (pe == null) m_data[row][2] = "";
+			else if (pe.isReference()) m_data[row][2] = "reference";
+			else m_data[row][2] = Math.round(pe.getConfidence()*100)+" %";
 			row++;
 		}
 	}
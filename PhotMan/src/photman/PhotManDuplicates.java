@@ -0,0 +1,291 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * <p>
+ * This class finds the pictures whose files have exactly the same content, for instance when the same
+ * pictures are found in several source directories (copy of a memory card and copy on a laptop). Only
+ * the files having the same size as another file are read: their content checksum (CRC32) is computed,
+ * several files at once, and the files having the same checksum are then compared byte by byte, so that
+ * two different files are never taken for duplicates.
+ * </p>
+ * <p>
+ * The first picture of the list having a given content is kept, the following ones are the duplicates.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManDuplicates {
+	private static final int m_bufferSize = 65536;
+
+	private final int m_threads;
+	private volatile boolean m_cancelled = false;
+
+	/**
+	 * This interface must be implemented by the objects following the search progress.
+	 */
+	protected interface Listener {
+		/**
+		 * Called, from one of the search threads, each time a file was read.
+		 * @param f the file read
+		 */
+		void fileRead(File f);
+	}
+
+	/**
+	 * Class constructor.
+	 * @param threads the number of files read at once
+	 */
+	public PhotManDuplicates(int threads) {
+		m_threads = Math.max(1,threads);
+	}
+
+	/**
+	 * Cancels the search. The files being read are finished, no other file is read.
+	 */
+	protected void cancel() {
+		m_cancelled = true;
+	}
+
+	/**
+	 * Returns the number of files the search will read, that is the files having the same size as
+	 * another file of the list.
+	 * @param pmis the pictures
+	 * @return the number of files to be read
+	 */
+	protected static int countCandidates(List<PhotManImage> pmis) {
+		int count = 0;
+		for (List<Integer> group : groupBySize(pmis,new HashSet<Integer>()))
+			count += group.size();
+		return count;
+	}
+
+	/**
+	 * Finds the pictures whose file has the same content as the file of a previous picture of the list.
+	 * A file found twice in the list is a duplicate too.
+	 * @param pmis the pictures
+	 * @param listener the object following the search progress, or null
+	 * @return the duplicates, in the list order, or null if the search was cancelled
+	 * @throws IOException if a file cannot be read
+	 */
+	protected List<PhotManImage> find(List<PhotManImage> pmis, final Listener listener) throws IOException {
+		final PhotManImage[] images = pmis.toArray(new PhotManImage[pmis.size()]);
+		HashSet<Integer> duplicates = new HashSet<Integer>();
+		List<List<Integer>> groups = groupBySize(pmis,duplicates);
+		// The checksums of the files having the same size as another file
+		final long[] checksums = new long[images.length];
+		ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+		for (List<Integer> group : groups) {
+			for (final int i : group) {
+				tasks.add(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						if (m_cancelled) return null;
+						checksums[i] = checksum(images[i].getOriginalFile().toPath());
+						if (listener != null) listener.fileRead(images[i].getOriginalFile());
+						return null;
+					}
+				});
+			}
+		}
+		invokeAll(tasks);
+		if (m_cancelled) return null;
+		// The files having the same checksum as a previous file are compared with it
+		final ArrayList<int[]> pairs = new ArrayList<int[]>();
+		for (List<Integer> group : groups) {
+			HashMap<Long,Integer> first = new HashMap<Long,Integer>();
+			for (int i : group) {
+				Integer j = first.get(checksums[i]);
+				if (j == null) first.put(checksums[i],i);
+				else pairs.add(new int[] {j,i});
+			}
+		}
+		final boolean[] same = new boolean[pairs.size()];
+		tasks.clear();
+		for (int i1 = 0; i1 < pairs.size(); i1++) {
+			final int n = i1;
+			tasks.add(new Callable<Void>() {
+				@Override
+				public Void call() throws IOException {
+					if (m_cancelled) return null;
+					int[] pair = pairs.get(n);
+					same[n] = isSameContent(images[pair[0]].getOriginalFile(),images[pair[1]].getOriginalFile());
+					return null;
+				}
+			});
+		}
+		invokeAll(tasks);
+		if (m_cancelled) return null;
+		for (int i1 = 0; i1 < pairs.size(); i1++)
+			if (same[i1]) duplicates.add(pairs.get(i1)[1]);
+		Integer[] sorted = duplicates.toArray(new Integer[duplicates.size()]);
+		Arrays.sort(sorted);
+		ArrayList<PhotManImage> result = new ArrayList<PhotManImage>(sorted.length);
+		for (int i : sorted) result.add(images[i]);
+		return result;
+	}
+
+	/**
+	 * Computes the checksum (CRC32) of the content of a file.
+	 * @param p the file
+	 * @return the checksum
+	 * @throws IOException if the file cannot be read
+	 */
+	protected static long checksum(Path p) throws IOException {
+		CRC32 crc = new CRC32();
+		byte[] buf = new byte[m_bufferSize];
+		try (InputStream in = new FileInputStream(p.toFile())) {
+			int n;
+			while ((n = in.read(buf)) > 0) crc.update(buf,0,n);
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Groups the pictures by file size. Only the groups of at least two files are kept. A file found
+	 * twice in the list is registered as a duplicate at once, and is not put in its group.
+	 * @param pmis the pictures
+	 * @param duplicates the indexes of the pictures whose file is already in the list, completed by this method
+	 * @return the groups of indexes of the pictures having the same file size
+	 */
+	private static List<List<Integer>> groupBySize(List<PhotManImage> pmis, HashSet<Integer> duplicates) {
+		HashMap<Long,List<Integer>> bySize = new HashMap<Long,List<Integer>>();
+		HashSet<File> files = new HashSet<File>();
+		for (int i1 = 0; i1 < pmis.size(); i1++) {
+			PhotManImage pmi = pmis.get(i1);
+			File f = pmi.getOriginalFile().getAbsoluteFile();
+			if (!files.add(f)) {
+				duplicates.add(i1);
+				continue;
+			}
+			long size = (pmi.getFileSize() >= 0) ? pmi.getFileSize() : f.length();
+			List<Integer> group = bySize.get(size);
+			if (group == null) bySize.put(size,group = new ArrayList<Integer>(1));
+			group.add(i1);
+		}
+		ArrayList<List<Integer>> groups = new ArrayList<List<Integer>>();
+		for (List<Integer> group : bySize.values())
+			if (group.size() > 1) groups.add(group);
+		return groups;
+	}
+
+	/**
+	 * Compares the content of two files of the same size, byte by byte.
+	 * @param f1 the first file
+	 * @param f2 the second file
+	 * @return true if the files have the same content, false otherwise
+	 * @throws IOException if a file cannot be read
+	 */
+	private static boolean isSameContent(File f1, File f2) throws IOException {
+		if (f1.length() != f2.length()) return false;
+		byte[] buf1 = new byte[m_bufferSize];
+		byte[] buf2 = new byte[m_bufferSize];
+		try (InputStream in1 = new BufferedInputStream(new FileInputStream(f1));
+				InputStream in2 = new BufferedInputStream(new FileInputStream(f2))) {
+			while (true) {
+				int n1 = readFully(in1,buf1);
+				int n2 = readFully(in2,buf2);
+				if (n1 != n2) return false;
+				if (n1 == 0) return true;
+				for (int i1 = 0; i1 < n1; i1++)
+					if (buf1[i1] != buf2[i1]) return false;
+			}
+		}
+	}
+
+	/**
+	 * Reads a stream until the buffer is full or the end of the stream is reached.
+	 * @param in the stream
+	 * @param buf the buffer
+	 * @return the number of bytes read, 0 at the end of the stream
+	 * @throws IOException if the stream cannot be read
+	 */
+	private static int readFully(InputStream in, byte[] buf) throws IOException {
+		int total = 0;
+		int n;
+		while ((total < buf.length) && ((n = in.read(buf,total,buf.length-total)) > 0)) total += n;
+		return total;
+	}
+
+	/**
+	 * Runs the given tasks, several at once. If a task fails, the other tasks are stopped and the error is
+	 * thrown.
+	 * @param tasks the tasks
+	 * @throws IOException if a task failed
+	 */
+	private void invokeAll(List<Callable<Void>> tasks) throws IOException {
+		if (tasks.isEmpty()) return;
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(m_threads,tasks.size()),new ThreadFactory() {
+			private final AtomicInteger m_count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r,"PhotMan-duplicates-"+m_count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		IOException error = null;
+		try {
+			ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>(tasks.size());
+			for (Callable<Void> task : tasks) futures.add(pool.submit(task));
+			for (Future<Void> fut : futures) {
+				try {
+					fut.get();
+				}
+				catch (ExecutionException e) {
+					m_cancelled = true;
+					if (error == null) {
+						if (e.getCause() instanceof IOException) error = (IOException) e.getCause();
+						else error = new IOException(e.getCause());
+					}
+				}
+				catch (InterruptedException e) {
+					m_cancelled = true;
+					Thread.currentThread().interrupt();
+					if (error == null) error = new InterruptedIOException("The search was interrupted");
+				}
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+		if (error != null) throw error;
+	}
+}
@@ -0,0 +1,108 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.util.List;
+
+/**
+ * <p>
+ * This class splits the ordered pictures into events (a wedding, a day of a trip...). The pictures are
+ * read once, in their order, and only the date of the previous picture and the mean time between the
+ * pictures of the actual event are kept: the memory used does not depend on the number of pictures.
+ * </p>
+ * <p>
+ * A new event starts after a pause longer than a maximal gap, or after a pause both longer than a
+ * minimal gap and much longer than the usual pauses of the actual event. The usual pause is an
+ * exponentially weighted mean of the pauses, so that it follows the rhythm of the event: a long pause
+ * in a dense sequence of pictures ends the event, while the same pause between scattered pictures does
+ * not.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManEvents {
+	protected static final long m_minGap = 30*60*1000L;
+	protected static final long m_maxGap = 4*3600*1000L;
+	protected static final double m_factor = 8;
+	private static final double m_weight = 0.2;
+
+	private final long m_min;
+	private final long m_max;
+	private final double m_ratio;
+	private long m_last = Long.MIN_VALUE;
+	private double m_mean;
+	private int m_event = 0;
+
+	/**
+	 * Class constructor, with the default gaps.
+	 */
+	public PhotManEvents() {
+		this(m_minGap,m_maxGap,m_factor);
+	}
+
+	/**
+	 * Class constructor.
+	 * @param minGap the minimal pause between two events, in milliseconds
+	 * @param maxGap the pause always starting a new event, in milliseconds
+	 * @param factor how much longer than the usual pauses of the event a pause must be to end it
+	 */
+	public PhotManEvents(long minGap, long maxGap, double factor) {
+		m_min = minGap;
+		m_max = maxGap;
+		m_ratio = factor;
+	}
+
+	/**
+	 * Gives each picture the number of its event, the pictures being taken in their order. The pictures
+	 * without date belong to the event of the previous picture, so that each event is one block of the
+	 * list.
+	 * @param pmis the pictures, ordered by date
+	 * @return the number of events
+	 */
+	protected static int segment(List<PhotManImage> pmis) {
+		PhotManEvents pme = new PhotManEvents();
+		for (PhotManImage pmi : pmis) pmi.setEvent(pme.add(pmi.getCreationTime()));
+		return pme.getCount();
+	}
+
+	/**
+	 * Adds the next picture.
+	 * @param time the date of the picture in milliseconds, or Long.MIN_VALUE if unknown
+	 * @return the number of the event of the picture, starting with 1, or 0 for pictures without date
+	 * before the first dated picture
+	 */
+	protected int add(long time) {
+		if (time == Long.MIN_VALUE) return m_event;
+		// A picture older than the previous one (list not ordered) is taken as following it directly
+		long gap = (m_last == Long.MIN_VALUE) ? 0 : Math.max(0,time - m_last);
+		if ((m_event == 0) || (gap > m_max) || ((gap > m_min) && (gap > m_ratio * m_mean))) {
+			m_event++;
+			m_mean = m_min / m_ratio;
+		}
+		else m_mean += m_weight * (gap - m_mean);
+		m_last = time;
+		return m_event;
+	}
+
+	/**
+	 * Returns the number of events found until now.
+	 * @return the number of events
+	 */
+	protected int getCount() {
+		return m_event;
+	}
+}
@@ -0,0 +1,128 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+/**
+ * <p>
+ * This class contains the few EXIF meta-data used by the program: camera make and model, date and time
+ * the picture was taken, picture orientation and the thumbnail registered with the picture. It is filled
+ * by PhotManExifReader.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManExif {
+	private String m_make;
+	private String m_model;
+	private long m_dateTimeOriginal = Long.MIN_VALUE;
+	private int m_orientation = 1;
+	private byte[] m_thumbnail;
+
+	/**
+	 * Returns the camera make.
+	 * @return the camera make or null if unknown
+	 */
+	protected String getMake() {
+		return m_make;
+	}
+
+	/**
+	 * Sets the camera make.
+	 * @param make the camera make to set
+	 */
+	protected void setMake(String make) {
+		m_make = make;
+	}
+
+	/**
+	 * Returns the camera model.
+	 * @return the camera model or null if unknown
+	 */
+	protected String getModel() {
+		return m_model;
+	}
+
+	/**
+	 * Sets the camera model.
+	 * @param model the camera model to set
+	 */
+	protected void setModel(String model) {
+		m_model = model;
+	}
+
+	/**
+	 * Returns the camera make and model names, as shown to the user.
+	 * @return the camera make and/or model or null if none were found
+	 */
+	protected String getCameraModel() {
+		if (m_make == null)
+			if (m_model == null) return null;
+			else return m_model;
+		else
+			if (m_model == null) return m_make;
+			else return m_make + " " + m_model;
+	}
+
+	/**
+	 * Returns the date and time the picture was taken.
+	 * @return the date and time in milliseconds, or Long.MIN_VALUE if unknown
+	 */
+	protected long getDateTimeOriginal() {
+		return m_dateTimeOriginal;
+	}
+
+	/**
+	 * Sets the date and time the picture was taken.
+	 * @param dateTimeOriginal the date and time in milliseconds to set
+	 */
+	protected void setDateTimeOriginal(long dateTimeOriginal) {
+		m_dateTimeOriginal = dateTimeOriginal;
+	}
+
+	/**
+	 * Returns the picture orientation, as defined by the EXIF standard (1 is normal, 3 upside down,
+	 * 6 rotated clockwise and 8 rotated counterclockwise).
+	 * @return the orientation
+	 */
+	protected int getOrientation() {
+		return m_orientation;
+	}
+
+	/**
+	 * Sets the picture orientation.
+	 * @param orientation the orientation to set
+	 */
+	protected void setOrientation(int orientation) {
+		m_orientation = orientation;
+	}
+
+	/**
+	 * Returns the thumbnail registered with the picture (JPEG data).
+	 * @return the thumbnail or null if the picture has no thumbnail or if it was not read
+	 */
+	protected byte[] getThumbnail() {
+		return m_thumbnail;
+	}
+
+	/**
+	 * Sets the thumbnail registered with the picture.
+	 * @param thumbnail the thumbnail to set
+	 */
+	protected void setThumbnail(byte[] thumbnail) {
+		m_thumbnail = thumbnail;
+	}
+}
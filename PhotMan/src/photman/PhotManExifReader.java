@@ -0,0 +1,360 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+
+/**
+ * <p>
+ * This class reads the EXIF meta-data used by the program (see PhotManExif) from a JPEG file. Only the
+ * beginning of the file is read: the markers are scanned until the EXIF APP1 segment is found, and the
+ * scan stops at the first marker that is not an application or comment segment. In the EXIF segment
+ * only the needed directories (IFD0, EXIF and IFD1 for the thumbnail) are parsed. Usually the first
+ * 16 KB of the file are enough, the rest of the EXIF segment is read only if a tag points beyond them.
+ * The meta-data can also be read from a file already loaded in memory.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the reading from a buffer.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManExifReader {
+	private static final int m_headSize = 16384;
+	private static final int m_maxEntries = 1024;
+
+	private static final int TAG_MAKE = 0x010f;
+	private static final int TAG_MODEL = 0x0110;
+	private static final int TAG_ORIENTATION = 0x0112;
+	private static final int TAG_EXIF_OFFSET = 0x8769;
+	private static final int TAG_DATETIME_ORIGINAL = 0x9003;
+	private static final int TAG_THUMBNAIL_OFFSET = 0x0201;
+	private static final int TAG_THUMBNAIL_LENGTH = 0x0202;
+
+	private final RandomAccessFile m_raf;
+	private final long m_length;
+	private byte[] m_buf;
+	private long m_bufStart;
+	private int m_bufLength;
+	private long m_segStart = -1;
+	private long m_segEnd = -1;
+	private boolean m_little = false;
+
+	/**
+	 * Class constructor, to read from a file.
+	 * @param raf the opened file
+	 * @throws IOException if the file cannot be read
+	 */
+	private PhotManExifReader(RandomAccessFile raf) throws IOException {
+		m_raf = raf;
+		m_length = raf.length();
+		load(0,m_headSize);
+	}
+
+	/**
+	 * Class constructor, to read from a buffer containing the whole file.
+	 * @param buf the buffer
+	 * @param length the number of bytes of the file in the buffer
+	 */
+	private PhotManExifReader(byte[] buf, int length) {
+		m_raf = null;
+		m_length = length;
+		m_buf = buf;
+		m_bufStart = 0;
+		m_bufLength = length;
+	}
+
+	/**
+	 * Reads the EXIF meta-data from the given JPEG file.
+	 * @param f the file containing the picture
+	 * @param withThumbnail should the thumbnail registered with the picture be read too ?
+	 * @return the EXIF meta-data or null if the file contains no EXIF meta-data
+	 * @throws IOException if the file cannot be read or if the EXIF meta-data are corrupted
+	 */
+	protected static PhotManExif read(File f, boolean withThumbnail) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(f,"r")) {
+			return new PhotManExifReader(raf).parse(withThumbnail);
+		}
+	}
+
+	/**
+	 * Reads the EXIF meta-data from a JPEG file already loaded in memory.
+	 * @param buf the buffer containing the whole file
+	 * @param length the number of bytes of the file in the buffer
+	 * @param withThumbnail should the thumbnail registered with the picture be read too ?
+	 * @return the EXIF meta-data or null if the file contains no EXIF meta-data
+	 * @throws IOException if the EXIF meta-data are corrupted
+	 */
+	protected static PhotManExif read(byte[] buf, int length, boolean withThumbnail) throws IOException {
+		return new PhotManExifReader(buf,length).parse(withThumbnail);
+	}
+
+	/**
+	 * Parses the JPEG markers until the EXIF segment is found, and reads the meta-data from it.
+	 * @param withThumbnail should the thumbnail registered with the picture be read too ?
+	 * @return the EXIF meta-data or null if the file contains no EXIF meta-data
+	 * @throws IOException if the file cannot be read or if the EXIF meta-data are corrupted
+	 */
+	private PhotManExif parse(boolean withThumbnail) throws IOException {
+		if ((m_length < 4) || (byteAt(0) != 0xff) || (byteAt(1) != 0xd8)) throw new IOException("Not a JPEG file");
+		long pos = 2;
+		while (pos + 4 <= m_length) {
+			if (byteAt(pos) != 0xff) return null;
+			int marker = byteAt(pos+1);
+			if (marker == 0xff) {
+				pos++;
+				continue;
+			}
+			boolean metadata = ((marker >= 0xe0) && (marker <= 0xef)) || (marker == 0xfe);
+			if (!metadata) return null;
+			int len = (byteAt(pos+2) << 8) | byteAt(pos+3);
+			if (len < 2) return null;
+			long data = pos + 4;
+			if ((marker == 0xe1) && (len >= 16) && isExifHeader(data)) {
+				m_segStart = data;
+				m_segEnd = Math.min(m_length,data + len - 2);
+				return parseTiff(data+6,withThumbnail);
+			}
+			pos = data + len - 2;
+		}
+		return null;
+	}
+
+	/**
+	 * Checks if the APP1 segment starting at the given position is an EXIF segment.
+	 * @param pos the position of the segment data
+	 * @return true if the segment starts with the EXIF header, false otherwise
+	 * @throws IOException if the file cannot be read
+	 */
+	private boolean isExifHeader(long pos) throws IOException {
+		return (byteAt(pos) == 'E') && (byteAt(pos+1) == 'x') && (byteAt(pos+2) == 'i') && (byteAt(pos+3) == 'f')
+				&& (byteAt(pos+4) == 0) && (byteAt(pos+5) == 0);
+	}
+
+	/**
+	 * Parses the TIFF structure of the EXIF segment.
+	 * @param base the position of the TIFF header, all the offsets are relative to this position
+	 * @param withThumbnail should the thumbnail registered with the picture be read too ?
+	 * @return the EXIF meta-data
+	 * @throws IOException if the file cannot be read or if the EXIF meta-data are corrupted
+	 */
+	private PhotManExif parseTiff(long base, boolean withThumbnail) throws IOException {
+		int order = (byteAt(base) << 8) | byteAt(base+1);
+		if (order == 0x4949) m_little = true;
+		else if (order == 0x4d4d) m_little = false;
+		else throw new IOException("Invalid EXIF byte order");
+		if (u16(base+2) != 42) throw new IOException("Invalid EXIF header");
+		PhotManExif exif = new PhotManExif();
+		long[] pointers = new long[3];
+		long next = parseIfd(base,base+u32(base+4),0,exif,pointers);
+		if (pointers[0] > 0) parseIfd(base,base+pointers[0],1,exif,pointers);
+		if (withThumbnail && (next > 0)) {
+			parseIfd(base,base+next,2,exif,pointers);
+			long offset = pointers[1];
+			long length = pointers[2];
+			if ((offset > 0) && (length > 0) && (base+offset+length <= m_segEnd))
+				exif.setThumbnail(bytes(base+offset,(int) length));
+		}
+		return exif;
+	}
+
+	/**
+	 * Parses one image file directory (IFD) and keeps the needed tags.
+	 * @param base the position of the TIFF header
+	 * @param pos the position of the directory
+	 * @param kind the kind of directory (0 for IFD0, 1 for the EXIF directory, 2 for IFD1)
+	 * @param exif the EXIF meta-data to be filled
+	 * @param pointers the EXIF directory offset, the thumbnail offset and length, to be filled
+	 * @return the offset of the next directory, or 0 if there is none
+	 * @throws IOException if the file cannot be read or if the EXIF meta-data are corrupted
+	 */
+	private long parseIfd(long base, long pos, int kind, PhotManExif exif, long[] pointers) throws IOException {
+		int count = u16(pos);
+		if (count > m_maxEntries) throw new IOException("Invalid EXIF directory");
+		for (int i1 = 0; i1 < count; i1++) {
+			long entry = pos + 2 + 12*i1;
+			int tag = u16(entry);
+			int type = u16(entry+2);
+			long n = u32(entry+4);
+			long value = entry+8;
+			if (kind == 0) {
+				if (tag == TAG_MAKE) exif.setMake(ascii(base,type,n,value));
+				else if (tag == TAG_MODEL) exif.setModel(ascii(base,type,n,value));
+				else if (tag == TAG_ORIENTATION) exif.setOrientation((int) integer(type,value));
+				else if (tag == TAG_EXIF_OFFSET) pointers[0] = integer(type,value);
+			}
+			else if (kind == 1) {
+				if (tag == TAG_DATETIME_ORIGINAL) exif.setDateTimeOriginal(parseDate(ascii(base,type,n,value)));
+			}
+			else {
+				if (tag == TAG_THUMBNAIL_OFFSET) pointers[1] = integer(type,value);
+				else if (tag == TAG_THUMBNAIL_LENGTH) pointers[2] = integer(type,value);
+			}
+		}
+		return u32(pos + 2 + 12*count);
+	}
+
+	/**
+	 * Reads an ASCII tag value.
+	 * @param base the position of the TIFF header
+	 * @param type the tag type (must be 2 for ASCII)
+	 * @param n the number of characters, including the ending zero
+	 * @param value the position of the value field of the tag
+	 * @return the trimmed string, or null if the tag is not an ASCII tag or if it is empty
+	 * @throws IOException if the file cannot be read or if the EXIF meta-data are corrupted
+	 */
+	private String ascii(long base, int type, long n, long value) throws IOException {
+		if ((type != 2) || (n <= 0) || (n > 1024)) return null;
+		long pos = (n <= 4) ? value : base + u32(value);
+		byte[] b = bytes(pos,(int) n);
+		int len = 0;
+		while ((len < b.length) && (b[len] != 0)) len++;
+		String str = new String(b,0,len,StandardCharsets.ISO_8859_1).trim();
+		if ("".equals(str)) return null;
+		return str;
+	}
+
+	/**
+	 * Reads an integer tag value (SHORT or LONG).
+	 * @param type the tag type
+	 * @param value the position of the value field of the tag
+	 * @return the value, or 0 if the tag is not an integer tag
+	 * @throws IOException if the file cannot be read
+	 */
+	private long integer(int type, long value) throws IOException {
+		if (type == 3) return u16(value);
+		if (type == 4) return u32(value);
+		return 0;
+	}
+
+	/**
+	 * Converts an EXIF date string (yyyy:MM:dd HH:mm:ss) into a time in milliseconds, in the local time zone.
+	 * @param str the date string
+	 * @return the time in milliseconds or Long.MIN_VALUE if the date is not valid
+	 */
+	protected static long parseDate(String str) {
+		if ((str == null) || (str.length() < 19)) return Long.MIN_VALUE;
+		try {
+			int year = Integer.parseInt(str.substring(0,4));
+			int month = Integer.parseInt(str.substring(5,7));
+			int day = Integer.parseInt(str.substring(8,10));
+			int hour = Integer.parseInt(str.substring(11,13));
+			int minute = Integer.parseInt(str.substring(14,16));
+			int second = Integer.parseInt(str.substring(17,19));
+			if ((year == 0) || (month == 0) || (day == 0)) return Long.MIN_VALUE;
+			Calendar cal = new GregorianCalendar();
+			cal.clear();
+			cal.set(year,month-1,day,hour,minute,second);
+			return cal.getTimeInMillis();
+		}
+		catch (NumberFormatException e) {
+			return Long.MIN_VALUE;
+		}
+	}
+
+	/**
+	 * Reads an unsigned byte.
+	 * @param pos the position in the file
+	 * @return the byte value
+	 * @throws IOException if the file cannot be read
+	 */
+	private int byteAt(long pos) throws IOException {
+		ensure(pos,1);
+		return m_buf[(int) (pos-m_bufStart)] & 0xff;
+	}
+
+	/**
+	 * Reads an unsigned 16 bits integer, in the EXIF byte order.
+	 * @param pos the position in the file
+	 * @return the integer value
+	 * @throws IOException if the file cannot be read
+	 */
+	private int u16(long pos) throws IOException {
+		ensure(pos,2);
+		int i = (int) (pos-m_bufStart);
+		int b0 = m_buf[i] & 0xff;
+		int b1 = m_buf[i+1] & 0xff;
+		if (m_little) return (b1 << 8) | b0;
+		return (b0 << 8) | b1;
+	}
+
+	/**
+	 * Reads an unsigned 32 bits integer, in the EXIF byte order.
+	 * @param pos the position in the file
+	 * @return the integer value
+	 * @throws IOException if the file cannot be read
+	 */
+	private long u32(long pos) throws IOException {
+		ensure(pos,4);
+		int i = (int) (pos-m_bufStart);
+		long b0 = m_buf[i] & 0xff;
+		long b1 = m_buf[i+1] & 0xff;
+		long b2 = m_buf[i+2] & 0xff;
+		long b3 = m_buf[i+3] & 0xff;
+		if (m_little) return (b3 << 24) | (b2 << 16) | (b1 << 8) | b0;
+		return (b0 << 24) | (b1 << 16) | (b2 << 8) | b3;
+	}
+
+	/**
+	 * Reads a sequence of bytes.
+	 * @param pos the position in the file
+	 * @param len the number of bytes
+	 * @return the bytes
+	 * @throws IOException if the file cannot be read
+	 */
+	private byte[] bytes(long pos, int len) throws IOException {
+		ensure(pos,len);
+		byte[] b = new byte[len];
+		System.arraycopy(m_buf,(int) (pos-m_bufStart),b,0,len);
+		return b;
+	}
+
+	/**
+	 * Makes sure the given part of the file is in the buffer. Once the EXIF segment is found, the reads
+	 * are limited to this segment, which is then read completely if needed.
+	 * @param pos the position in the file
+	 * @param len the number of bytes
+	 * @throws IOException if the file cannot be read or if the part is out of the file or of the EXIF segment
+	 */
+	private void ensure(long pos, int len) throws IOException {
+		if ((pos >= m_bufStart) && (pos + len <= m_bufStart + m_bufLength)) return;
+		long limit = (m_segEnd >= 0) ? m_segEnd : m_length;
+		long start = (m_segStart >= 0) ? m_segStart : 0;
+		if ((pos < start) || (len < 0) || (pos + len > limit) || (m_raf == null)) throw new EOFException("Truncated EXIF data");
+		if (m_segStart >= 0) load(m_segStart,(int) (m_segEnd-m_segStart));
+		else load(pos,Math.max(len,m_headSize));
+	}
+
+	/**
+	 * Reads a part of the file into the buffer.
+	 * @param pos the position in the file
+	 * @param len the number of bytes to read (less if the end of the file is reached)
+	 * @throws IOException if the file cannot be read
+	 */
+	private void load(long pos, int len) throws IOException {
+		int size = (int) Math.min(len,m_length-pos);
+		if ((m_buf == null) || (m_buf.length < size)) m_buf = new byte[size];
+		m_raf.seek(pos);
+		m_raf.readFully(m_buf,0,size);
+		m_bufStart = pos;
+		m_bufLength = size;
+	}
+}
@@ -24,11 +24,12 @@ import java.io.FilenameFilter;
  * <pre>
  * Change history:
  *   2014-02-11 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the extension check alone, used by PhotManScanner.
  * </pre>
  * @author Grald Eberle (GEB)
  */
 public class PhotManFilenameFilter implements FilenameFilter {
-	private final String[] m_allowed = {"jpg","jpeg"};
+	private static final String[] m_allowed = {"jpg","jpeg"};
 	private String m_currentDir;
 	
 	/**
@@ -49,22 +50,20 @@ public class PhotManFilenameFilter implements FilenameFilter {
 	 */
 	@Override
 	public boolean accept(File f, String s) {
-		if (!f.getAbsolutePath().equalsIgnoreCase(m_currentDir)) return false;
-	    String extension = getExtension(s);
-	    if ((extension != null) && (m_allowed != null))
-	      for (String ext : m_allowed)
-	        if (ext.equalsIgnoreCase(extension)) return true;							
-		return false;
+		if (!isAllowed(s)) return false;
+		return f.getAbsolutePath().equalsIgnoreCase(m_currentDir);
 	}
-	
+
 	/**
-	 * Extracts the extension of a given file name.
+	 * Returns true if the given file name has an accepted extension, whatever the directory is.
 	 * @param s the file name
-	 * @return the file extension
+	 * @return true if the file has an accepted extension, false otherwise
 	 */
-	private String getExtension(String s) {
+	protected static boolean isAllowed(String s) {
 		int i = s.lastIndexOf('.');
-		if (i > 0 && i < s.length() - 1) return s.substring(i + 1).toLowerCase();
-		return null;
+		if ((i <= 0) || (i >= s.length() - 1)) return false;
+		for (String ext : m_allowed)
+			if (s.regionMatches(true,i+1,ext,0,ext.length()) && (s.length() - i - 1 == ext.length())) return true;
+		return false;
 	}
 }
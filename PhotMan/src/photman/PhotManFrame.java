@@ -25,28 +25,21 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.WindowEvent;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileSystems;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.text.DecimalFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 
-import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
-import javax.swing.DefaultListModel;
 import javax.swing.DropMode;
-import javax.swing.ImageIcon;
+import javax.swing.Icon;
 import javax.swing.JButton;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -57,19 +50,12 @@ import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
+import javax.swing.KeyStroke;
 import javax.swing.ListSelectionModel;
 import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.Timer;
 
-import org.imgscalr.Scalr;
-
-import com.drew.imaging.jpeg.JpegMetadataReader;
-import com.drew.imaging.jpeg.JpegProcessingException;
-import com.drew.metadata.Metadata;
-import com.drew.metadata.MetadataException;
-import com.drew.metadata.exif.ExifDirectory;
-
 /**
  * <p>
  * This class manages the user to program interactions.
@@ -80,6 +66,34 @@ import com.drew.metadata.exif.ExifDirectory;
  *   2014-08-05 GEB  Added the options management and a clear all function.
  *   2014-09-07 GEB  Added the show picture's registered thumbnail option and the computation of the
  *                   time offsets by selecting pictures.
+ *   2026-10-18 GEB  Pictures are loaded in parallel by PhotManLoader.
+ *   2026-10-18 GEB  The camera model and picture date are set at loading time (thumbnails cache).
+ *   2026-10-18 GEB  Added the thumbnails creation on demand (see PhotManThumbnailScheduler).
+ *   2026-10-18 GEB  The pictures dates are kept in milliseconds in the images.
+ *   2026-10-18 GEB  The thumbnails are kept in PhotManThumbnailStore.
+ *   2026-10-18 GEB  The loaded pictures are added to the list by batches, in the event dispatching thread.
+ *   2026-10-18 GEB  The source directories are searched recursively by PhotManScanner, several at once.
+ *   2026-10-18 GEB  Added the watch mode of the source directories (see PhotManWatcher).
+ *   2026-10-18 GEB  The images processing and saving are done by PhotManProcessor and PhotManSaver.
+ *   2026-10-18 GEB  The files are saved in background, with a progress bar and a cancel button.
+ *   2026-10-18 GEB  The interrupted renames are finished or undone at start (see PhotManRenamer).
+ *   2026-10-18 GEB  The save is incremental, as set by the options (see PhotManManifest).
+ *   2026-10-18 GEB  Added the removal of the duplicate pictures (see PhotManDuplicates).
+ *   2026-10-18 GEB  Added the selection of the similar pictures (see PhotManSimilarityIndex) and the
+ *                   removal of the selected pictures.
+ *   2026-10-18 GEB  The save is prepared by PhotManSavePlan, listing the destination directory once.
+ *   2026-10-18 GEB  The pictures are ordered by PhotManTimeline, and moved in the list at once.
+ *   2026-10-18 GEB  The list is ordered live while the time offsets are modified.
+ *   2026-10-18 GEB  The time offsets not set yet are estimated from all the pictures.
+ *   2026-10-18 GEB  The ordered pictures are split into events, which can number the new names.
+ *   2026-10-18 GEB  The pictures are renamed and removed with one list event per block of pictures.
+ *   2026-10-18 GEB  The save is refused if several pictures have the same new name.
+ *   2026-10-18 GEB  The pictures moved or renamed by the save get their new file in the event dispatching thread.
+ *   2026-10-18 GEB  The watched pictures modified are reloaded at their position, the pictures of a deleted
+ *                   directory are removed.
+ *   2026-10-18 GEB  The thumbnails of the pictures removed or reloaded are removed from the store.
+ *   2026-10-18 GEB  The thumbnails finished after their picture was removed or the list cleared are
+ *                   dropped.
  * </pre>
  * @author Grald Eberle (GEB)
  */
@@ -100,7 +114,11 @@ public class PhotManFrame extends JFrame {
 	private JMenuItem m_offMenu;
 	private JMenuItem m_ordMenu;
 	private JMenuItem m_renMenu;
+	private JMenuItem m_dupMenu;
+	private JMenuItem m_simMenu;
+	private JMenuItem m_delMenu;
 	private JMenuItem m_savMenu;
+	private JCheckBoxMenuItem m_watMenu;
 	
 	private ArrayList<File> m_sourceDir = new ArrayList<File>();
 	private File m_destinationDir = null;
@@ -108,12 +126,16 @@ public class PhotManFrame extends JFrame {
 	private HashMap<String,String> m_cameras;
 	private boolean m_notSaved = true;
 	private String m_prefix = "";
+	private boolean m_byEvent = false;
 	private PhotManOptions m_options;
+	private PhotManThumbnailStore m_store;
+	private PhotManLoader m_loader;
+	private PhotManThumbnailScheduler m_scheduler;
+	private PhotManWatcher m_watcher;
 	
 	private final String m_sourceTitle = "Source directory: ";
 	private final String m_destinationTitle = "Destination directory: ";
-	private final String m_timeInit = "00:00:00";
-	private final DecimalFormat m_dec2 = new DecimalFormat("00");
+	private final int m_similarDistance = 10;
 
 	/**
 	 * Class constructor.
@@ -151,11 +173,41 @@ public class PhotManFrame extends JFrame {
 		int y0 = (screenSize.height - frameSize.height) / 2;
 		setLocation(x0,y0);
 		m_options = new PhotManOptions();
+		m_store = new PhotManThumbnailStore(m_options);
+		m_loader = new PhotManLoader(m_options,m_store);
 		createMenu();
 		setNorthPane();
 		setCenterPane();
 		setSouthPane();
 		setButtonsEnabled();
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				checkInterruptedRenames();
+			}
+		});
+	}
+
+	/**
+	 * Checks if some files renames were interrupted (program stopped during a save). For each of them, 
+	 * asks the user if the renames must be finished or undone.
+	 */
+	private void checkInterruptedRenames() {
+		Object[] choices = {"Finish","Undo","Later"};
+		for (PhotManRenamer pmr : PhotManRenamer.findInterrupted()) {
+			int choice = JOptionPane.showOptionDialog(this,
+					"The renaming of the files in "+pmr.getDirectory().getAbsolutePath()+" was interrupted ("
+					+pmr.getProgress()+" done).\nDo you want to finish or undo it ?",
+					"PhotMan - Question",JOptionPane.YES_NO_CANCEL_OPTION,JOptionPane.QUESTION_MESSAGE,null,choices,choices[0]);
+			try {
+				if (choice == 0) pmr.rollForward();
+				else if (choice == 1) pmr.rollBack();
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+				showError("The renaming could not be completed.\nError is "+e.getMessage()+".");
+			}
+		}
 	}
 	
 	/**
@@ -174,6 +226,16 @@ public class PhotManFrame extends JFrame {
 		fMenu.add(exiMenu);
 		JMenuItem srcMenu = createMenuItem("Set Pictures Source...","setSource",KeyEvent.VK_S);
 		aMenu.add(srcMenu);
+		m_watMenu = new JCheckBoxMenuItem("Watch Pictures Sources");
+		m_watMenu.setMnemonic(KeyEvent.VK_W);
+		m_watMenu.setActionCommand("watchSources");
+		m_watMenu.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent ae) {
+				generalActionPerformed(ae);
+			}
+		});
+		aMenu.add(m_watMenu);
 		m_dstMenu = createMenuItem("Set Pictures Destination...","setDestination",KeyEvent.VK_D);
 		aMenu.add(m_dstMenu);
 		m_offMenu = createMenuItem("Set Time Offsets...","timeOffsets",KeyEvent.VK_T);
@@ -182,6 +244,13 @@ public class PhotManFrame extends JFrame {
 		aMenu.add(m_ordMenu);
 		m_renMenu = createMenuItem("Rename Pictures...","renameFiles",KeyEvent.VK_R);
 		aMenu.add(m_renMenu);
+		m_dupMenu = createMenuItem("Remove Duplicate Pictures","removeDuplicates",KeyEvent.VK_U);
+		aMenu.add(m_dupMenu);
+		m_simMenu = createMenuItem("Select Similar Pictures","selectSimilar",KeyEvent.VK_L);
+		aMenu.add(m_simMenu);
+		m_delMenu = createMenuItem("Remove Selected Pictures","removeSelected",KeyEvent.VK_M);
+		m_delMenu.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_DELETE,0));
+		aMenu.add(m_delMenu);
 		m_savMenu = createMenuItem("Save Pictures","saveFiles",KeyEvent.VK_A);
 		aMenu.add(m_savMenu);
 		JMenuItem clsMenu = createMenuItem("Clear All","clearAll",KeyEvent.VK_C);
@@ -282,7 +351,7 @@ public class PhotManFrame extends JFrame {
 	 * Creates the center pane that shows the pictures thumbnail list.
 	 */
 	private void setCenterPane() {
-		DefaultListModel<PhotManImage> dlm = new DefaultListModel<>();
+		PhotManListModel dlm = new PhotManListModel();
 		m_thumbnails = new JList<>(dlm);
 		m_thumbnails.getSelectionModel().setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
 		m_thumbnails.setTransferHandler(new PhotManListItemTransferHandler());
@@ -294,8 +363,9 @@ public class PhotManFrame extends JFrame {
 		m_thumbnails.setFixedCellHeight(m_options.getThumbnailSize()+30);
 		m_thumbnails.setBorder(BorderFactory.createEmptyBorder(5,5,5,5));
 
-		m_thumbnails.setCellRenderer(new PhotManListCellRenderer());
+		m_thumbnails.setCellRenderer(new PhotManListCellRenderer(m_store));
 		JScrollPane imagesScroll = new JScrollPane(m_thumbnails);
+		m_scheduler = new PhotManThumbnailScheduler(m_thumbnails,imagesScroll.getViewport(),m_loader,m_store);
 		m_contentPane.add(imagesScroll,BorderLayout.CENTER); 		
 	}
 
@@ -337,9 +407,27 @@ public class PhotManFrame extends JFrame {
 			if ((m_thumbnails == null) || (m_thumbnails.getModel().getSize() == 0)) return;
 			renameFilesList();
 		}
+		else if ("removeDuplicates".equals(command)) {
+			if ((m_thumbnails == null) || (m_thumbnails.getModel().getSize() == 0)) return;
+			removeDuplicates();
+		}
+		else if ("selectSimilar".equals(command)) {
+			if ((m_thumbnails == null) || m_thumbnails.isSelectionEmpty()) return;
+			selectSimilar();
+		}
+		else if ("removeSelected".equals(command)) {
+			if ((m_thumbnails == null) || m_thumbnails.isSelectionEmpty()) return;
+			removeSelected();
+		}
 		else if ("saveFiles".equals(command)) {
 			if ((m_thumbnails == null) || (m_thumbnails.getModel().getSize() == 0)) return;
-			if (checkDestinationFiles()) copyFiles();
+			PhotManSaver saver = new PhotManSaver(m_destinationDir,m_options.getSaveThreads(),
+					m_options.getSaveStrategy(),m_options.getSaveUpdate());
+			PhotManSavePlan plan = saver.plan(((PhotManListModel) m_thumbnails.getModel()).getImages());
+			if (checkDestinationFiles(plan)) copyFiles(saver,plan);
+		}
+		else if ("watchSources".equals(command)) {
+			setWatching(m_watMenu.isSelected());
 		}
 		else if ("clearAll".equals(command)) {
 			clearAll();
@@ -374,42 +462,220 @@ public class PhotManFrame extends JFrame {
 		boolean ren = (m_thumbnails != null) && (m_thumbnails.getModel().getSize() > 0);
 		m_renButton.setEnabled(ren);
 		m_renMenu.setEnabled(ren);
+		m_dupMenu.setEnabled(ren);
+		m_simMenu.setEnabled(ren);
+		m_delMenu.setEnabled(ren);
 		boolean sav = (m_destinationDir != null);
 		m_savButton.setEnabled(sav);
 		m_savMenu.setEnabled(sav);
 	}
 	
 	/**
-	 * Calls a file chooser so that the user can select a directory as the images source directory.
+	 * Calls a file chooser so that the user can select one or several directories as the images source
+	 * directories. The sub-directories are searched too.
 	 */
 	private void setSourceDirectory() {
 		JFileChooser fc = new JFileChooser();
 		fc.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);;
 		fc.setAcceptAllFileFilterUsed(false);
+		fc.setMultiSelectionEnabled(true);
 		int returnVal = fc.showOpenDialog(this);
 		if (returnVal == JFileChooser.APPROVE_OPTION) {
-			File sourceDir = fc.getSelectedFile();
-			if (sourceDir != null) {
-				if (sourceDir.exists()) {
-					File[] fList = sourceDir.listFiles(new PhotManFilenameFilter(sourceDir.getAbsolutePath()));
-					if (fList.length == 0) {
-						showError("The selected source directory does not contain any allowed image file !");
-						return;
+			File[] sourceDirs = fc.getSelectedFiles();
+			if ((sourceDirs == null) || (sourceDirs.length == 0)) return;
+			for (File sourceDir : sourceDirs)
+				if (!sourceDir.exists()) {
+					showError("The selected source directory "+sourceDir.getName()+" does not exist !");
+					return;
+				}
+			addSourceFiles(sourceDirs);
+		}
+	}
+
+	/**
+	 * Registers the new source directories, once their images were found.
+	 * @param sourceDirs the source directories
+	 */
+	private void addSourceDirectories(File[] sourceDirs) {
+		for (File sourceDir : sourceDirs) {
+			if (m_sourceDir.isEmpty()) {
+				m_source.setText(m_sourceTitle+sourceDir.getAbsolutePath());
+			}
+			else {
+				m_source.setText(m_source.getText()+", "+sourceDir.getAbsolutePath());
+			}
+			m_sourceDir.add(sourceDir);
+			if (m_watcher != null) m_watcher.register(sourceDir);
+		}
+	}
+
+	/**
+	 * Starts or stops watching the source directories. When watching, the pictures added, modified or
+	 * deleted in the source directories are added, reloaded or removed from the list.
+	 * @param watching true to start watching, false to stop
+	 */
+	private void setWatching(boolean watching) {
+		if (m_watcher != null) {
+			m_watcher.close();
+			m_watcher = null;
+		}
+		if (!watching) return;
+		try {
+			m_watcher = new PhotManWatcher(new PhotManWatcher.Listener() {
+				@Override
+				public void filesChanged(List<File> changed, List<File> removed) {
+					updateSourceFiles(changed,removed);
+				}
+			});
+			for (File sourceDir : m_sourceDir) m_watcher.register(sourceDir);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			m_watMenu.setSelected(false);
+			showError("The source directories cannot be watched.\nError is "+e.getMessage()+".");
+		}
+	}
+
+	/**
+	 * Updates the internal list with the pictures changed in the watched source directories. The deleted
+	 * pictures, and the pictures of the deleted directories, are removed from the list, the modified ones
+	 * are reloaded at their position and the new ones are loaded at the end of the list. The files of the
+	 * destination directory are ignored.
+	 * @param changed the files added or modified
+	 * @param removed the files and directories deleted
+	 */
+	private void updateSourceFiles(List<File> changed, List<File> removed) {
+		HashSet<File> gone = new HashSet<>();
+		HashSet<File> reload = new HashSet<>();
+		for (File f : removed)
+			if (!isDestinationFile(f)) gone.add(f);
+		for (File f : changed)
+			if (!isDestinationFile(f)) reload.add(f);
+		PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		int[] indices = new int[dlm.getSize()];
+		int count = 0;
+		ArrayList<PhotManImage> pmis = new ArrayList<>(reload.size());
+		HashMap<PhotManImage,PhotManImage> replaced = new HashMap<>();
+		for (int i1 = 0; (i1 < dlm.getSize()) && (!gone.isEmpty() || !reload.isEmpty()); i1++) {
+			PhotManImage pmi = dlm.get(i1);
+			File f = pmi.getOriginalFile();
+			if (isRemoved(f,gone)) indices[count++] = i1;
+			else if (reload.remove(f) && ((pmi.getFileSize() != f.length()) || (pmi.getFileTime() != f.lastModified()))) {
+				PhotManImage reloaded = PhotManLoader.createImage(f,f.length(),f.lastModified());
+				replaced.put(reloaded,pmi);
+				pmis.add(reloaded);
+			}
+		}
+		removePictures(Arrays.copyOf(indices,count));
+		for (File f : reload) pmis.add(PhotManLoader.createImage(f,f.length(),f.lastModified()));
+		if (pmis.isEmpty()) {
+			showInformation("There are "+dlm.getSize()+" pictures in the list.");
+			return;
+		}
+		addChangedFiles(pmis,replaced);
+	}
+
+	/**
+	 * Checks if a file was deleted, or is in a deleted directory.
+	 * @param f the file
+	 * @param gone the deleted files and directories
+	 * @return true if the file was deleted, false otherwise
+	 */
+	private static boolean isRemoved(File f, HashSet<File> gone) {
+		if (gone.isEmpty()) return false;
+		for (File p = f; p != null; p = p.getParentFile())
+			if (gone.contains(p)) return true;
+		return false;
+	}
+
+	/**
+	 * Checks if the given file is in the destination directory.
+	 * @param f the file
+	 * @return true if the file is in the destination directory, false otherwise
+	 */
+	private boolean isDestinationFile(File f) {
+		if (m_destinationDir == null) return false;
+		return f.getParentFile().getAbsolutePath().equalsIgnoreCase(m_destinationDir.getAbsolutePath());
+	}
+
+	/**
+	 * Loads the pictures changed in the watched source directories, in the background. The reloaded
+	 * pictures replace the old ones at their position, the others are added to the list.
+	 * @param pmis the images to be loaded
+	 * @param replaced the images of the list to be replaced, by reloaded image
+	 */
+	private void addChangedFiles(final List<PhotManImage> pmis, final HashMap<PhotManImage,PhotManImage> replaced) {
+		final PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		final boolean lazy = m_options.isLazyThumbnails();
+		SwingWorker<Void,PhotManImage> work = new SwingWorker<Void,PhotManImage>() {
+			@Override
+			protected Void doInBackground() throws Exception {
+				m_loader.load(pmis,!lazy,new PhotManLoader.Listener() {
+					@Override
+					public void imageLoaded(PhotManImage pmi) {
+						if (lazy) pmi.setThumbnailPending(pmi.getThumbnail() < 0);
+						publish(pmi);
 					}
-					if (m_sourceDir.isEmpty()) {
-						m_source.setText(m_sourceTitle+sourceDir.getAbsolutePath());
+
+					@Override
+					public void loadFailed(File f, String msg) {
+						// The picture is shown anyway, as when it is added with its source directory
 					}
+				});
+				return null;
+			}
+
+			@Override
+			protected void process(List<PhotManImage> chunk) {
+				ArrayList<PhotManImage> added = new ArrayList<>(chunk.size());
+				HashMap<PhotManImage,PhotManImage> replacements = new HashMap<>();
+				for (PhotManImage pmi : chunk) {
+					PhotManImage old = replaced.get(pmi);
+					if (old == null) added.add(pmi);
 					else {
-						m_source.setText(m_source.getText()+", "+sourceDir.getAbsolutePath());
+						replacements.put(old,pmi);
+						if (!lazy) PhotManListCellRenderer.adjustCellSize(m_thumbnails,m_store.get(pmi.getThumbnail()));
 					}
-					addSourceFiles(sourceDir);
-					m_sourceDir.add(sourceDir);
 				}
-				else {
-					showError("The selected source directory does not exist !");
+				if (!replacements.isEmpty()) {
+					dlm.replace(replacements);
+					for (PhotManImage old : replacements.keySet()) {
+						m_store.remove(old.getThumbnail());
+						old.setThumbnailPending(false);
+					}
 				}
+				addLoadedImages(added,lazy);
+			}
+
+			@Override
+			protected void done() {
+				analyseImages();
+				setButtonsEnabled();
+				showInformation("There are "+dlm.getSize()+" pictures in the list ("+pmis.size()+" added or updated).");
+			}
+		};
+		work.execute();
+	}
+
+	/**
+	 * Adds a batch of loaded images to the list. The cells size is adjusted once for the whole batch.
+	 * @param chunk the loaded images
+	 * @param lazy are the thumbnails created on demand ?
+	 */
+	private void addLoadedImages(List<PhotManImage> chunk, boolean lazy) {
+		PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		if (!lazy) {
+			int width = 0;
+			int height = 0;
+			for (PhotManImage pmi : chunk) {
+				Icon thumbnail = m_store.get(pmi.getThumbnail());
+				if (thumbnail == null) continue;
+				width = Math.max(width,thumbnail.getIconWidth());
+				height = Math.max(height,thumbnail.getIconHeight());
 			}
+			PhotManListCellRenderer.adjustCellSize(m_thumbnails,width,height);
 		}
+		dlm.addAll(chunk);
 	}
 	
 	/**
@@ -452,205 +718,158 @@ public class PhotManFrame extends JFrame {
 	}
 	
 	/**
-	 * Adds a new list of images to the internal list and shows them on the screen.
+	 * Searches the images of the given directories, adds them to the internal list and shows them on
+	 * the screen. The images are loaded while the directories are searched.
+	 * @param sourceDirs the source directories
 	 */
-	private void addSourceFiles(File sourceDir) {
+	private void addSourceFiles(final File[] sourceDirs) {
 		if (m_progress == null) m_progress = new PhotManProgressPane(this,"PhotMan","Loading pictures...",null);
-		final File[] images = sourceDir.listFiles(new PhotManFilenameFilter(sourceDir.getAbsolutePath()));
-		int max = images.length;
-		final DefaultListModel<PhotManImage> dlm = (DefaultListModel<PhotManImage>) m_thumbnails.getModel();
-		barInit(max);
+		final PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		final int before = dlm.getSize();
+		final PhotManScanner scanner = new PhotManScanner(sourceDirs);
+		final boolean lazy = m_options.isLazyThumbnails();
+		barInit(1);
 		m_progress.start();
-		setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
-		SwingWorker<Void,Void> work = new SwingWorker<Void, Void>() {			
+		if (!lazy) setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+		SwingWorker<Void,PhotManImage> work = new SwingWorker<Void,PhotManImage>() {
+			private final Semaphore m_slots = new Semaphore(1024);
+			private int m_errors = 0;
+			private String m_firstError = null;
+
 			@Override
 			protected Void doInBackground() throws Exception {
-				for (File f : images) {
-					PhotManImage pmi = new PhotManImage();
-					pmi.setOriginalFile(f);
-					pmi.setFinalName(f.getName());
-					ExifDirectory ed = createExifMap(f);
-					pmi.setExif(ed);
-					if (m_options.isOriginalThumbnail()) pmi.setThumbnail(extractThumbnail(ed,f));
-					else pmi.setThumbnail(createThumbnail(ed,f));
-					dlm.addElement(pmi);
-					barStep();
+				scanner.start();
+				try {
+					m_loader.load(scanner,!lazy,new PhotManLoader.Listener() {
+						@Override
+						public void imageLoaded(PhotManImage pmi) {
+							if (lazy) pmi.setThumbnailPending(pmi.getThumbnail() < 0);
+							m_slots.acquireUninterruptibly();
+							publish(pmi);
+						}
+
+						@Override
+						public void loadFailed(File f, String msg) {
+							if (m_errors++ == 0) m_firstError = f.getName()+": "+msg;
+						}
+					});
+				}
+				finally {
+					scanner.cancel();
 				}
 				return null;
 			}
 
+			@Override
+			protected void process(List<PhotManImage> chunk) {
+				m_progress.getProgress().setMaximum(Math.max(1,scanner.getFound()));
+				addLoadedImages(chunk,lazy);
+				m_progress.step(chunk.size());
+				m_slots.release(chunk.size());
+			}
+
 			@Override
 			protected void done() {
 				barStop();
-				analyseImages();		
-				setButtonsEnabled();
-				showInformation("There are "+dlm.getSize()+" pictures in the list.");
 				setCursor(Cursor.getPredefinedCursor(Cursor.DEFAULT_CURSOR));
+				if (scanner.getFound() == 0) {
+					showError("The selected source directory does not contain any allowed image file !");
+					return;
+				}
+				addSourceDirectories(sourceDirs);
+				analyseImages();
+				setButtonsEnabled();
+				showInformation("There are "+dlm.getSize()+" pictures in the list ("+(dlm.getSize()-before)+" added).");
+				if (scanner.getErrors() > 0) showError(scanner.getErrors()+" file(s) or directorie(s) could not be read.");
+				if (m_errors > 0) showError(m_errors+" picture(s) could not be read completely.\nFirst error is "+m_firstError);
 			}
 		};
 		work.execute();
 	}
-	
+
 	/**
 	 * Checks if the destination does already contain one or several files with the same name as the 
 	 * ones to be copied. If this is the case, ask the user he/she wants to replace the existing file(s).
+	 * The files are never copied if several pictures of the list have the same name.
+	 * @param plan the save plan
 	 * @return true if the files can be copied, false otherwise
 	 */
-	private boolean checkDestinationFiles() {
-		DefaultListModel<PhotManImage> dlm = (DefaultListModel<PhotManImage>) m_thumbnails.getModel();
-		File dstFile;
-		boolean fileExists = false;
-		boolean diffDir;
-		for (int i1 = 0; i1 < dlm.getSize(); i1++) {
-			PhotManImage pmi = dlm.get(i1);
-			dstFile = new File(m_destinationDir.getAbsolutePath(),pmi.getFinalName());
-			diffDir = !pmi.getOriginalFile().getParent().equalsIgnoreCase(m_destinationDir.getAbsolutePath());
-			fileExists = fileExists || (dstFile.exists() && diffDir);
+	private boolean checkDestinationFiles(PhotManSavePlan plan) {
+		if (plan.hasDuplicates()) {
+			showError(plan.getDuplicates().size()+" picture(s) have the same name as another picture of the list."
+					+ "\nFirst is "+plan.getDuplicates().get(0).getFinalName()+".");
+			return false;
 		}
-		if (fileExists) return askReplaceFiles();
+		if (plan.hasConflicts()) return askReplaceFiles(plan.getConflicts().size());
 		return true;
 	}
 
 	/**
 	 * If the destination directory is not the same as the source directory, copies the files containing
 	 * the images from the source to the destination directory. If two files have the same name, the 
-	 * destination file is overwritten by the source file.
+	 * destination file is overwritten by the source file. The files are saved in background, several
+	 * at once, and the save can be cancelled.
+	 * @param saver the saver
+	 * @param plan the save plan, prepared by the saver
 	 */
-	private void copyFiles() {
-		try {
-			boolean sameDir;
-			ArrayList<PhotManImage> sameDirImages = new ArrayList<PhotManImage>();
-			DefaultListModel<PhotManImage> dlm = (DefaultListModel<PhotManImage>) m_thumbnails.getModel();
-			for (int i1 = 0; i1 < dlm.getSize(); i1++) {
-				PhotManImage pmi = dlm.get(i1);
-				sameDir = pmi.getOriginalFile().getParent().equalsIgnoreCase(m_destinationDir.getAbsolutePath());
-				if (sameDir) sameDirImages.add(pmi);
-				else {
-					Path srcPath = pmi.getOriginalFile().toPath();
-					Path destPath = FileSystems.getDefault().getPath(m_destinationDir.getAbsolutePath(),pmi.getFinalName());
-					Files.copy(srcPath,destPath,StandardCopyOption.REPLACE_EXISTING);
-				}
-			}
-			if (sameDirImages.size() > 0) renameFiles(sameDirImages);
-			showInformation("The pictures files have been saved.");
-			m_notSaved = false;
-		} 
-		catch (IOException e) {
-			e.printStackTrace();
-			showError("An I/O error occurred during file copying.\nError is "+e.getMessage()+".");
-		}
-	}
-	
-	/**
-	 * If the destination directory is the same as the source directory, renames the files in the given
-	 * list. If the old and the new files have common names, first rename the old files to temporary names,
-	 * then rename the temporary names to the new names.
-	 * @param iList the list of the files to be renamed
-	 */
-	private void renameFiles(ArrayList<PhotManImage> iList) {
-		ArrayList<String> oldNames = new ArrayList<String>();
-		ArrayList<String> newNames = new ArrayList<String>();
-		for (PhotManImage pmi : iList) {
-			oldNames.add(pmi.getOriginalFile().getName());
-			newNames.add(pmi.getFinalName());
-		}
-		boolean sameName = false;
-		for (String name : newNames)
-			if (oldNames.contains(name)) sameName = true;
-		if (sameName) {
-			for (PhotManImage pmi : iList) {
-				File f = pmi.getOriginalFile();
-				File nf = new File(f.getParent(),f.getName()+".tmp");
-				f.renameTo(nf);
+	private void copyFiles(final PhotManSaver saver, final PhotManSavePlan plan) {
+		final PhotManProgressPane progress = new PhotManProgressPane(this,"PhotMan","Saving pictures...",null);
+		progress.setCancelListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent ae) {
+				saver.cancel();
 			}
-			for (PhotManImage pmi : iList) {
-				File f = pmi.getOriginalFile();
-				File of = new File(f.getParent(),f.getName()+".tmp");
-				File nf = new File(f.getParent(),pmi.getFinalName());
-				of.renameTo(nf);
+		});
+		progress.getProgress().setMaximum(Math.max(1,plan.size()));
+		progress.start();
+		m_savButton.setEnabled(false);
+		m_savMenu.setEnabled(false);
+		SwingWorker<Boolean,PhotManImage> work = new SwingWorker<Boolean,PhotManImage>() {
+			@Override
+			protected Boolean doInBackground() throws Exception {
+				return saver.save(plan,new PhotManSaver.Listener() {
+					@Override
+					public void fileSaved(final PhotManImage pmi, final File file) {
+						if (file != null) {
+							SwingUtilities.invokeLater(new Runnable() {
+								@Override
+								public void run() {
+									pmi.setOriginalFile(file);
+								}
+							});
+						}
+						publish(pmi);
+					}
+				});
 			}
-		}
-		else {
-			for (PhotManImage pmi : iList) {
-				File f = pmi.getOriginalFile();
-				File nf = new File(f.getParent(),pmi.getFinalName());
-				f.renameTo(nf);
+
+			@Override
+			protected void process(List<PhotManImage> chunk) {
+				progress.step(chunk.size());
 			}
-		}
-	}
-	
-	/**
-	 * Extracts from the EXIF meta-data the thumbnail registered with the picture.
-	 * If this thumbnail does not exists, creates one from the image data.
-	 * @param ed the EXIF meta-data
-	 * @param f the file containing the image
-	 * @return the thumbnail image or null if the thumbnail image could not be created
-	 */
-	private ImageIcon extractThumbnail(ExifDirectory ed, File f) {
-		try {
-			if (ed.containsThumbnail()) {
-				ImageIcon thumbnail = new ImageIcon(ed.getThumbnailData());
-				int actWidth = m_thumbnails.getFixedCellWidth();
-				int shdWidth = thumbnail.getIconWidth() + 10;
-				if (actWidth < shdWidth) m_thumbnails.setFixedCellWidth(shdWidth);
-				int actHeight = m_thumbnails.getFixedCellHeight();
-				int shdHeight = thumbnail.getIconHeight() + 30;
-				if (actHeight < shdHeight) m_thumbnails.setFixedCellHeight(shdHeight);
-				return thumbnail;
+
+			@Override
+			protected void done() {
+				progress.stop();
+				progress.dispose();
+				setButtonsEnabled();
+				try {
+					if (get()) {
+						showInformation("The pictures files have been saved.");
+						m_notSaved = false;
+					}
+					else showInformation("The save has been cancelled.");
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				catch (ExecutionException e) {
+					e.getCause().printStackTrace();
+					showError("An I/O error occurred during file copying.\nError is "+e.getCause().getMessage()+".");
+				}
 			}
-		}
-		catch (MetadataException me) {
-			// Nothing to do here
-		}
-		return createThumbnail(ed,f);
-	}
-	
-	/**
-	 * Creates a small image (thumbnail) with fixed size from a given real image.
-	 * @param ed the EXIF meta-data
-	 * @param f the file containing the image to be resized
-	 * @return the thumbnail image or null if the thumbnail image could not be created
-	 */
-	private ImageIcon createThumbnail(ExifDirectory ed, File f) {
-		try {
-			BufferedImage bi = ImageIO.read(f);
-			bi = Scalr.resize(bi,m_options.getGenerateMethod(),m_options.getThumbnailSize(),
-					Scalr.OP_ANTIALIAS,Scalr.OP_BRIGHTER);
-			int orientation = ed.getInt(ExifDirectory.TAG_ORIENTATION);
-			switch (orientation) {
-			case 3: bi = Scalr.rotate(bi,Scalr.Rotation.CW_180); break;
-			case 6: bi = Scalr.rotate(bi,Scalr.Rotation.CW_90); break;
-			case 8: bi = Scalr.rotate(bi,Scalr.Rotation.CW_270); break;
-			default:
-			}			
-			return new ImageIcon(bi);
-		} 
-		catch (IOException e) {
-			e.printStackTrace();
-			showError("An I/O error occurred during thumbnail generation.\nError is "+e.getMessage()+".");
-		} catch (MetadataException e) {
-			e.printStackTrace();
-			showError("An I/O error occurred during thumbnail generation.\nError is "+e.getMessage()+".");
-		}
-		return null;
-	}
-	
-	/**
-	 * Extracts from the image file the EXIF meta-data.
-	 * @param f the file containing the image
-	 * @return the EXIF meta-data or null if no meta-data were found
-	 */
-	private ExifDirectory createExifMap(File f) {		
-		try {
-			Metadata md = JpegMetadataReader.readMetadata(f);
-			ExifDirectory edir = (ExifDirectory) md.getDirectory(ExifDirectory.class);
-			if (edir.getTagCount() > 0) return edir;
-		} 
-		catch (JpegProcessingException e) {
-			e.printStackTrace();
-			showError("An error occurred during EXIF reading.\nError is "+e.getMessage()+".");
-		}
-		return null;
+		};
+		work.execute();
 	}
 	
 	/**
@@ -658,115 +877,68 @@ public class PhotManFrame extends JFrame {
 	 */
 	private void analyseImages() {
 		if (m_cameras == null) m_cameras = new HashMap<>();
-		DefaultListModel<PhotManImage> dlm = (DefaultListModel<PhotManImage>) m_thumbnails.getModel();
-		for (int i1 = 0; i1 < dlm.getSize(); i1++) {
-			PhotManImage pmi = dlm.get(i1);
-			ExifDirectory ed = pmi.getExif();
-			if (ed == null) continue;
-			String cameraModel = getCameraModel(ed);
-			if (cameraModel != null) cameraModel = cameraModel.trim();
-			Date imageDate = getImageCreationDate(ed);
-			pmi.setCameraModel(cameraModel);
-			pmi.setCreationDate(imageDate);
-			if ((cameraModel != null) && (imageDate != null))
-				if (!m_cameras.containsKey(cameraModel)) m_cameras.put(cameraModel,m_timeInit);
-		}
-	}
-	
-	/**
-	 * Extracts from the given EXIF meta-data the camera make and model names.
-	 * @param ed the EXIF meta-data
-	 * @return the camera make and/or model or null if none were found
-	 */
-	private String getCameraModel(ExifDirectory ed) {
-		String cameraMake = null;
-		if (ed.containsTag(ExifDirectory.TAG_MAKE)) cameraMake = ed.getString(ExifDirectory.TAG_MAKE);
-		String cameraModel = null; 
-		if (ed.containsTag(ExifDirectory.TAG_MODEL)) cameraModel = ed.getString(ExifDirectory.TAG_MODEL);
-		if (cameraMake == null)
-			if (cameraModel == null) return null;
-			else return cameraModel;
-		else
-			if (cameraModel == null) return cameraMake;
-			else return cameraMake + " " + cameraModel;
-	}
-	
-	/**
-	 * Extracts from the given EXIF meta-data the date and time the picture was taken.
-	 * @param ed the EXIF meta-data
-	 * @return the date and time the picture was taken
-	 */
-	private Date getImageCreationDate(ExifDirectory ed) {
-		try {
-			if (ed.containsTag(ExifDirectory.TAG_DATETIME_ORIGINAL)) {
-				Date imageDate = ed.getDate(ExifDirectory.TAG_DATETIME_ORIGINAL);
-				return imageDate;
-			}
-		} catch (MetadataException e) {
-			e.printStackTrace();
-			showError("An error occurred during EXIF date reading.\nError is "+e.getMessage()+".");
-		}
-		return null;
+		PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		PhotManProcessor.analyseImages(dlm.getImages(),m_cameras);
 	}
 	
 	/**
 	 * Calls the methods that will allow the user to put time offsets between the different cameras
-	 * that took pictures found in the destination directory.
+	 * that took pictures found in the destination directory. The offsets not set yet are estimated
+	 * first (see PhotManSkewEstimator). While the offsets are modified, the list is shown in the order
+	 * of the adjusted dates; the previous order is restored if the user cancels.
 	 */
 	private void getCamerasOffsets() {
 		if ((m_cameras == null) || (m_cameras.size() == 0)) return;
+		PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		final PhotManImage[] base = dlm.getImages().toArray(new PhotManImage[dlm.getSize()]);
+		final PhotManTimeline timeline = new PhotManTimeline(Arrays.asList(base));
+		final int[] current = new int[base.length];
+		for (int i1 = 0; i1 < current.length; i1++) current[i1] = i1;
+		// The offsets are proposed from the selected pictures if any, else estimated from all the pictures
+		HashMap<String,String> proposed = new HashMap<>(m_cameras);
+		HashMap<String,PhotManSkewEstimator.Estimate> estimates = null;
 		List<PhotManImage> selected = m_thumbnails.getSelectedValuesList();
-		if (selected.size() > 1) presetTimeOffsets(selected);
-		PhotManCameras pmc = new PhotManCameras(m_cameras);
+		if (selected.size() > 1) PhotManProcessor.presetTimeOffsets(selected,proposed);
+		else estimates = PhotManProcessor.estimateTimeOffsets(Arrays.asList(base),proposed);
+		if (!proposed.equals(m_cameras)) {
+			timeline.setOffsets(PhotManProcessor.createDeltas(proposed));
+			previewOrder(base,timeline.sort(),current);
+		}
+		PhotManCameras pmc = new PhotManCameras(proposed,estimates,new PhotManCameras.Listener() {
+			@Override
+			public void offsetsChanged(HashMap<String,String> cameras) {
+				timeline.setOffsets(PhotManProcessor.createDeltas(cameras));
+				previewOrder(base,timeline.sort(),current);
+			}
+		});
 		HashMap<String,String> cameras = pmc.getCameras();
 		if (cameras != null) m_cameras = cameras;
-	}
-	
-	/**
-	 * If the user selects two or more pictures taken at the same time by different cameras,
-	 * this method extracts from the list of selected pictures the time difference between the cameras.
-	 * @param pmis the list of selected pictures
-	 */
-	private void presetTimeOffsets(List<PhotManImage> pmis) {
-		if (m_cameras.size() < 2) return;
-		String baseModel = null;
-		Date baseDate = null;
-		HashMap<String,Date> modelDates = new HashMap<String,Date>();
-		for (PhotManImage pmi : pmis) {
-			if ((baseModel == null) && (baseDate == null)) {
-				baseModel = pmi.getCameraModel();
-				baseDate = pmi.getCreationDate();
-			}
-			else if (!baseModel.equals(pmi.getCameraModel())) modelDates.put(pmi.getCameraModel(),pmi.getCreationDate());
-		}
-		if ((baseModel == null) || (baseDate == null)) return;
-		for (String model : modelDates.keySet()) {
-			String offset = encodeOffset(baseDate,modelDates.get(model));
-			m_cameras.put(model,offset);
+		else {
+			int[] order = new int[base.length];
+			for (int i1 = 0; i1 < order.length; i1++) order[i1] = i1;
+			previewOrder(base,order,current);
 		}
 	}
-	
+
 	/**
-	 * Computes the time difference between two dates and creates a string with format hh:mm:ss.
-	 * @param bDate the base date
-	 * @param eDate the compared date
-	 * @return the resulting string
-	 */
-	private String encodeOffset(Date bDate, Date eDate) {
-		String offset = "";
-		if (bDate.before(eDate)) offset += "+";
-		else offset += "-";
-		long diff = bDate.getTime() - eDate.getTime();
-		if (diff < 0) diff = -diff;
-		diff = diff / 1000;
-		double h = diff / 3600.0;
-		int hours = (int) Math.floor(h);
-		diff = diff - (hours * 3600);
-		double m = diff / 60.0;
-		int minutes = (int) Math.floor(m);
-		diff = diff - (minutes * 60);
-		offset += m_dec2.format(hours) + ":" + m_dec2.format(minutes) + ":" + m_dec2.format(diff);
-		return offset;
+	 * Shows the pictures in the given order, while the time offsets are modified. Nothing is done if the
+	 * list was modified meanwhile (pictures added by the watch mode).
+	 * @param base the pictures in the list order when the time offsets dialog was opened
+	 * @param order the positions in base of the pictures, in their new order
+	 * @param current the positions in base of the pictures actually shown, updated by this method
+	 */
+	private void previewOrder(PhotManImage[] base, int[] order, int[] current) {
+		PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		if (dlm.getSize() != base.length) return;
+		int[] shown = new int[base.length];
+		for (int i1 = 0; i1 < current.length; i1++) {
+			if (dlm.get(i1) != base[current[i1]]) return;
+			shown[current[i1]] = i1;
+		}
+		int[] moves = new int[order.length];
+		for (int i1 = 0; i1 < order.length; i1++) moves[i1] = shown[order[i1]];
+		dlm.permute(moves);
+		System.arraycopy(order,0,current,0,order.length);
 	}
 	
 	/**
@@ -774,116 +946,195 @@ public class PhotManFrame extends JFrame {
 	 */
 	private void setTimeOffsets() {
 		if ((m_cameras == null) || (m_cameras.size() == 0)) return;
-		HashMap<String,Object[]> cams = new HashMap<String,Object[]>();
-		for (String camera : m_cameras.keySet()) {
-			String offset = m_cameras.get(camera);
-			Object[] offs = decodeOffset(offset);
-			cams.put(camera,offs);
-		}
-		DefaultListModel<PhotManImage> dlm = (DefaultListModel<PhotManImage>) m_thumbnails.getModel();
-		for (int i1 = 0; i1 < dlm.getSize(); i1++) {
-			PhotManImage pmi = dlm.get(i1);
-			Date cDate = getImageCreationDate(pmi.getExif());
-			if (cDate == null) continue;
-			String cModel = pmi.getCameraModel();
-			cDate = adjustDate(cDate,cams.get(cModel));
-			pmi.setCreationDate(cDate);
-		}		
+		PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		PhotManProcessor.setTimeOffsets(dlm.getImages(),m_cameras);
 		showInformation("The dates have been adjusted.");
 	}
 	
-	/**
-	 * Decodes the time offset given as a string in a real time offset (sign,hour,minute,second) object.
-	 * @param off the time offset as a string
-	 * @return the real time offset as an object
-	 */
-	private Object[] decodeOffset(String off) {
-		Object[] offs = null;
-		String str = off;
-		String sign = str.substring(0,1);
-		if ("+".equals(sign) || "-".equals(sign)) str = str.substring(1);
-		else sign = "+";
-		if (str.length() == 8) {
-			Integer hours = Integer.parseInt(str.substring(0,2));
-			Integer minutes = Integer.parseInt(str.substring(3,5));
-			Integer seconds = Integer.parseInt(str.substring(7));
-			if ((hours > 0) || (minutes > 0) || (seconds > 0)) {
-				offs = new Object[4];
-				offs[0] = sign;
-				offs[1] = hours;
-				offs[2] = minutes;
-				offs[3] = seconds;
-			}
-		}
-		return offs;
-	}
-	
-	/**
-	 * Adjusts a given date and time with a given time offset.
-	 * @param dt the date and time to be adjusted
-	 * @param offs the time offset
-	 * @return the adjusted date and time
-	 */
-	private Date adjustDate(Date dt, Object[] offs) {
-		if (offs == null) return dt;
-		GregorianCalendar gc = new GregorianCalendar();
-		gc.setLenient(true);
-		gc.setTime(dt);
-		String sign = (String) offs[0];
-		int iSign = 1;
-		if ("-".equals(sign)) iSign = -1;
-		int hours = (Integer) offs[1];
-		if (hours > 0) gc.set(Calendar.HOUR_OF_DAY,gc.get(Calendar.HOUR_OF_DAY)+iSign*hours);
-		int minutes = (Integer) offs[1];
-		if (minutes > 0) gc.set(Calendar.MINUTE,gc.get(Calendar.MINUTE)+iSign*minutes);
-		int seconds = (Integer) offs[1];
-		if (seconds > 0) gc.set(Calendar.SECOND,gc.get(Calendar.SECOND)+iSign*seconds);
-		return new Date(gc.getTimeInMillis());
-	}
-	
 	/**
 	 * Reorders the files containing the images in increasing order the date and time the pictures
-	 * were taken.
+	 * were taken, and splits them into events (see PhotManEvents).
 	 */
 	private void reorderFilesList() {
-		DefaultListModel<PhotManImage> dlm = (DefaultListModel<PhotManImage>) m_thumbnails.getModel();
-		PhotManImage[] pmis = new PhotManImage[dlm.getSize()];
-		for (int i1 = 0; i1 < dlm.getSize(); i1++) pmis[i1] = dlm.get(i1);
-		Arrays.sort(pmis);
-		for (int i1 = 0; i1 < pmis.length; i1++) dlm.setElementAt(pmis[i1],i1);
-		showInformation("The pictures have been ordered by adjusted taken date.");
+		PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		dlm.permute(new PhotManTimeline(dlm.getImages()).sort());
+		int events = PhotManEvents.segment(dlm.getImages());
+		m_thumbnails.repaint();
+		showInformation("The pictures have been ordered by adjusted taken date ("+events+" events found).");
 	}
 	
 	/**
-	 * Renames the files in the order the pictures are shown on the screen. The new files names prefix
-	 * is given by the user. 
+	 * Renames the files in the order the pictures are shown on the screen. The new files names prefix,
+	 * and if the pictures are numbered by event, are given by the user. 
 	 */
 	private void renameFilesList() {
 		String prefix;
 		if ("".equals(m_prefix)) prefix = m_options.getDefaultName();
 		else prefix = m_prefix;
-		PhotManNewFilename pmnf = new PhotManNewFilename(prefix);
+		PhotManNewFilename pmnf = new PhotManNewFilename(prefix,m_byEvent);
 		prefix = pmnf.getNewFilename();
 		if ("".equals(prefix)) return;
 		m_prefix = prefix;
-		DecimalFormat df = new DecimalFormat("0000");
-		DefaultListModel<PhotManImage> dlm = (DefaultListModel<PhotManImage>) m_thumbnails.getModel();
+		m_byEvent = pmnf.isByEvent();
+		PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		PhotManProcessor.renameImages(dlm.getImages(),prefix,m_byEvent);
+		dlm.update(0,dlm.getSize()-1);
+		showInformation("The pictures have been renamed.");
+	}
+	
+	/**
+	 * Searches, in background, the pictures whose file has the same content as the file of a previous
+	 * picture of the list, and removes them from the list. Only the files having the same size as another
+	 * file are read.
+	 */
+	private void removeDuplicates() {
+		final PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		final ArrayList<PhotManImage> images = new ArrayList<PhotManImage>(dlm.getImages());
+		final PhotManDuplicates finder = new PhotManDuplicates(m_options.getSaveThreads());
+		final PhotManProgressPane progress = new PhotManProgressPane(this,"PhotMan","Searching duplicate pictures...",null);
+		progress.setCancelListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent ae) {
+				finder.cancel();
+			}
+		});
+		progress.getProgress().setMaximum(Math.max(1,PhotManDuplicates.countCandidates(images)));
+		progress.start();
+		m_dupMenu.setEnabled(false);
+		SwingWorker<List<PhotManImage>,File> work = new SwingWorker<List<PhotManImage>,File>() {
+			@Override
+			protected List<PhotManImage> doInBackground() throws Exception {
+				return finder.find(images,new PhotManDuplicates.Listener() {
+					@Override
+					public void fileRead(File f) {
+						publish(f);
+					}
+				});
+			}
+
+			@Override
+			protected void process(List<File> chunk) {
+				progress.step(chunk.size());
+			}
+
+			@Override
+			protected void done() {
+				progress.stop();
+				progress.dispose();
+				setButtonsEnabled();
+				try {
+					List<PhotManImage> duplicates = get();
+					if (duplicates == null) {
+						showInformation("The search of the duplicate pictures has been cancelled.");
+						return;
+					}
+					HashSet<PhotManImage> removed = new HashSet<>(duplicates);
+					int[] indices = new int[removed.size()];
+					int count = 0;
+					for (int i1 = 0; (i1 < dlm.getSize()) && !removed.isEmpty(); i1++)
+						if (removed.remove(dlm.get(i1))) indices[count++] = i1;
+					removePictures(Arrays.copyOf(indices,count));
+					showInformation("There are "+dlm.getSize()+" pictures in the list ("+duplicates.size()+" duplicates removed).");
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				catch (ExecutionException e) {
+					e.getCause().printStackTrace();
+					showError("An I/O error occurred during the search of the duplicate pictures.\nError is "
+							+e.getCause().getMessage()+".");
+				}
+			}
+		};
+		work.execute();
+	}
+	
+	/**
+	 * Adds to the selection all the pictures looking like the selected pictures (bursts, near duplicates),
+	 * so that they can be sorted out. The thumbnails perceptual hashes are indexed once, and only the
+	 * hashes near the hash of each selected picture are compared (see PhotManSimilarityIndex). The
+	 * pictures whose thumbnail was not created yet cannot be compared.
+	 */
+	private void selectSimilar() {
+		PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		long[] hashes = new long[dlm.getSize()];
+		int[] indexes = new int[dlm.getSize()];
+		int count = 0;
 		for (int i1 = 0; i1 < dlm.getSize(); i1++) {
 			PhotManImage pmi = dlm.get(i1);
-			String name = prefix + "_" + df.format(i1) + ".jpg";
-			pmi.setFinalName(name);
-			dlm.set(i1,pmi);
+			if (!pmi.hasSimilarityHash()) continue;
+			hashes[count] = pmi.getSimilarityHash();
+			indexes[count++] = i1;
 		}
-		showInformation("The pictures have been renamed.");
+		PhotManSimilarityIndex index = new PhotManSimilarityIndex(hashes,indexes,count);
+		ListSelectionModel lsm = m_thumbnails.getSelectionModel();
+		int[] selected = m_thumbnails.getSelectedIndices();
+		int before = selected.length;
+		lsm.setValueIsAdjusting(true);
+		for (int i : selected) {
+			PhotManImage pmi = dlm.get(i);
+			if (!pmi.hasSimilarityHash()) continue;
+			for (int similar : index.find(pmi.getSimilarityHash(),m_similarDistance))
+				lsm.addSelectionInterval(similar,similar);
+		}
+		lsm.setValueIsAdjusting(false);
+		int after = m_thumbnails.getSelectedIndices().length;
+		String info = (after-before)+" similar pictures have been selected.";
+		if (index.size() < dlm.getSize()) info += " "+(dlm.getSize()-index.size())+" pictures without thumbnail were not compared.";
+		showInformation(info);
+	}
+
+	/**
+	 * Removes the selected pictures from the list. The files are not modified.
+	 */
+	private void removeSelected() {
+		PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		int[] selected = m_thumbnails.getSelectedIndices();
+		removePictures(selected);
+		setButtonsEnabled();
+		showInformation("There are "+dlm.getSize()+" pictures in the list ("+selected.length+" removed).");
 	}
 	
+	/**
+	 * Removes pictures from the list at once (see PhotManListModel.removeIndices()), with their thumbnail.
+	 * The selected pictures which are kept stay selected.
+	 * @param indices the positions of the pictures to be removed, in increasing order
+	 */
+	private void removePictures(int[] indices) {
+		if (indices.length == 0) return;
+		int[] selected = m_thumbnails.getSelectedIndices();
+		PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		for (int index : indices) {
+			PhotManImage pmi = dlm.get(index);
+			m_store.remove(pmi.getThumbnail());
+			// A thumbnail still being created for the picture is dropped when it is finished
+			pmi.setThumbnailPending(false);
+		}
+		dlm.removeIndices(indices);
+		// The positions of the kept pictures are shifted by the number of pictures removed before them
+		int count = 0;
+		int removed = 0;
+		for (int index : selected) {
+			while ((removed < indices.length) && (indices[removed] < index)) removed++;
+			if ((removed < indices.length) && (indices[removed] == index)) continue;
+			selected[count++] = index - removed;
+		}
+		PhotManListModel.setSelection(m_thumbnails,Arrays.copyOf(selected,count));
+	}
+
 	/**
 	 * Resets the program to its initial state.
 	 */
 	private void clearAll() {
 		m_sourceDir.clear();;
 		m_destinationDir = null;
-		((DefaultListModel<PhotManImage>) m_thumbnails.getModel()).clear();
+		m_scheduler.cancelAll();
+		m_store.clear();
+		if (m_watcher != null) setWatching(true);
+		PhotManListModel dlm = (PhotManListModel) m_thumbnails.getModel();
+		// The thumbnails still being created for the pictures are dropped when they are finished
+		for (int i1 = 0; i1 < dlm.getSize(); i1++) dlm.get(i1).setThumbnailPending(false);
+		dlm.clear();
 		m_thumbnails.setFixedCellWidth(m_options.getThumbnailSize()+10);
 		m_thumbnails.setFixedCellHeight(m_options.getThumbnailSize()+30);
 		m_cameras.clear();
@@ -910,18 +1161,6 @@ public class PhotManFrame extends JFrame {
 	    });
 	  }
 	  
-	  /**
-	   * Advances the progress bar by one step unit.
-	   */
-	  private void barStep() {
-	    SwingUtilities.invokeLater(new Runnable() {
-	      @Override
-	      public void run() {
-	        m_progress.step();
-	      }
-	    });
-	  }
-	  
 	  /**
 	   * Removes the progress bar from the screen.
 	   */
@@ -950,11 +1189,12 @@ public class PhotManFrame extends JFrame {
 	 * If the destination directory already contains images files with the same name as those in
 	 * the internal list, asks the user if the files in the destination directory must be replaced
 	 * by those of the internal list.
+	 * @param count the number of files which would be replaced
 	 * @return true if the destination files must be replaced, false otherwise 
 	 */
-	private boolean askReplaceFiles() {
+	private boolean askReplaceFiles(int count) {
 		return JOptionPane.showConfirmDialog(this,
-				"The destination directory does already contain files with the same name as files in the list."
+				"The destination directory does already contain "+count+" file(s) with the same name as files in the list."
 				+ "\nDo you want to replace them by the files in the list ?",
 				"PhotMan - Question",JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION;
 	}
@@ -14,11 +14,6 @@
 package photman;
 
 import java.io.File;
-import java.util.Date;
-
-import javax.swing.Icon;
-
-import com.drew.metadata.exif.ExifDirectory;
 
 /**
  * <p>
@@ -27,16 +22,31 @@ import com.drew.metadata.exif.ExifDirectory;
  * <pre>
  * Change history:
  *   2014-02-17 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the original creation date, so the EXIF meta-data are not needed after loading.
+ *   2026-10-18 GEB  The EXIF meta-data are read by PhotManExifReader.
+ *   2026-10-18 GEB  The EXIF meta-data are not kept anymore. The dates are kept in milliseconds and
+ *                   the camera as an identifier (see PhotManCameraRegistry).
+ *   2026-10-18 GEB  The thumbnail is kept in PhotManThumbnailStore, the image only knows its identifier.
+ *   2026-10-18 GEB  Added the file size and last modification time, taken when the file is found.
+ *   2026-10-18 GEB  Added the perceptual hash of the thumbnail (see PhotManSimilarityIndex).
+ *   2026-10-18 GEB  Added the event number (see PhotManEvents).
  * </pre>
  * @author Grald Eberle (GEB)
  */
 public class PhotManImage implements Comparable<PhotManImage>{
 	private File m_originalFile;
 	private String m_finalName;
-	private String m_cameraModel;
-	private Icon m_thumbnail;
-	private ExifDirectory m_exif;
-	private Date m_creationDate;
+	private long m_fileSize = -1;
+	private long m_fileTime = -1;
+	private int m_thumbnail = -1;
+	private long m_creationTime = Long.MIN_VALUE;
+	private long m_originalTime = Long.MIN_VALUE;
+	private short m_camera = -1;
+	private byte m_orientation = 1;
+	private int m_event = 0;
+	private boolean m_thumbnailPending = false;
+	private long m_similarityHash = 0;
+	private boolean m_similarityKnown = false;
 	
 	/**
 	 * Returns the original file object.
@@ -54,6 +64,32 @@ public class PhotManImage implements Comparable<PhotManImage>{
 		m_originalFile = originalFile;
 	}
 	
+	/**
+	 * Returns the size of the original file.
+	 * @return the file size or -1 if unknown
+	 */
+	protected long getFileSize() {
+		return m_fileSize;
+	}
+
+	/**
+	 * Returns the last modification time of the original file.
+	 * @return the last modification time in milliseconds or -1 if unknown
+	 */
+	protected long getFileTime() {
+		return m_fileTime;
+	}
+
+	/**
+	 * Sets the size and last modification time of the original file.
+	 * @param fileSize the file size to set
+	 * @param fileTime the last modification time to set
+	 */
+	protected void setFileAttributes(long fileSize, long fileTime) {
+		m_fileSize = fileSize;
+		m_fileTime = fileTime;
+	}
+	
 	/**
 	 * Returns the final file name.
 	 * @return the final name
@@ -71,67 +107,149 @@ public class PhotManImage implements Comparable<PhotManImage>{
 	}
 	
 	/**
-	 * Returns the thumbnail associated to this image file.
-	 * @return the thumbnail
+	 * Returns the identifier of the thumbnail associated to this image file (see PhotManThumbnailStore).
+	 * @return the thumbnail identifier or -1 if the image has no thumbnail
 	 */
-	protected Icon getThumbnail() {
+	protected int getThumbnail() {
 		return m_thumbnail;
 	}
 	
 	/**
-	 * Sets the thumbnail associated to this image file.
-	 * @param thumbnail the thumbnail to set
+	 * Sets the identifier of the thumbnail associated to this image file.
+	 * @param thumbnail the thumbnail identifier to set
 	 */
-	protected void setThumbnail(Icon thumbnail) {
+	protected void setThumbnail(int thumbnail) {
 		m_thumbnail = thumbnail;
 	}
 
 	/**
-	 * Returns the EXIF meta-data associated to this image file.
-	 * @return the EXIF meta-data
+	 * Returns the information if the thumbnail of this image is still to be created.
+	 * @return true if the thumbnail will be created on demand, false otherwise
+	 */
+	protected boolean isThumbnailPending() {
+		return m_thumbnailPending;
+	}
+
+	/**
+	 * Sets the information if the thumbnail of this image is still to be created.
+	 * @param thumbnailPending true if the thumbnail will be created on demand
+	 */
+	protected void setThumbnailPending(boolean thumbnailPending) {
+		m_thumbnailPending = thumbnailPending;
+	}
+
+	/**
+	 * Returns the perceptual hash of the thumbnail: pictures looking alike have hashes differing by
+	 * a few bits only (see PhotManSimilarityIndex).
+	 * @return the perceptual hash, meaningful only if hasSimilarityHash() returns true
+	 */
+	protected long getSimilarityHash() {
+		return m_similarityHash;
+	}
+
+	/**
+	 * Returns the information if the perceptual hash of the thumbnail is known.
+	 * @return true if the hash is known, false if the thumbnail was not created yet
+	 */
+	protected boolean hasSimilarityHash() {
+		return m_similarityKnown;
+	}
+
+	/**
+	 * Sets the perceptual hash of the thumbnail.
+	 * @param similarityHash the perceptual hash to set
+	 */
+	protected void setSimilarityHash(long similarityHash) {
+		m_similarityHash = similarityHash;
+		m_similarityKnown = true;
+	}
+
+	/**
+	 * Returns the image creation date and time, i.e. with the time offset of the camera.
+	 * @return the creation time in milliseconds, or Long.MIN_VALUE if unknown
 	 */
-	protected ExifDirectory getExif() {
-		return m_exif;
+	protected long getCreationTime() {
+		return m_creationTime;
 	}
 
 	/**
-	 * Sets the EXIF meta-data associated to this image file.
-	 * @param exif the EXIF meta-data to set
+	 * Sets the image creation date and time.
+	 * @param creationTime the creation time in milliseconds to set
 	 */
-	protected void setExif(ExifDirectory exif) {
-		m_exif = exif;
+	protected void setCreationTime(long creationTime) {
+		m_creationTime = creationTime;
 	}
 
 	/**
-	 * Returns the image creation date.
-	 * @return the creation date
+	 * Returns the image creation date and time as registered in the picture, i.e. without time offset.
+	 * @return the original creation time in milliseconds, or Long.MIN_VALUE if unknown
 	 */
-	protected Date getCreationDate() {
-		return m_creationDate;
+	protected long getOriginalTime() {
+		return m_originalTime;
 	}
 
 	/**
-	 * Sets the image creation date.
-	 * @param creationDate the creation date to set
+	 * Sets the image creation date and time as registered in the picture, i.e. without time offset.
+	 * @param originalTime the original creation time in milliseconds to set
 	 */
-	protected void setCreationDate(Date creationDate) {
-		m_creationDate = creationDate;
+	protected void setOriginalTime(long originalTime) {
+		m_originalTime = originalTime;
 	}
 
 	/**
 	 * Returns the camera make and/or model.
-	 * @return the camera model
+	 * @return the camera model or null if unknown
 	 */
 	protected String getCameraModel() {
-		return m_cameraModel;
+		return PhotManCameraRegistry.getName(m_camera);
 	}
 
 	/**
-	 * Sets the camera make and/or model.
+	 * Sets the camera make and/or model. Only the camera identifier is kept in the image.
 	 * @param cameraModel the camera model to set
 	 */
 	protected void setCameraModel(String cameraModel) {
-		m_cameraModel = cameraModel;
+		m_camera = PhotManCameraRegistry.intern(cameraModel);
+	}
+
+	/**
+	 * Returns the camera identifier (see PhotManCameraRegistry).
+	 * @return the camera identifier or -1 if the camera is unknown
+	 */
+	protected short getCameraId() {
+		return m_camera;
+	}
+
+	/**
+	 * Returns the number of the event the picture belongs to (see PhotManEvents).
+	 * @return the event number, starting with 1, or 0 if unknown
+	 */
+	protected int getEvent() {
+		return m_event;
+	}
+
+	/**
+	 * Sets the number of the event the picture belongs to.
+	 * @param event the event number to set
+	 */
+	protected void setEvent(int event) {
+		m_event = event;
+	}
+
+	/**
+	 * Returns the picture orientation, as defined by the EXIF standard.
+	 * @return the orientation
+	 */
+	protected int getOrientation() {
+		return m_orientation;
+	}
+
+	/**
+	 * Sets the picture orientation.
+	 * @param orientation the orientation to set
+	 */
+	protected void setOrientation(int orientation) {
+		m_orientation = (byte) orientation;
 	}
 
 	/**
@@ -143,11 +261,11 @@ public class PhotManImage implements Comparable<PhotManImage>{
 	 */
 	@Override
 	public int compareTo(PhotManImage pmi) {
-		Date otherDate = pmi.getCreationDate();
-		if (m_creationDate == null)
-			if (otherDate == null) return 0;
+		long otherTime = pmi.getCreationTime();
+		if (m_creationTime == Long.MIN_VALUE)
+			if (otherTime == Long.MIN_VALUE) return 0;
 			else return 1;
-		else if (otherDate == null) return -1;
-		return m_creationDate.compareTo(otherDate);
+		else if (otherTime == Long.MIN_VALUE) return -1;
+		return Long.compare(m_creationTime,otherTime);
 	}
 }
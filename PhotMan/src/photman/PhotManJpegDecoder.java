@@ -0,0 +1,160 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageInputStreamImpl;
+
+/**
+ * <p>
+ * This class decodes the JPEG pictures at a reduced resolution, to create thumbnails. The picture is
+ * read with source subsampling, so that only about twice the thumbnail size is kept in memory instead
+ * of the full picture. Each thread has its own image reader, which is reused from one picture to the
+ * next, and the ImageIO disk cache is disabled. The picture is decoded from the file already loaded
+ * in memory, without any copy.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the decoding from a buffer.
+ *   2026-10-18 GEB  Removed the decoding from a file, the files are always read into a buffer first.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManJpegDecoder {
+	private static final ThreadLocal<ImageReader> m_readers = new ThreadLocal<ImageReader>() {
+		@Override
+		protected ImageReader initialValue() {
+			Iterator<ImageReader> it = ImageIO.getImageReadersByFormatName("jpeg");
+			if (it.hasNext()) return it.next();
+			return null;
+		}
+	};
+
+	static {
+		ImageIO.setUseCache(false);
+	}
+
+	/**
+	 * Decodes the given picture, already loaded in memory, with a resolution large enough to create
+	 * a thumbnail of the given size.
+	 * @param buf the buffer containing the whole file
+	 * @param length the number of bytes of the file in the buffer
+	 * @param size the thumbnail size
+	 * @return the decoded picture or null if the picture could not be decoded
+	 * @throws IOException if an error occurs while decoding the picture
+	 */
+	protected static BufferedImage decode(byte[] buf, int length, int size) throws IOException {
+		ImageReader reader = m_readers.get();
+		if (reader == null) return ImageIO.read(new ByteArrayInputStream(buf,0,length));
+		try (ImageInputStream iis = new BufferInputStream(buf,length)) {
+			return decode(reader,iis,size);
+		}
+	}
+
+	/**
+	 * Decodes a picture with the given reader, which is reset afterwards.
+	 * @param reader the image reader of the actual thread
+	 * @param iis the stream containing the picture
+	 * @param size the thumbnail size
+	 * @return the decoded picture
+	 * @throws IOException if an error occurs while decoding the picture
+	 */
+	private static BufferedImage decode(ImageReader reader, ImageInputStream iis, int size) throws IOException {
+		try {
+			reader.setInput(iis,true,true);
+			ImageReadParam param = reader.getDefaultReadParam();
+			int subsampling = getSubsampling(reader.getWidth(0),reader.getHeight(0),size);
+			if (subsampling > 1) param.setSourceSubsampling(subsampling,subsampling,0,0);
+			return reader.read(0,param);
+		}
+		finally {
+			reader.reset();
+		}
+	}
+
+	/**
+	 * Computes the subsampling factor, so that the decoded picture is still at least twice as large as
+	 * the thumbnail. This keeps a good quality for the final resizing.
+	 * @param width the picture width
+	 * @param height the picture height
+	 * @param size the thumbnail size
+	 * @return the subsampling factor (1 for no subsampling)
+	 */
+	private static int getSubsampling(int width, int height, int size) {
+		if (size <= 0) return 1;
+		return Math.max(1,Math.max(width,height) / (2*size));
+	}
+
+	/**
+	 * This class is an image input stream reading directly from a buffer. Unlike the streams created
+	 * by ImageIO, it does not copy the data into its own cache.
+	 */
+	private static class BufferInputStream extends ImageInputStreamImpl {
+		private final byte[] m_buf;
+		private final int m_length;
+
+		/**
+		 * Class constructor.
+		 * @param buf the buffer
+		 * @param length the number of bytes in the buffer
+		 */
+		private BufferInputStream(byte[] buf, int length) {
+			m_buf = buf;
+			m_length = length;
+		}
+
+		/* (non-Javadoc)
+		 * @see javax.imageio.stream.ImageInputStreamImpl#read()
+		 */
+		@Override
+		public int read() throws IOException {
+			checkClosed();
+			bitOffset = 0;
+			if (streamPos >= m_length) return -1;
+			return m_buf[(int) streamPos++] & 0xff;
+		}
+
+		/* (non-Javadoc)
+		 * @see javax.imageio.stream.ImageInputStreamImpl#read(byte[], int, int)
+		 */
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			checkClosed();
+			bitOffset = 0;
+			if (len == 0) return 0;
+			if (streamPos >= m_length) return -1;
+			int n = (int) Math.min(len,m_length-streamPos);
+			System.arraycopy(m_buf,(int) streamPos,b,off,n);
+			streamPos += n;
+			return n;
+		}
+
+		/* (non-Javadoc)
+		 * @see javax.imageio.stream.ImageInputStreamImpl#length()
+		 */
+		@Override
+		public long length() {
+			return m_length;
+		}
+	}
+}
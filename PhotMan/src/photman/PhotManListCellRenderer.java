@@ -14,22 +14,33 @@
 package photman;
 
 import java.awt.BorderLayout;
+import java.awt.Color;
 import java.awt.Component;
 
+import javax.swing.BorderFactory;
 import javax.swing.Icon;
 import javax.swing.JLabel;
 import javax.swing.JList;
 import javax.swing.JPanel;
 import javax.swing.ListCellRenderer;
+import javax.swing.border.Border;
 
 /**
  * <p>
  * This class is used to render the image object on the screen. The image is represented on screen 
  * by its thumbnail and its final name.
  * </p>
+ * <p>
+ * When the pictures are split into events (see PhotManEvents), the first picture of each event is
+ * marked on its left side, and every second event is shown on a slightly darker background.
+ * </p>
  * <pre>
  * Change history:
  *   2014-02-17 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the cell size adjustment (moved from PhotManFrame).
+ *   2026-10-18 GEB  The thumbnails are taken from PhotManThumbnailStore.
+ *   2026-10-18 GEB  The cell size can be adjusted once for a batch of thumbnails.
+ *   2026-10-18 GEB  Shows the events of the pictures.
  * </pre>
  * @author Grald Eberle (GEB)
  */
@@ -37,6 +48,17 @@ public class PhotManListCellRenderer implements ListCellRenderer<PhotManImage> {
 	private final JPanel m_pane = new JPanel(new BorderLayout());
 	private final JLabel m_icon = new JLabel((Icon) null,JLabel.CENTER);
 	private final JLabel m_name = new JLabel("",JLabel.CENTER);
+	private final Border m_eventBorder = BorderFactory.createMatteBorder(0,3,0,0,new Color(230,140,30));
+	private final Border m_noBorder = BorderFactory.createEmptyBorder(0,3,0,0);
+	private final PhotManThumbnailStore m_store;
+
+	/**
+	 * Class constructor.
+	 * @param store the store keeping the thumbnails
+	 */
+	public PhotManListCellRenderer(PhotManThumbnailStore store) {
+		m_store = store;
+	}
 	
 	/**
 	 * Creates a component that can be used as "rubber stamps" to paint the cells in a JList. In this class the
@@ -53,13 +75,48 @@ public class PhotManListCellRenderer implements ListCellRenderer<PhotManImage> {
 	@Override
 	public Component getListCellRendererComponent(JList<? extends PhotManImage> list, PhotManImage value, int index,
 			boolean isSelected, boolean cellHasFocus) {
-		m_icon.setIcon(value.getThumbnail());
+		if (value.isThumbnailPending()) m_icon.setIcon(m_store.getPlaceholder());
+		else m_icon.setIcon(m_store.get(value.getThumbnail()));
 		m_name.setText(value.getFinalName());
 		m_name.setForeground(isSelected? list.getSelectionForeground() : list.getForeground());
 		
 		m_pane.add(m_icon,BorderLayout.CENTER);
 		m_pane.add(m_name,BorderLayout.SOUTH);
         m_pane.setBackground(isSelected? list.getSelectionBackground() : list.getBackground());
+		int event = value.getEvent();
+		boolean first = (event > 0) && ((index == 0) || (list.getModel().getElementAt(index-1).getEvent() != event));
+		m_pane.setBorder(first ? m_eventBorder : m_noBorder);
+		if (!isSelected && (event > 0) && (event % 2 == 0)) {
+			Color bg = list.getBackground();
+			m_pane.setBackground(new Color(bg.getRed()*15/16,bg.getGreen()*15/16,bg.getBlue()*15/16));
+		}
 		return m_pane;
 	}
+
+	/**
+	 * Enlarges the list cells, if the given thumbnail (usually one registered with the picture) is
+	 * bigger than the actual cells.
+	 * @param list the JList object
+	 * @param thumbnail the thumbnail to be shown
+	 */
+	protected static void adjustCellSize(JList<PhotManImage> list, Icon thumbnail) {
+		if (thumbnail == null) return;
+		adjustCellSize(list,thumbnail.getIconWidth(),thumbnail.getIconHeight());
+	}
+
+	/**
+	 * Enlarges the list cells, if the given thumbnail size (usually the biggest of a batch of thumbnails)
+	 * is bigger than the actual cells.
+	 * @param list the JList object
+	 * @param width the thumbnail width
+	 * @param height the thumbnail height
+	 */
+	protected static void adjustCellSize(JList<PhotManImage> list, int width, int height) {
+		int actWidth = list.getFixedCellWidth();
+		int shdWidth = width + 10;
+		if (actWidth < shdWidth) list.setFixedCellWidth(shdWidth);
+		int actHeight = list.getFixedCellHeight();
+		int shdHeight = height + 30;
+		if (actHeight < shdHeight) list.setFixedCellHeight(shdHeight);
+	}
 }
@@ -20,7 +20,6 @@ import java.io.IOException;
 
 import javax.activation.ActivationDataFlavor;
 import javax.activation.DataHandler;
-import javax.swing.DefaultListModel;
 import javax.swing.JComponent;
 import javax.swing.JList;
 import javax.swing.TransferHandler;
@@ -29,9 +28,17 @@ import javax.swing.TransferHandler;
  * <p>
  * This class is used to define the drag and drop mechanism in a single JList.
  * </p>
+ * <p>
+ * Only the positions of the dragged images are transferred. When they are dropped, the new order of
+ * the whole list is computed as one permutation (the images before the drop location, the dragged
+ * images, the images after it), which is applied in one pass with one single list event (see
+ * PhotManListModel.permute()). The dragged images, which now follow each other, stay selected.
+ * </p>
  * <pre>
  * Change history:
  *   2014-02-17 GEB  Initial coding.
+ *   2026-10-18 GEB  The list uses PhotManListModel.
+ *   2026-10-18 GEB  The positions of the images are transferred, and the images are moved at once.
  * </pre>
  * @author Grald Eberle (GEB)
  */
@@ -39,22 +46,19 @@ public class PhotManListItemTransferHandler extends TransferHandler {
 	private static final long serialVersionUID = 6040333703697686051L;
 
 	private DataFlavor m_localObjectFlavor;
-	private Object[] m_transferedObjects = null;
 	private int[] m_indices = null;
-	private int m_addIndex  = -1; //Location where items were added
-	private int m_addCount  = 0;  //Number of items added.
 	
 	/**
 	 * Class constructor.
 	 */
 	public PhotManListItemTransferHandler() {
 		m_localObjectFlavor = new ActivationDataFlavor(
-				Object[].class,DataFlavor.javaJVMLocalObjectMimeType,"Array of items");
+				int[].class,DataFlavor.javaJVMLocalObjectMimeType,"Positions of items");
 	}
 	
 	/**
-	 * Creates a transferable object to be used as the source for the data transfer (here the list
-	 * of the selected images).
+	 * Creates a transferable object to be used as the source for the data transfer (here the positions
+	 * of the selected images in the list).
 	 * @param c the source for the transferable objects (the images list)
 	 * @return the created transferable object
 	 * 
@@ -65,8 +69,7 @@ public class PhotManListItemTransferHandler extends TransferHandler {
 	protected Transferable createTransferable(JComponent c) {
 		JList<PhotManImage> list = (JList<PhotManImage>) c;
 		m_indices = list.getSelectedIndices();
-		m_transferedObjects = list.getSelectedValuesList().toArray();
-		return new DataHandler(m_transferedObjects,m_localObjectFlavor.getMimeType());
+		return new DataHandler(m_indices,m_localObjectFlavor.getMimeType());
 	}
 	
 	/**
@@ -81,7 +84,8 @@ public class PhotManListItemTransferHandler extends TransferHandler {
 	 */
 	@Override 
 	public boolean canImport(TransferSupport info) {
-		if (!info.isDrop() || !info.isDataFlavorSupported(m_localObjectFlavor)) return false;
+		// The positions are only meaningful for the list they were dragged from
+		if (!info.isDrop() || (m_indices == null) || !info.isDataFlavorSupported(m_localObjectFlavor)) return false;
 		return true;
 	}
 	
@@ -98,7 +102,8 @@ public class PhotManListItemTransferHandler extends TransferHandler {
 	}
 	
 	/**
-	 * Causes a transfer to occur from a drag and drop operation.
+	 * Causes a transfer to occur from a drag and drop operation. The dragged images are moved to the drop
+	 * location with one permutation of the list.
 	 * @param info the object containing all the transfer information
 	 * @return true if the operation succeeded, false otherwise
 	 * 
@@ -111,20 +116,19 @@ public class PhotManListItemTransferHandler extends TransferHandler {
 		
 		JList<PhotManImage> target = (JList<PhotManImage>) info.getComponent();
 		JList.DropLocation dl = (JList.DropLocation) info.getDropLocation();
-		DefaultListModel<PhotManImage> listModel = (DefaultListModel<PhotManImage>) target.getModel();
+		PhotManListModel listModel = (PhotManListModel) target.getModel();
 		
 		int index = dl.getIndex();
 		int max = listModel.getSize();
 		if(index<0 || index>max) index = max;
-		m_addIndex = index;
 		try {
-			Object[] values = (Object[]) info.getTransferable().getTransferData(m_localObjectFlavor);
-			m_addCount = values.length;
-			for (int i1 = 0; i1 < values.length; i1++) {
-				int idx = index++;
-				listModel.add(idx,(PhotManImage) values[i1]);
-				target.addSelectionInterval(idx,idx);
-			}
+			int[] moved = (int[]) info.getTransferable().getTransferData(m_localObjectFlavor);
+			if ((moved.length == 0) || (moved[moved.length-1] >= max)) return false;
+			int[] order = createOrder(moved,index,max);
+			listModel.permute(order);
+			int first = index;
+			for (int i : moved) if (i < index) first--;
+			target.setSelectionInterval(first,first + moved.length - 1);
 			return true;
 		} 
 		catch(UnsupportedFlavorException ufe) {
@@ -135,9 +139,34 @@ public class PhotManListItemTransferHandler extends TransferHandler {
 		}
 		return false;
 	}
+
+	/**
+	 * Computes the new order of the list, when images are moved to a given position.
+	 * @param moved the positions of the moved images, in increasing order
+	 * @param index the position before which the images are moved
+	 * @param size the number of images in the list
+	 * @return the old positions of the images, in their new order
+	 */
+	protected static int[] createOrder(int[] moved, int index, int size) {
+		int[] order = new int[size];
+		int count = 0;
+		int next = 0;
+		// The images before the drop location which are not moved, the moved images, then the others
+		for (int i1 = 0; i1 < index; i1++) {
+			if ((next < moved.length) && (moved[next] == i1)) next++;
+			else order[count++] = i1;
+		}
+		for (int i : moved) order[count++] = i;
+		for (int i1 = index; i1 < size; i1++) {
+			if ((next < moved.length) && (moved[next] == i1)) next++;
+			else order[count++] = i1;
+		}
+		return order;
+	}
 	
 	/**
 	 * This method is invoked after data has been exported, in order to allow the cleanup of the transfer.
+	 * The images were already moved by importData().
 	 * @param c the source object
 	 * @param data the transfered data
 	 * @param action the type of the action that was performed
@@ -146,31 +175,6 @@ public class PhotManListItemTransferHandler extends TransferHandler {
 	 */
 	@Override 
 	protected void exportDone(JComponent c, Transferable data, int action) {
-		cleanup(c,action == MOVE);
-	}
-	
-	/**
-	 * Does the cleanup after the transfer. In this case removes the transfered objects from their previous
-	 * place in the list.
-	 * @param c the source object
-	 * @param remove should we remove the transfered objects form their previous place ?
-	 */
-	@SuppressWarnings("unchecked")
-	private void cleanup(JComponent c, boolean remove) {
-		if (remove && m_indices != null) {
-			JList<PhotManImage> source = (JList<PhotManImage>) c;
-			DefaultListModel<PhotManImage> model = (DefaultListModel<PhotManImage>) source.getModel();
-			if (m_addCount > 0) {
-				for (int i1 = 0; i1 < m_indices.length; i1++) {
-					if (m_indices[i1] >= m_addIndex) {
-						m_indices[i1] += m_addCount;
-					}
-				}
-			}
-			for (int i1 = m_indices.length-1; i1 >= 0; i1--) model.remove(m_indices[i1]);
-		}
-		m_indices  = null;
-		m_addCount = 0;
-		m_addIndex = -1;
+		m_indices = null;
 	}
 }
@@ -0,0 +1,254 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import javax.swing.AbstractListModel;
+import javax.swing.JList;
+import javax.swing.ListSelectionModel;
+
+/**
+ * <p>
+ * This class is the model of the images list, replacing the DefaultListModel used before. The images
+ * are only modified in bulk: a whole batch of images is added, moved or removed with one single event.
+ * All the methods must be called from the event dispatching thread.
+ * </p>
+ * <p>
+ * The images are kept in a plain array, and each bulk operation (insertion of a range, reordering,
+ * replacement of several images, removal of several images, modification of a range) works on the
+ * array in one pass and fires one single event, so that the list is laid out and painted once,
+ * whatever the number of images. The removal of images which do not follow each other fires two
+ * events: the images after the first removed one have changed, and the end of the list was removed.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the read-only view of the images (see PhotManProcessor).
+ *   2026-10-18 GEB  Added the bulk reordering of the images.
+ *   2026-10-18 GEB  The images are kept in an array. Added the bulk replacement, insertion, removal and
+ *                   modification of the images.
+ *   2026-10-18 GEB  Removed the operations on single images, which were not used. The new order of the
+ *                   images is checked.
+ *   2026-10-18 GEB  Added the bulk replacement of images at their position.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManListModel extends AbstractListModel<PhotManImage> {
+	private static final long serialVersionUID = -3107582417663924718L;
+
+	private PhotManImage[] m_images = new PhotManImage[16];
+	private int m_size = 0;
+	private final List<PhotManImage> m_view = Collections.unmodifiableList(new View());
+
+	/**
+	 * This class is the read-only view of the images, following the modifications of the list.
+	 */
+	private class View extends AbstractList<PhotManImage> implements RandomAccess {
+		/* (non-Javadoc)
+		 * @see java.util.AbstractList#get(int)
+		 */
+		@Override
+		public PhotManImage get(int index) {
+			return PhotManListModel.this.get(index);
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.AbstractCollection#size()
+		 */
+		@Override
+		public int size() {
+			return m_size;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.swing.ListModel#getSize()
+	 */
+	@Override
+	public int getSize() {
+		return m_size;
+	}
+
+	/* (non-Javadoc)
+	 * @see javax.swing.ListModel#getElementAt(int)
+	 */
+	@Override
+	public PhotManImage getElementAt(int index) {
+		return get(index);
+	}
+
+	/**
+	 * Returns the image at the given position.
+	 * @param index the image position
+	 * @return the image
+	 */
+	protected PhotManImage get(int index) {
+		if ((index < 0) || (index >= m_size)) throw new IndexOutOfBoundsException("Index: "+index+", size: "+m_size);
+		return m_images[index];
+	}
+
+	/**
+	 * Returns a read-only view of all the images, in the list order.
+	 * @return the images
+	 */
+	protected List<PhotManImage> getImages() {
+		return m_view;
+	}
+
+	/**
+	 * Adds several images at the end of the list, with one single event.
+	 * @param pmis the images to be added
+	 */
+	protected void addAll(Collection<PhotManImage> pmis) {
+		addAll(m_size,pmis);
+	}
+
+	/**
+	 * Inserts several images at the given position, with one single event.
+	 * @param index the position where to insert the images
+	 * @param pmis the images to be inserted, in their order
+	 */
+	protected void addAll(int index, Collection<PhotManImage> pmis) {
+		if ((index < 0) || (index > m_size)) throw new IndexOutOfBoundsException("Index: "+index+", size: "+m_size);
+		int count = pmis.size();
+		if (count == 0) return;
+		if (m_size + count > m_images.length)
+			m_images = Arrays.copyOf(m_images,Math.max(m_size + count,m_images.length + (m_images.length >> 1)));
+		System.arraycopy(m_images,index,m_images,index + count,m_size - index);
+		int i1 = index;
+		for (PhotManImage pmi : pmis) m_images[i1++] = pmi;
+		m_size += count;
+		fireIntervalAdded(this,index,index + count - 1);
+	}
+
+	/**
+	 * Replaces some images by new ones, at their positions, with one single event for the range of the
+	 * replaced images. The images which are not in the list anymore are ignored.
+	 * @param replacements the new images, by image to be replaced
+	 * @return the number of replaced images
+	 */
+	protected int replace(Map<PhotManImage,PhotManImage> replacements) {
+		int first = -1;
+		int last = -1;
+		int count = 0;
+		for (int i1 = 0; (i1 < m_size) && (count < replacements.size()); i1++) {
+			PhotManImage pmi = replacements.get(m_images[i1]);
+			if (pmi == null) continue;
+			m_images[i1] = pmi;
+			if (first < 0) first = i1;
+			last = i1;
+			count++;
+		}
+		if (count > 0) fireContentsChanged(this,first,last);
+		return count;
+	}
+
+	/**
+	 * Tells the list that the images of a range were modified (new name, new thumbnail...), with one
+	 * single event.
+	 * @param index0 the position of the first modified image
+	 * @param index1 the position of the last modified image
+	 */
+	protected void update(int index0, int index1) {
+		if (index0 > index1) return;
+		if ((index0 < 0) || (index1 >= m_size)) throw new IndexOutOfBoundsException("Range: "+index0+"-"+index1+", size: "+m_size);
+		fireContentsChanged(this,index0,index1);
+	}
+
+	/**
+	 * Reorders all the images, with one single event. The list is not modified if the new order does not
+	 * contain each old position exactly once.
+	 * @param order the old positions of the images, in their new order
+	 */
+	protected void permute(int[] order) {
+		if (order.length != m_size) throw new IllegalArgumentException("The new order does not contain all the images");
+		boolean[] seen = new boolean[m_size];
+		for (int position : order) {
+			if ((position < 0) || (position >= m_size) || seen[position])
+				throw new IllegalArgumentException("The new order is not valid at position "+position);
+			seen[position] = true;
+		}
+		PhotManImage[] images = new PhotManImage[m_images.length];
+		for (int i1 = 0; i1 < order.length; i1++) images[i1] = m_images[order[i1]];
+		m_images = images;
+		if (order.length > 0) fireContentsChanged(this,0,order.length-1);
+	}
+
+	/**
+	 * Removes the images at the given positions. The images kept are moved once. If the removed images
+	 * follow each other, one removal event is fired. Otherwise, as one event per block of removed images
+	 * would cost the list a pass over its selection each, the images after the first removed one are
+	 * given as changed and the end of the list as removed: the selection of the list is then not moved
+	 * with the images, it must be restored by the caller.
+	 * @param indices the positions of the images to be removed, in increasing order
+	 */
+	protected void removeIndices(int[] indices) {
+		if (indices.length == 0) return;
+		for (int i1 = 0; i1 < indices.length; i1++)
+			if ((indices[i1] < 0) || (indices[i1] >= m_size) || ((i1 > 0) && (indices[i1] <= indices[i1-1])))
+				throw new IllegalArgumentException("The positions are not valid or not in increasing order");
+		int kept = indices[0];
+		int next = 0;
+		for (int i1 = indices[0]; i1 < m_size; i1++) {
+			if ((next < indices.length) && (indices[next] == i1)) next++;
+			else m_images[kept++] = m_images[i1];
+		}
+		Arrays.fill(m_images,kept,m_size,null);
+		int oldSize = m_size;
+		m_size = kept;
+		int last = indices[indices.length-1];
+		if (last - indices[0] + 1 == indices.length) fireIntervalRemoved(this,indices[0],last);
+		else {
+			if (indices[0] < m_size) fireContentsChanged(this,indices[0],m_size-1);
+			fireIntervalRemoved(this,m_size,oldSize-1);
+		}
+	}
+
+	/**
+	 * Selects the images at the given positions in a list, block by block, with one single selection
+	 * event. The previous selection is cleared.
+	 * @param list the list showing the images
+	 * @param indices the positions of the images to be selected, in increasing order
+	 */
+	protected static void setSelection(JList<PhotManImage> list, int[] indices) {
+		ListSelectionModel lsm = list.getSelectionModel();
+		lsm.setValueIsAdjusting(true);
+		lsm.clearSelection();
+		for (int end = 0; end < indices.length;) {
+			int start = end;
+			while ((end + 1 < indices.length) && (indices[end+1] == indices[end] + 1)) end++;
+			lsm.addSelectionInterval(indices[start],indices[end]);
+			end++;
+		}
+		lsm.setValueIsAdjusting(false);
+	}
+
+	/**
+	 * Removes all the images.
+	 */
+	protected void clear() {
+		int size = m_size;
+		if (size == 0) return;
+		m_images = new PhotManImage[16];
+		m_size = 0;
+		fireIntervalRemoved(this,0,size-1);
+	}
+}
@@ -0,0 +1,534 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.imgscalr.Scalr;
+
+/**
+ * <p>
+ * This class loads the image files: it reads the EXIF meta-data and creates the thumbnail of each
+ * image. The files are processed in parallel by a pool of worker threads sized to the number of
+ * processors, but the loaded images are handed back in the order of the given files list. The
+ * number of images being loaded ahead of the one waiting to be handed back is bounded, so that
+ * a slow consumer does not let the thumbnails pile up in memory. The thumbnails and the needed
+ * meta-data are kept in a persistent cache (see PhotManCache), so that a directory already loaded
+ * is reloaded without reading the pictures again. The thumbnails creation can also be delayed and
+ * requested later, picture by picture (see PhotManThumbnailScheduler). The thumbnails are handed over
+ * to the thumbnails store (see PhotManThumbnailStore). When a picture must be decoded, the file is
+ * read only once into a buffer, and both the meta-data and the picture are taken from this buffer.
+ * At most one buffer of moderate size per worker thread is kept for the next files, the bigger ones
+ * are left to the garbage collector, so that the idle worker threads do not hold big buffers. With
+ * each thumbnail, a perceptual hash is computed (difference hash of a 9x8 grey version of the
+ * thumbnail), so that the pictures looking alike can be found without decoding them again (see
+ * PhotManSimilarityIndex).
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding (moved from PhotManFrame).
+ *   2026-10-18 GEB  The pictures are decoded with subsampling to create the thumbnails.
+ *   2026-10-18 GEB  The EXIF meta-data are read by PhotManExifReader.
+ *   2026-10-18 GEB  The EXIF meta-data are not kept in the images anymore.
+ *   2026-10-18 GEB  The thumbnails are kept in PhotManThumbnailStore.
+ *   2026-10-18 GEB  The files to be decoded are read only once.
+ *   2026-10-18 GEB  The images can be handed over while they are searched (see PhotManScanner).
+ *   2026-10-18 GEB  The thumbnails store is optional (batch mode, see PhotManBatch).
+ *   2026-10-18 GEB  The perceptual hash of each thumbnail is computed (see PhotManSimilarityIndex).
+ *   2026-10-18 GEB  The file buffers are kept in a small pool instead of one per worker thread.
+ *   2026-10-18 GEB  The meta-data are cached even when no thumbnail is created, with the orientation.
+ *   2026-10-18 GEB  The thumbnails created are handed over with their image, without decoding them.
+ *   2026-10-18 GEB  The file buffers pool is sized to the number of worker threads.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManLoader {
+	private static final int m_maxPooledSize = 16*1024*1024;
+
+	private final PhotManOptions m_options;
+	private final ExecutorService m_pool;
+	private final int m_window;
+	private final int m_maxPooledBuffers;
+	private final PhotManCache m_cache = new PhotManCache();
+	private final PhotManThumbnailStore m_store;
+	private final ArrayDeque<FileBuffer> m_buffers = new ArrayDeque<FileBuffer>();
+
+	/**
+	 * This interface must be implemented by the objects receiving the loaded images.
+	 */
+	protected interface Listener {
+		/**
+		 * Called for each loaded image, in the order of the files list.
+		 * @param pmi the loaded image
+		 */
+		void imageLoaded(PhotManImage pmi);
+
+		/**
+		 * Called when an image could only be partially loaded (missing meta-data or thumbnail).
+		 * The image itself is still handed back through imageLoaded().
+		 * @param f the file containing the image
+		 * @param msg the error message
+		 */
+		void loadFailed(File f, String msg);
+	}
+
+	/**
+	 * Class constructor.
+	 * @param options the program options
+	 * @param store the store receiving the thumbnails, or null if only the meta-data are loaded
+	 */
+	public PhotManLoader(PhotManOptions options, PhotManThumbnailStore store) {
+		m_options = options;
+		m_store = store;
+		int threads = Runtime.getRuntime().availableProcessors();
+		m_pool = Executors.newFixedThreadPool(threads,new ThreadFactory() {
+			private final AtomicInteger m_count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r,"PhotMan-loader-"+m_count.incrementAndGet());
+				t.setDaemon(true);
+				t.setPriority(Thread.NORM_PRIORITY-1);
+				return t;
+			}
+		});
+		m_window = threads * 4;
+		m_maxPooledBuffers = threads;
+	}
+
+	/**
+	 * Creates a new image object, not loaded yet, for the given file.
+	 * @param f the file containing the image
+	 * @return the image object
+	 */
+	protected static PhotManImage createImage(File f) {
+		PhotManImage pmi = new PhotManImage();
+		pmi.setOriginalFile(f);
+		pmi.setFinalName(f.getName());
+		return pmi;
+	}
+
+	/**
+	 * Creates a new image object, not loaded yet, for the given file whose attributes are already known.
+	 * @param f the file containing the image
+	 * @param size the file size
+	 * @param modified the file last modification time
+	 * @return the image object
+	 */
+	protected static PhotManImage createImage(File f, long size, long modified) {
+		PhotManImage pmi = createImage(f);
+		pmi.setFileAttributes(size,modified);
+		return pmi;
+	}
+
+	/**
+	 * Loads the given images and hands them back to the listener in the same order. This method
+	 * blocks until all the images have been processed, so it must not be called from the event
+	 * dispatching thread. The images can be given while they are searched (see PhotManScanner).
+	 * @param images the images to be loaded
+	 * @param thumbnails should the thumbnails be created too ? If not, only the meta-data are read
+	 * @param listener the object receiving the loaded images
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	protected void load(Iterable<PhotManImage> images, boolean thumbnails, Listener listener) throws InterruptedException {
+		ArrayDeque<Future<LoadResult>> inFlight = new ArrayDeque<>(m_window);
+		try {
+			for (PhotManImage pmi : images) {
+				while (!inFlight.isEmpty() && ((inFlight.size() >= m_window) || inFlight.peek().isDone()))
+					handBack(inFlight.poll(),listener);
+				inFlight.add(m_pool.submit(new LoadTask(pmi,thumbnails)));
+			}
+			while (!inFlight.isEmpty()) handBack(inFlight.poll(),listener);
+		}
+		finally {
+			for (Future<LoadResult> fut : inFlight) fut.cancel(true);
+		}
+	}
+
+	/**
+	 * Waits for the given load to be finished and hands the result back to the listener.
+	 * @param fut the pending load
+	 * @param listener the object receiving the loaded image
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	private void handBack(Future<LoadResult> fut, Listener listener) throws InterruptedException {
+		try {
+			LoadResult lr = fut.get();
+			if (lr.m_error != null) listener.loadFailed(lr.m_image.getOriginalFile(),lr.m_error);
+			listener.imageLoaded(lr.m_image);
+		}
+		catch (ExecutionException e) {
+			// The load task catches its own errors, so this should never happen
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Creates the thumbnail of one image, whose meta-data were already loaded. The thumbnail is taken
+	 * from the cache if possible. This method can be called from any thread.
+	 * @param pmi the image
+	 * @return the thumbnail identifier or -1 if the thumbnail could not be created
+	 */
+	protected int loadThumbnail(PhotManImage pmi) {
+		File f = pmi.getOriginalFile();
+		String key = createKey(pmi);
+		PhotManCache.Entry ce = m_cache.get(key);
+		if ((ce != null) && (ce.getThumbnail() != null)) {
+			if (ce.isHashKnown()) pmi.setSimilarityHash(ce.getHash());
+			return m_store.add(ce.getThumbnail());
+		}
+		LoadResult lr = new LoadResult();
+		lr.m_image = pmi;
+		byte[] registered = null;
+		if (m_options.isOriginalThumbnail()) {
+			PhotManExif ed = createExifMap(f,lr);
+			if (ed != null) registered = ed.getThumbnail();
+		}
+		byte[] thumbnail = createThumbnail(registered,null,key,lr);
+		return m_store.add(thumbnail,lr.m_thumbnail);
+	}
+
+	/**
+	 * Loads one image: reads its EXIF meta-data and, if asked for, creates its thumbnail.
+	 * @param pmi the image to be loaded
+	 * @param thumbnail should the thumbnail be created ?
+	 * @return the loading result
+	 */
+	private LoadResult loadImage(PhotManImage pmi, boolean thumbnail) {
+		LoadResult lr = new LoadResult();
+		File f = pmi.getOriginalFile();
+		lr.m_image = pmi;
+		String key = createKey(pmi);
+		PhotManCache.Entry ce = m_cache.get(key);
+		// An entry without thumbnail only gives the meta-data
+		if ((ce != null) && (!thumbnail || (ce.getThumbnail() != null))) {
+			if ((ce.getThumbnail() != null) && (m_store != null)) {
+				pmi.setThumbnail(m_store.add(ce.getThumbnail()));
+				pmi.setThumbnailPending(false);
+				if (ce.isHashKnown()) pmi.setSimilarityHash(ce.getHash());
+			}
+			pmi.setCameraModel(ce.getCamera());
+			pmi.setOriginalTime(ce.getDate());
+			pmi.setCreationTime(ce.getDate());
+			pmi.setOrientation(ce.getOrientation());
+			return lr;
+		}
+		PhotManExif ed = null;
+		FileBuffer fb = null;
+		if (thumbnail && !m_options.isOriginalThumbnail()) {
+			fb = readFile(f,lr);
+			if (fb != null) ed = createExifMap(fb,lr);
+		}
+		else ed = createExifMap(f,lr);
+		byte[] registered = null;
+		if (ed != null) {
+			pmi.setCameraModel(ed.getCameraModel());
+			pmi.setOriginalTime(ed.getDateTimeOriginal());
+			pmi.setCreationTime(ed.getDateTimeOriginal());
+			pmi.setOrientation(ed.getOrientation());
+			registered = ed.getThumbnail();
+		}
+		if (thumbnail) {
+			byte[] encoded = createThumbnail(registered,fb,key,lr);
+			pmi.setThumbnail(m_store.add(encoded,lr.m_thumbnail));
+		}
+		else if (lr.m_error == null) cacheImage(key,pmi,null);
+		if (fb != null) releaseBuffer(fb);
+		return lr;
+	}
+
+	/**
+	 * Creates the cache key of an image. The file size and time taken when the file was found are used
+	 * if they are known.
+	 * @param pmi the image
+	 * @return the cache key
+	 */
+	private String createKey(PhotManImage pmi) {
+		File f = pmi.getOriginalFile();
+		if (pmi.getFileSize() < 0) pmi.setFileAttributes(f.length(),f.lastModified());
+		return m_cache.createKey(f,pmi.getFileSize(),pmi.getFileTime(),m_options);
+	}
+
+	/**
+	 * Creates the thumbnail of an image, either by taking the one registered with the picture or by resizing
+	 * the picture, and stores it in the cache with the image meta-data and the thumbnail perceptual hash.
+	 * The thumbnail image is left in the loading result, so that the thumbnails store does not decode it.
+	 * @param registered the thumbnail registered with the picture, or null to resize the picture
+	 * @param fb the file already read into memory, or null if not read yet
+	 * @param key the cache key of the image
+	 * @param lr the loading result, to register errors
+	 * @return the encoded thumbnail image or null if the thumbnail image could not be created
+	 */
+	private byte[] createThumbnail(byte[] registered, FileBuffer fb, String key, LoadResult lr) {
+		PhotManImage pmi = lr.m_image;
+		byte[] thumbnail = registered;
+		if (thumbnail == null) thumbnail = createThumbnail(fb,pmi.getOriginalFile(),pmi.getOrientation(),lr);
+		else {
+			try {
+				BufferedImage bi = ImageIO.read(new ByteArrayInputStream(registered));
+				if (bi != null) pmi.setSimilarityHash(computeHash(bi));
+				lr.m_thumbnail = bi;
+			}
+			catch (IOException e) {
+				// The picture is only not found by the similarity search
+			}
+		}
+		if (lr.m_error == null) cacheImage(key,pmi,thumbnail);
+		return thumbnail;
+	}
+
+	/**
+	 * Stores the meta-data of an image and its thumbnail in the cache.
+	 * @param key the cache key of the image
+	 * @param pmi the image
+	 * @param thumbnail the encoded thumbnail image, or null if not created yet
+	 */
+	private void cacheImage(String key, PhotManImage pmi, byte[] thumbnail) {
+		m_cache.put(key,new PhotManCache.Entry(pmi.getCameraModel(),pmi.getOriginalTime(),pmi.getOrientation(),
+				thumbnail,pmi.getSimilarityHash(),pmi.hasSimilarityHash()),m_options.getCacheSize()*1024L*1024L);
+	}
+
+	/**
+	 * Creates a small image (thumbnail) with fixed size from a given real image. The real image is decoded
+	 * at a reduced resolution (see PhotManJpegDecoder). The thumbnail image is left in the loading result,
+	 * only the encoded thumbnail is returned.
+	 * @param fb the file already read into memory, or null if not read yet
+	 * @param f the file containing the image to be resized
+	 * @param orientation the picture orientation
+	 * @param lr the loading result, to register errors
+	 * @return the encoded thumbnail image or null if the thumbnail image could not be created
+	 */
+	private byte[] createThumbnail(FileBuffer fb, File f, int orientation, LoadResult lr) {
+		FileBuffer read = (fb == null) ? readFile(f,lr) : null;
+		if (read != null) fb = read;
+		if (fb == null) return null;
+		try {
+			BufferedImage bi = PhotManJpegDecoder.decode(fb.m_data,fb.m_length,m_options.getThumbnailSize());
+			if (bi == null) {
+				lr.m_error = "The picture could not be decoded";
+				return null;
+			}
+			bi = Scalr.resize(bi,m_options.getGenerateMethod(),m_options.getThumbnailSize(),
+					Scalr.OP_ANTIALIAS,Scalr.OP_BRIGHTER);
+			switch (orientation) {
+			case 3: bi = Scalr.rotate(bi,Scalr.Rotation.CW_180); break;
+			case 6: bi = Scalr.rotate(bi,Scalr.Rotation.CW_90); break;
+			case 8: bi = Scalr.rotate(bi,Scalr.Rotation.CW_270); break;
+			default:
+			}
+			lr.m_image.setSimilarityHash(computeHash(bi));
+			lr.m_thumbnail = bi;
+			return encodeThumbnail(bi);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			lr.m_error = "An I/O error occurred during thumbnail generation.\nError is "+e.getMessage()+".";
+		}
+		finally {
+			if (read != null) releaseBuffer(read);
+		}
+		return null;
+	}
+
+	/**
+	 * Computes the perceptual hash (difference hash) of a thumbnail: the thumbnail is reduced to 9x8 grey
+	 * cells, and each of the 64 bits tells if a cell is brighter than its right neighbour. Small changes
+	 * of the picture (compression, exposure, framing of a burst) only change a few bits.
+	 * @param bi the thumbnail image
+	 * @return the perceptual hash
+	 */
+	private static long computeHash(BufferedImage bi) {
+		int width = bi.getWidth();
+		int height = bi.getHeight();
+		int[] rgb = bi.getRGB(0,0,width,height,null,0,width);
+		long[] sums = new long[72];
+		int[] counts = new int[72];
+		for (int y = 0; y < height; y++) {
+			int row = (y * 8 / height) * 9;
+			for (int x = 0; x < width; x++) {
+				int p = rgb[y*width+x];
+				int cell = row + x * 9 / width;
+				sums[cell] += (((p >> 16) & 0xff) * 299) + (((p >> 8) & 0xff) * 587) + ((p & 0xff) * 114);
+				counts[cell]++;
+			}
+		}
+		long hash = 0;
+		for (int y = 0; y < 8; y++) {
+			for (int x = 0; x < 8; x++) {
+				int cell = y * 9 + x;
+				// Compares sums[cell]/counts[cell] with sums[cell+1]/counts[cell+1] without dividing
+				boolean brighter = sums[cell] * Math.max(1,counts[cell+1]) > sums[cell+1] * Math.max(1,counts[cell]);
+				hash = (hash << 1) | (brighter ? 1 : 0);
+			}
+		}
+		return hash;
+	}
+
+	/**
+	 * Encodes a thumbnail image as JPEG, so it can be kept in the cache.
+	 * @param bi the thumbnail image
+	 * @return the encoded thumbnail image
+	 * @throws IOException if the image cannot be encoded
+	 */
+	private byte[] encodeThumbnail(BufferedImage bi) throws IOException {
+		if (bi.getType() != BufferedImage.TYPE_INT_RGB) {
+			BufferedImage rgb = new BufferedImage(bi.getWidth(),bi.getHeight(),BufferedImage.TYPE_INT_RGB);
+			Graphics2D g2d = rgb.createGraphics();
+			g2d.drawImage(bi,0,0,null);
+			g2d.dispose();
+			bi = rgb;
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+		ImageIO.write(bi,"jpg",out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Extracts from the image file the EXIF meta-data. The registered thumbnail is read only if the
+	 * program options ask for it.
+	 * @param f the file containing the image
+	 * @param lr the loading result, to register errors
+	 * @return the EXIF meta-data or null if no meta-data were found
+	 */
+	private PhotManExif createExifMap(File f, LoadResult lr) {
+		try {
+			return PhotManExifReader.read(f,m_options.isOriginalThumbnail());
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			lr.m_error = "An error occurred during EXIF reading.\nError is "+e.getMessage()+".";
+		}
+		return null;
+	}
+
+	/**
+	 * Extracts the EXIF meta-data from an image file already read into memory.
+	 * @param fb the file read into memory
+	 * @param lr the loading result, to register errors
+	 * @return the EXIF meta-data or null if no meta-data were found
+	 */
+	private PhotManExif createExifMap(FileBuffer fb, LoadResult lr) {
+		try {
+			return PhotManExifReader.read(fb.m_data,fb.m_length,false);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			lr.m_error = "An error occurred during EXIF reading.\nError is "+e.getMessage()+".";
+		}
+		return null;
+	}
+
+	/**
+	 * Reads a whole image file into a buffer taken from the pool, which must be given back once used
+	 * (see releaseBuffer()).
+	 * @param f the file to be read
+	 * @param lr the loading result, to register errors
+	 * @return the buffer containing the file or null if the file could not be read
+	 */
+	private FileBuffer readFile(File f, LoadResult lr) {
+		try (FileInputStream in = new FileInputStream(f)) {
+			long size = in.getChannel().size();
+			if (size > Integer.MAX_VALUE - 8) throw new IOException("File too big");
+			FileBuffer fb = null;
+			if (size <= m_maxPooledSize) {
+				synchronized (m_buffers) {
+					fb = m_buffers.poll();
+				}
+			}
+			if (fb == null) fb = new FileBuffer();
+			if (fb.m_data.length < size) fb.m_data = new byte[(int) size];
+			int len = 0;
+			int n;
+			while ((len < size) && ((n = in.read(fb.m_data,len,(int) size-len)) > 0)) len += n;
+			fb.m_length = len;
+			return fb;
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			lr.m_error = "An I/O error occurred while reading the picture.\nError is "+e.getMessage()+".";
+		}
+		return null;
+	}
+
+	/**
+	 * Gives back a buffer once used. The buffer is kept for the next files, unless it is very big or
+	 * enough buffers are kept already.
+	 * @param fb the buffer
+	 */
+	private void releaseBuffer(FileBuffer fb) {
+		if (fb.m_data.length > m_maxPooledSize) return;
+		synchronized (m_buffers) {
+			if (m_buffers.size() < m_maxPooledBuffers) m_buffers.push(fb);
+		}
+	}
+
+	/**
+	 * This class is the task loading one image file in the workers pool.
+	 */
+	private class LoadTask implements Callable<LoadResult> {
+		private final PhotManImage m_image;
+		private final boolean m_thumbnail;
+
+		/**
+		 * Class constructor.
+		 * @param pmi the image to be loaded
+		 * @param thumbnail should the thumbnail be created ?
+		 */
+		private LoadTask(PhotManImage pmi, boolean thumbnail) {
+			m_image = pmi;
+			m_thumbnail = thumbnail;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.util.concurrent.Callable#call()
+		 */
+		@Override
+		public LoadResult call() {
+			return loadImage(m_image,m_thumbnail);
+		}
+	}
+
+	/**
+	 * This class holds the result of the loading of one image file.
+	 */
+	private static class LoadResult {
+		private PhotManImage m_image;
+		private String m_error;
+		private BufferedImage m_thumbnail;
+	}
+
+	/**
+	 * This class holds a whole image file read into memory.
+	 */
+	private static class FileBuffer {
+		private byte[] m_data = new byte[0];
+		private int m_length;
+	}
+}
@@ -0,0 +1,219 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * This class manages the manifest of a destination directory: for each file saved in the directory, it
+ * remembers the source file it was copied from, with the size and the last modification time of both
+ * files, and optionally a checksum of the content. The next save can so find out, without reading the
+ * files, which files of the destination directory are still up-to-date copies of their source, and only
+ * copy the new or changed files (see PhotManSaver). The manifest is kept in a hidden file of the
+ * destination directory.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManManifest {
+	private static final int m_magic = 0x504d4d31; // "PMM1"
+	private static final String m_fileName = ".photman.pmm";
+
+	private final File m_dir;
+	private final HashMap<String,Entry> m_entries = new HashMap<String,Entry>();
+	private final HashMap<String,String> m_bySource = new HashMap<String,String>();
+
+	/**
+	 * This class contains the information about one file saved in the destination directory.
+	 */
+	protected static class Entry {
+		private final String m_source;
+		private final long m_sourceSize;
+		private final long m_sourceTime;
+		private final long m_size;
+		private final long m_time;
+		private final long m_checksum;
+
+		/**
+		 * Class constructor.
+		 * @param source the absolute path of the source file
+		 * @param sourceSize the source file size
+		 * @param sourceTime the source file last modification time
+		 * @param size the saved file size
+		 * @param time the saved file last modification time
+		 * @param checksum the checksum of the content, or -1 if not computed
+		 */
+		protected Entry(String source, long sourceSize, long sourceTime, long size, long time, long checksum) {
+			m_source = source;
+			m_sourceSize = sourceSize;
+			m_sourceTime = sourceTime;
+			m_size = size;
+			m_time = time;
+			m_checksum = checksum;
+		}
+	}
+
+	/**
+	 * Class constructor. The manifest is empty until it is loaded.
+	 * @param dir the destination directory
+	 */
+	public PhotManManifest(File dir) {
+		m_dir = dir;
+	}
+
+	/**
+	 * Loads the manifest of the destination directory, if there is one.
+	 */
+	protected void load() {
+		File f = new File(m_dir,m_fileName);
+		if (!f.isFile()) return;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+			if (in.readInt() != m_magic) return;
+			int size = in.readInt();
+			for (int i1 = 0; i1 < size; i1++) {
+				String name = in.readUTF();
+				Entry me = new Entry(in.readUTF(),in.readLong(),in.readLong(),in.readLong(),in.readLong(),in.readLong());
+				m_entries.put(name,me);
+				m_bySource.put(me.m_source,name);
+			}
+		}
+		catch (IOException e) {
+			// A damaged manifest only means the files are compared again
+			e.printStackTrace();
+			m_entries.clear();
+			m_bySource.clear();
+		}
+	}
+
+	/**
+	 * Writes the manifest into the destination directory. The entries of the files which do not exist
+	 * anymore are dropped.
+	 * @throws IOException if the manifest cannot be written
+	 */
+	protected synchronized void save() throws IOException {
+		String[] names = m_dir.list();
+		HashSet<String> existing = new HashSet<String>((names == null) ? Arrays.<String>asList() : Arrays.asList(names));
+		for (Iterator<Map.Entry<String,Entry>> it = m_entries.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String,Entry> me = it.next();
+			if (!existing.contains(me.getKey())) {
+				it.remove();
+				m_bySource.remove(me.getValue().m_source);
+			}
+		}
+		File f = new File(m_dir,m_fileName);
+		File tmp = new File(m_dir,m_fileName+".tmp");
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+			out.writeInt(m_magic);
+			out.writeInt(m_entries.size());
+			for (Map.Entry<String,Entry> me : m_entries.entrySet()) {
+				Entry e = me.getValue();
+				out.writeUTF(me.getKey());
+				out.writeUTF(e.m_source);
+				out.writeLong(e.m_sourceSize);
+				out.writeLong(e.m_sourceTime);
+				out.writeLong(e.m_size);
+				out.writeLong(e.m_time);
+				out.writeLong(e.m_checksum);
+			}
+		}
+		try {
+			Files.move(tmp.toPath(),f.toPath(),StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp.toPath(),f.toPath(),StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Returns the source file a file of the destination directory was copied from.
+	 * @param name the name of the file in the destination directory
+	 * @return the absolute path of the source file, or null if the file is unknown
+	 */
+	protected synchronized String getSource(String name) {
+		Entry me = m_entries.get(name);
+		return (me == null) ? null : me.m_source;
+	}
+
+	/**
+	 * Finds the file of the destination directory which is an up-to-date copy of the given source file.
+	 * The copy is up-to-date if the source file has the same size, modification time (and checksum, if
+	 * given) as when it was copied, and if the copy was not modified since.
+	 * @param source the absolute path of the source file
+	 * @param sa the actual attributes of the source file
+	 * @param checksum the actual checksum of the source file, or -1 if not checked
+	 * @return the name of the copy in the destination directory, or null if there is no up-to-date copy
+	 */
+	protected synchronized String findCopy(String source, BasicFileAttributes sa, long checksum) {
+		String name = m_bySource.get(source);
+		if (name == null) return null;
+		Entry me = m_entries.get(name);
+		if ((me == null) || !me.m_source.equals(source)) return null;
+		if ((me.m_sourceSize != sa.size()) || (me.m_sourceTime != sa.lastModifiedTime().toMillis())) return null;
+		if ((checksum != -1) && (me.m_checksum != checksum)) return null;
+		File copy = new File(m_dir,name);
+		if ((copy.length() != me.m_size) || (copy.lastModified() != me.m_time)) return null;
+		return name;
+	}
+
+	/**
+	 * Registers a file saved in the destination directory.
+	 * @param name the name of the file in the destination directory
+	 * @param source the absolute path of the source file
+	 * @param sa the attributes of the source file when it was copied
+	 * @param checksum the checksum of the content, or -1 if not computed
+	 */
+	protected synchronized void put(String name, String source, BasicFileAttributes sa, long checksum) {
+		File copy = new File(m_dir,name);
+		Entry old = m_entries.put(name,new Entry(source,sa.size(),sa.lastModifiedTime().toMillis(),copy.length(),
+				copy.lastModified(),checksum));
+		if ((old != null) && name.equals(m_bySource.get(old.m_source))) m_bySource.remove(old.m_source);
+		m_bySource.put(source,name);
+	}
+
+	/**
+	 * Updates the manifest after files of the destination directory were renamed.
+	 * @param oldNames the old files names
+	 * @param newNames the new files names, in the same order
+	 */
+	protected synchronized void rename(List<String> oldNames, List<String> newNames) {
+		Entry[] moved = new Entry[oldNames.size()];
+		for (int i1 = 0; i1 < moved.length; i1++) moved[i1] = m_entries.remove(oldNames.get(i1));
+		for (int i1 = 0; i1 < moved.length; i1++) {
+			if (moved[i1] == null) continue;
+			m_entries.put(newNames.get(i1),moved[i1]);
+			m_bySource.put(moved[i1].m_source,newNames.get(i1));
+		}
+	}
+}
@@ -26,6 +26,7 @@ import java.awt.event.WindowEvent;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -41,6 +42,7 @@ import javax.swing.WindowConstants;
  * <pre>
  * Change history:
  *   2014-02-21 GEB  Initial coding.
+ *   2026-10-18 GEB  The pictures can be numbered by event.
  * </pre>
  * @author Grald Eberle (GEB)
  */
@@ -51,14 +53,25 @@ public class PhotManNewFilename extends JDialog {
 
 	private String m_newFilename = "";
 	private String m_nameInit;
+	private boolean m_byEvent;
 	
 	/**
 	 * Class constructor.
 	 */
 	public PhotManNewFilename(String nameInit) {
+		this(nameInit,false);
+	}
+
+	/**
+	 * Class constructor.
+	 * @param nameInit the proposed prefix
+	 * @param byEvent the proposed numbering, true to number the pictures by event
+	 */
+	public PhotManNewFilename(String nameInit, boolean byEvent) {
 		enableEvents(AWTEvent.WINDOW_EVENT_MASK);
 		try {
 			m_nameInit = nameInit;
+			m_byEvent = byEvent;
 			photManNewFilenameInit();
 		}
 		catch(Exception e) {
@@ -74,6 +87,14 @@ public class PhotManNewFilename extends JDialog {
 		return m_newFilename;
 	}
 
+	/**
+	 * Returns the numbering chosen by the user.
+	 * @return true to number the pictures by event (see PhotManEvents), false to number them in the list
+	 */
+	protected boolean isByEvent() {
+		return m_byEvent;
+	}
+
 	/**
 	 * Initializes all the window components.
 	 */
@@ -84,7 +105,7 @@ public class PhotManNewFilename extends JDialog {
 		setIconImage(applIcon);
 		setTitle("New Files Names");
 		setModal(true);
-		setSize(new Dimension(320,160));
+		setSize(new Dimension(320,190));
 		setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
 		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
 		Dimension frameSize = getSize();
@@ -104,7 +125,7 @@ public class PhotManNewFilename extends JDialog {
 	private void createMainPane() {
 		String info = "<html><b>Give the prefix of the new files names. "
 				+ "The prefix will be combined with the rank of the image in the list, "
-				+ "to form the new files names.</b></html>";
+				+ "or with its event and its rank in the event, to form the new files names.</b></html>";
 		JLabel infoLabel = new JLabel(info);
 		infoLabel.setBorder(BorderFactory.createEmptyBorder(5,5,5,5));
 		m_contentPane.add(infoLabel,BorderLayout.NORTH);
@@ -113,6 +134,8 @@ public class PhotManNewFilename extends JDialog {
 		JPanel fnPane = new JPanel(new FlowLayout(FlowLayout.LEFT));
 		fnPane.add(fnLabel);
 		fnPane.add(fnField);
+		final JCheckBox evBox = new JCheckBox("Number the pictures by event",m_byEvent);
+		fnPane.add(evBox);
 		m_contentPane.add(fnPane,BorderLayout.CENTER);
 		JButton okButton = new JButton();
 		okButton.setText("Ok");
@@ -121,6 +144,7 @@ public class PhotManNewFilename extends JDialog {
 			@Override
 			public void actionPerformed(ActionEvent ae) {
 				m_newFilename = fnField.getText();
+				m_byEvent = evBox.isSelected();
 				processWindowEvent(new WindowEvent(thisWindow,WindowEvent.WINDOW_CLOSING));
 			}});
 		JButton clButton = new JButton();
@@ -30,12 +30,24 @@ import org.imgscalr.Scalr.Method;
  *  - if available, show picture's registered thumbnail (default is Yes)
  *  - the scaling method to generate the thumbnail (default is SPEED)
  *  - the size of the thumbnail (default is 96 pixels)
+ *  - the size of the thumbnails cache (default is 256 MB)
+ *  - if the thumbnails are created on demand, when shown on the screen (default is No)
+ *  - the memory used to keep the thumbnails ready to be shown (default is 64 MB)
+ *  - the number of files copied at once when saving (default is 4)
+ *  - the way the files are saved: copied, linked or moved (default is COPY)
  * </pre>
  * </p>
  * <pre>
  * Change history:
  *   2014-08-05 GEB  Initial coding.
  *   2014-09-07 GEB  Added the show picture's registered thumbnail option.
+ *   2026-10-18 GEB  Added the thumbnails cache size option.
+ *   2026-10-18 GEB  Added the thumbnails on demand option.
+ *   2026-10-18 GEB  Added the thumbnails memory option.
+ *   2026-10-18 GEB  Added the parallel files copies option.
+ *   2026-10-18 GEB  Added the save strategy option.
+ *   2026-10-18 GEB  Added the incremental save option.
+ *   2026-10-18 GEB  All the files are saved by default.
  * </pre>
  * @author Grald Eberle (GEB)
  */
@@ -45,6 +57,12 @@ public class PhotManOptions {
 	private boolean m_originalThumbnail;
 	private Method m_generateMethod;
 	private int m_thumbnailSize;
+	private int m_cacheSize;
+	private boolean m_lazyThumbnails;
+	private int m_thumbnailMemory;
+	private int m_saveThreads;
+	private PhotManSaver.Strategy m_saveStrategy;
+	private PhotManSaver.Update m_saveUpdate;
 	private Preferences m_prefs;
 	
 	/**
@@ -94,17 +112,75 @@ public class PhotManOptions {
 		return m_thumbnailSize;
 	}
 	
+	/**
+	 * Returns the maximal size of the thumbnails cache on the disk. A size of 0 disables the cache.
+	 * @return the cache size in megabytes
+	 */
+	protected int getCacheSize() {
+		return m_cacheSize;
+	}
+
+	/**
+	 * Returns the information if the thumbnails should only be created when they are shown on the screen.
+	 * In this case the pictures are listed at once, with a placeholder image.
+	 * @return true if the thumbnails are created on demand, false otherwise
+	 */
+	protected boolean isLazyThumbnails() {
+		return m_lazyThumbnails;
+	}
+
+	/**
+	 * Returns the memory used to keep the decoded thumbnails ready to be shown. The other thumbnails
+	 * are kept compressed outside of the Java heap (see PhotManThumbnailStore).
+	 * @return the thumbnails memory in megabytes
+	 */
+	protected int getThumbnailMemory() {
+		return m_thumbnailMemory;
+	}
+
+	/**
+	 * Returns the number of files copied at once when the pictures are saved (see PhotManSaver).
+	 * @return the number of parallel copies
+	 */
+	protected int getSaveThreads() {
+		return m_saveThreads;
+	}
+
+	/**
+	 * Returns the way the files are saved: copied, linked or moved (see PhotManSaver).
+	 * @return the save strategy
+	 */
+	protected PhotManSaver.Strategy getSaveStrategy() {
+		return m_saveStrategy;
+	}
+
+	/**
+	 * Returns the files saved again when they are already in the destination directory: all the files,
+	 * the changed files, or the files whose content changed (see PhotManSaver).
+	 * @return the incremental save mode
+	 */
+	protected PhotManSaver.Update getSaveUpdate() {
+		return m_saveUpdate;
+	}
+
 	/**
 	 * Calls the pop-up used to manage the options.
 	 */
 	protected void setOptions() {
-		PhotManOptionsPane pmop = new PhotManOptionsPane(m_defaultName,m_originalThumbnail,m_generateMethod,m_thumbnailSize);
+		PhotManOptionsPane pmop = new PhotManOptionsPane(m_defaultName,m_originalThumbnail,m_generateMethod,m_thumbnailSize,
+				m_cacheSize,m_lazyThumbnails,m_thumbnailMemory,m_saveThreads,m_saveStrategy,m_saveUpdate);
 		int thSize = pmop.getThumbnailSize();
 		if (thSize > 0) {
 			m_defaultName = pmop.getDefaultName();
 			m_originalThumbnail = pmop.isOriginalThumbnail();
 			m_generateMethod = pmop.getGenerateMethod();
 			m_thumbnailSize = thSize;
+			m_cacheSize = pmop.getCacheSize();
+			m_lazyThumbnails = pmop.isLazyThumbnails();
+			m_thumbnailMemory = pmop.getThumbnailMemory();
+			m_saveThreads = pmop.getSaveThreads();
+			m_saveStrategy = pmop.getSaveStrategy();
+			m_saveUpdate = pmop.getSaveUpdate();
 			setPreferences();
 		}
 	}
@@ -116,7 +192,13 @@ public class PhotManOptions {
 		m_defaultName = "IMG";
 		m_originalThumbnail = true;
 		m_generateMethod = Method.SPEED;
-		m_thumbnailSize = 96;		
+		m_thumbnailSize = 96;
+		m_cacheSize = 256;
+		m_lazyThumbnails = false;
+		m_thumbnailMemory = 64;
+		m_saveThreads = 4;
+		m_saveStrategy = PhotManSaver.Strategy.COPY;
+		m_saveUpdate = PhotManSaver.Update.ALL;
 	}
 
 	/**
@@ -131,6 +213,12 @@ public class PhotManOptions {
 		String thumbnailSize = m_prefs.get("thumbnailSize",null);
 		if (thumbnailSize == null) m_thumbnailSize = -1;
 		else m_thumbnailSize = setThumbnailSize(thumbnailSize);
+		m_cacheSize = m_prefs.getInt("cacheSize",256);
+		m_lazyThumbnails = m_prefs.getBoolean("lazyThumbnails",false);
+		m_thumbnailMemory = m_prefs.getInt("thumbnailMemory",64);
+		m_saveThreads = m_prefs.getInt("saveThreads",4);
+		m_saveStrategy = setSaveStrategy(m_prefs.get("saveStrategy",PhotManSaver.Strategy.COPY.name()));
+		m_saveUpdate = setSaveUpdate(m_prefs.get("saveUpdate",PhotManSaver.Update.ALL.name()));
 		if (isOptionInvalid()) initOptions();
 	}
 	
@@ -149,6 +237,36 @@ public class PhotManOptions {
 		}
 	}
 	
+	/**
+	 * Returns the save strategy defined by its name. If the name does not correspond to any save
+	 * strategy, returns null.
+	 * @param sName the strategy name
+	 * @return the save strategy or null
+	 */
+	private PhotManSaver.Strategy setSaveStrategy(String sName) {
+		try {
+			return PhotManSaver.Strategy.valueOf(sName);
+		}
+		catch (Exception e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Returns the incremental save mode defined by its name. If the name does not correspond to any
+	 * mode, returns null.
+	 * @param uName the mode name
+	 * @return the incremental save mode or null
+	 */
+	private PhotManSaver.Update setSaveUpdate(String uName) {
+		try {
+			return PhotManSaver.Update.valueOf(uName);
+		}
+		catch (Exception e) {
+			return null;
+		}
+	}
+	
 	/**
 	 * Returns an integer representing the thumbnail size in pixels, from a string. If the given 
 	 * string does not contain an integer, returns -1.
@@ -169,7 +287,9 @@ public class PhotManOptions {
 	 * @return true if one of the options is invalid, false otherwise
 	 */
 	private boolean isOptionInvalid() {
-		return (m_defaultName == null) || (m_generateMethod == null) || (m_thumbnailSize < 0);
+		return (m_defaultName == null) || (m_generateMethod == null) || (m_thumbnailSize < 0) || (m_cacheSize < 0)
+				|| (m_thumbnailMemory <= 0) || (m_saveThreads <= 0) || (m_saveStrategy == null)
+				|| (m_saveUpdate == null);
 	}
 	
 	/**
@@ -180,5 +300,11 @@ public class PhotManOptions {
 		m_prefs.putBoolean("originalThumbnail",m_originalThumbnail);
 		m_prefs.put("generateMethod",m_generateMethod.name());
 		m_prefs.put("thumbnailSize",Integer.toString(m_thumbnailSize));
+		m_prefs.putInt("cacheSize",m_cacheSize);
+		m_prefs.putBoolean("lazyThumbnails",m_lazyThumbnails);
+		m_prefs.putInt("thumbnailMemory",m_thumbnailMemory);
+		m_prefs.putInt("saveThreads",m_saveThreads);
+		m_prefs.put("saveStrategy",m_saveStrategy.name());
+		m_prefs.put("saveUpdate",m_saveUpdate.name());
 	}
 }
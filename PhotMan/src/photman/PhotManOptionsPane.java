@@ -55,12 +55,24 @@ import org.imgscalr.Scalr.Method;
  *  - if available, show picture's registered thumbnail (default is Yes)
  *  - the scaling method to generate the thumbnail (default is SPEED)
  *  - the size of the thumbnail (default is 96 pixels)
+ *  - the size of the thumbnails cache (default is 256 MB)
+ *  - if the thumbnails are created on demand, when shown on the screen (default is No)
+ *  - the memory used to keep the thumbnails ready to be shown (default is 64 MB)
+ *  - the number of files copied at once when saving (default is 4)
+ *  - the way the files are saved: copied, linked or moved (default is COPY)
+ *  - the files saved again when already saved: all, changed or changed content (default is CHANGED)
  * </pre>
  * </p>
  * <pre>
  * Change history:
  *   2014-08-07 GEB  Initial coding.
  *   2014-09-07 GEB  Added the show picture's registered thumbnail option.
+ *   2026-10-18 GEB  Added the thumbnails cache size option.
+ *   2026-10-18 GEB  Added the thumbnails on demand option.
+ *   2026-10-18 GEB  Added the thumbnails memory option.
+ *   2026-10-18 GEB  Added the parallel files copies option.
+ *   2026-10-18 GEB  Added the save strategy option.
+ *   2026-10-18 GEB  Added the incremental save option.
  * </pre>
  * @author Grald Eberle (GEB)
  */
@@ -72,29 +84,60 @@ public class PhotManOptionsPane extends JDialog {
 	private boolean m_originalThumbnail;
 	private Method m_generateMethod;
 	private int m_thumbnailSize;
+	private int m_cacheSize;
+	private boolean m_lazyThumbnails;
+	private int m_thumbnailMemory;
+	private int m_saveThreads;
+	private PhotManSaver.Strategy m_saveStrategy;
+	private PhotManSaver.Update m_saveUpdate;
 	
 	private JTextField m_nameText;
 	private JList<Method> m_methodList;
 	private JFormattedTextField m_sizeText;
+	private JFormattedTextField m_cacheText;
+	private JFormattedTextField m_memoryText;
+	private JFormattedTextField m_threadsText;
 	private JRadioButton m_yesButton;
 	private JRadioButton m_noButton;
+	private JRadioButton m_lazyYesButton;
+	private JRadioButton m_linkButton;
+	private JRadioButton m_moveButton;
+	private JRadioButton m_allButton;
+	private JRadioButton m_contentButton;
 	
 	private final int m_minThumbnailSize = 20;
 	private final int m_maxThumbnailSize = 512;
+	private final int m_maxCacheSize = 65536;
+	private final int m_minThumbnailMemory = 4;
+	private final int m_maxThumbnailMemory = 4096;
+	private final int m_maxSaveThreads = 32;
 	
 	/**
 	 * Class constructor.
 	 * @param dName the actual default pictures name start
 	 * @param gMethod the actual scaling method to generate the thumbnail
 	 * @param tSize the actual size of the thumbnail
+	 * @param cSize the actual size of the thumbnails cache in megabytes
+	 * @param lThumbnails the actual thumbnails on demand option
+	 * @param tMemory the actual thumbnails memory in megabytes
+	 * @param sThreads the actual number of parallel files copies
+	 * @param sStrategy the actual save strategy
+	 * @param sUpdate the actual incremental save mode
 	 */
-	public PhotManOptionsPane(String dName, boolean oThumbnail, Method gMethod, int tSize) {
+	public PhotManOptionsPane(String dName, boolean oThumbnail, Method gMethod, int tSize, int cSize, boolean lThumbnails,
+			int tMemory, int sThreads, PhotManSaver.Strategy sStrategy, PhotManSaver.Update sUpdate) {
 		enableEvents(AWTEvent.WINDOW_EVENT_MASK);
 		try {
 			m_defaultName = dName;
 			m_originalThumbnail = oThumbnail;
 			m_generateMethod = gMethod;
 			m_thumbnailSize = tSize;
+			m_cacheSize = cSize;
+			m_lazyThumbnails = lThumbnails;
+			m_thumbnailMemory = tMemory;
+			m_saveThreads = sThreads;
+			m_saveStrategy = sStrategy;
+			m_saveUpdate = sUpdate;
 			photManOptionsInit();
 		}
 		catch(Exception e) {
@@ -137,6 +180,56 @@ public class PhotManOptionsPane extends JDialog {
 		return m_thumbnailSize;
 	}
 
+	/**
+	 * Returns the maximal size of the thumbnails cache. The size must be between 0 (no cache) and 65536 megabytes.
+	 * @return the m_cacheSize
+	 */
+	protected int getCacheSize() {
+		return m_cacheSize;
+	}
+
+	/**
+	 * Returns the information if the thumbnails should only be created when they are shown on the screen.
+	 * @return true if the thumbnails are created on demand, false otherwise
+	 */
+	protected boolean isLazyThumbnails() {
+		return m_lazyThumbnails;
+	}
+
+	/**
+	 * Returns the memory used to keep the decoded thumbnails. The size must be between 4 and 4096 megabytes.
+	 * @return the m_thumbnailMemory
+	 */
+	protected int getThumbnailMemory() {
+		return m_thumbnailMemory;
+	}
+
+	/**
+	 * Returns the number of files copied at once when saving. The number must be between 1 and 32.
+	 * @return the m_saveThreads
+	 */
+	protected int getSaveThreads() {
+		return m_saveThreads;
+	}
+
+	/**
+	 * Returns the way the files are saved. Linking or moving the files is only possible when the source
+	 * and the destination directories are on the same disk, otherwise the files are copied.
+	 * @return the m_saveStrategy
+	 */
+	protected PhotManSaver.Strategy getSaveStrategy() {
+		return m_saveStrategy;
+	}
+
+	/**
+	 * Returns the files saved again when they are already in the destination directory. Checking the
+	 * content of the files is safer but needs to read them all.
+	 * @return the m_saveUpdate
+	 */
+	protected PhotManSaver.Update getSaveUpdate() {
+		return m_saveUpdate;
+	}
+
 	/**
 	 * Initializes all the window components.
 	 */
@@ -147,7 +240,7 @@ public class PhotManOptionsPane extends JDialog {
 		setIconImage(applIcon);
 		setTitle("Manage Options");
 		setModal(true);
-		setSize(new Dimension(400,240));
+		setSize(new Dimension(400,390));
 		setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
 		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
 		Dimension frameSize = getSize();
@@ -186,6 +279,16 @@ public class PhotManOptionsPane extends JDialog {
 		originalPane.add(m_yesButton);
 		originalPane.add(m_noButton);
 		
+		JLabel lazyLabel = new JLabel("Create thumbnails on demand");
+		m_lazyYesButton = new JRadioButton("Yes", m_lazyThumbnails);
+		JRadioButton lazyNoButton = new JRadioButton("No", !m_lazyThumbnails);
+		ButtonGroup lbg = new ButtonGroup();
+		lbg.add(m_lazyYesButton);
+		lbg.add(lazyNoButton);
+		JPanel lazyPane = new JPanel(new FlowLayout(FlowLayout.CENTER));
+		lazyPane.add(m_lazyYesButton);
+		lazyPane.add(lazyNoButton);
+		
 		JLabel methodLabel = new JLabel("Scaling method to generate thumbnails");
 		m_methodList = new JList<Method>(Scalr.Method.values());
 		m_methodList.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
@@ -201,6 +304,59 @@ public class PhotManOptionsPane extends JDialog {
 	    formatter.setCommitsOnValidEdit(true);
 	    m_sizeText = new JFormattedTextField(formatter);
 	    m_sizeText.setValue(new Integer(m_thumbnailSize));
+
+		JLabel cacheLabel = new JLabel("Thumbnails cache size (in MB)");
+	    NumberFormatter cacheFormatter = new NumberFormatter(NumberFormat.getInstance());
+	    cacheFormatter.setValueClass(Integer.class);
+	    cacheFormatter.setMinimum(0);
+	    cacheFormatter.setMaximum(m_maxCacheSize);
+	    cacheFormatter.setCommitsOnValidEdit(true);
+	    m_cacheText = new JFormattedTextField(cacheFormatter);
+	    m_cacheText.setValue(new Integer(m_cacheSize));
+
+		JLabel memoryLabel = new JLabel("Thumbnails memory (in MB)");
+	    NumberFormatter memoryFormatter = new NumberFormatter(NumberFormat.getInstance());
+	    memoryFormatter.setValueClass(Integer.class);
+	    memoryFormatter.setMinimum(m_minThumbnailMemory);
+	    memoryFormatter.setMaximum(m_maxThumbnailMemory);
+	    memoryFormatter.setCommitsOnValidEdit(true);
+	    m_memoryText = new JFormattedTextField(memoryFormatter);
+	    m_memoryText.setValue(new Integer(m_thumbnailMemory));
+
+		JLabel threadsLabel = new JLabel("Parallel files copies when saving");
+	    NumberFormatter threadsFormatter = new NumberFormatter(NumberFormat.getInstance());
+	    threadsFormatter.setValueClass(Integer.class);
+	    threadsFormatter.setMinimum(1);
+	    threadsFormatter.setMaximum(m_maxSaveThreads);
+	    threadsFormatter.setCommitsOnValidEdit(true);
+	    m_threadsText = new JFormattedTextField(threadsFormatter);
+	    m_threadsText.setValue(new Integer(m_saveThreads));
+
+		JLabel strategyLabel = new JLabel("Save files by");
+		JRadioButton copyButton = new JRadioButton("Copy", m_saveStrategy == PhotManSaver.Strategy.COPY);
+		m_linkButton = new JRadioButton("Link", m_saveStrategy == PhotManSaver.Strategy.LINK);
+		m_moveButton = new JRadioButton("Move", m_saveStrategy == PhotManSaver.Strategy.MOVE);
+		ButtonGroup sbg = new ButtonGroup();
+		sbg.add(copyButton);
+		sbg.add(m_linkButton);
+		sbg.add(m_moveButton);
+		JPanel strategyPane = new JPanel(new FlowLayout(FlowLayout.CENTER));
+		strategyPane.add(copyButton);
+		strategyPane.add(m_linkButton);
+		strategyPane.add(m_moveButton);
+
+		JLabel updateLabel = new JLabel("Save again");
+		m_allButton = new JRadioButton("All", m_saveUpdate == PhotManSaver.Update.ALL);
+		JRadioButton changedButton = new JRadioButton("Changed", m_saveUpdate == PhotManSaver.Update.CHANGED);
+		m_contentButton = new JRadioButton("Content", m_saveUpdate == PhotManSaver.Update.CONTENT);
+		ButtonGroup ubg = new ButtonGroup();
+		ubg.add(m_allButton);
+		ubg.add(changedButton);
+		ubg.add(m_contentButton);
+		JPanel updatePane = new JPanel(new FlowLayout(FlowLayout.CENTER));
+		updatePane.add(m_allButton);
+		updatePane.add(changedButton);
+		updatePane.add(m_contentButton);
 	    
 		JPanel centerPane = new JPanel();
 		centerPane.setLayout(new GridBagLayout());
@@ -221,6 +377,12 @@ public class PhotManOptionsPane extends JDialog {
 	    centerPane.add(originalPane,gbc);
 		gbc.gridwidth = 1;
 		gbc.weightx = 0.0;
+	    centerPane.add(lazyLabel,gbc);
+	    gbc.gridwidth = GridBagConstraints.REMAINDER;
+	    gbc.weightx = 1.0;
+	    centerPane.add(lazyPane,gbc);
+		gbc.gridwidth = 1;
+		gbc.weightx = 0.0;
 	    centerPane.add(methodLabel,gbc);
 	    gbc.gridwidth = GridBagConstraints.REMAINDER;
 	    gbc.weightx = 1.0;
@@ -231,6 +393,36 @@ public class PhotManOptionsPane extends JDialog {
 	    gbc.gridwidth = GridBagConstraints.REMAINDER;
 	    gbc.weightx = 1.0;
 	    centerPane.add(m_sizeText,gbc);
+		gbc.gridwidth = 1;
+		gbc.weightx = 0.0;
+	    centerPane.add(cacheLabel,gbc);
+	    gbc.gridwidth = GridBagConstraints.REMAINDER;
+	    gbc.weightx = 1.0;
+	    centerPane.add(m_cacheText,gbc);
+		gbc.gridwidth = 1;
+		gbc.weightx = 0.0;
+	    centerPane.add(memoryLabel,gbc);
+	    gbc.gridwidth = GridBagConstraints.REMAINDER;
+	    gbc.weightx = 1.0;
+	    centerPane.add(m_memoryText,gbc);
+		gbc.gridwidth = 1;
+		gbc.weightx = 0.0;
+	    centerPane.add(threadsLabel,gbc);
+	    gbc.gridwidth = GridBagConstraints.REMAINDER;
+	    gbc.weightx = 1.0;
+	    centerPane.add(m_threadsText,gbc);
+		gbc.gridwidth = 1;
+		gbc.weightx = 0.0;
+	    centerPane.add(strategyLabel,gbc);
+	    gbc.gridwidth = GridBagConstraints.REMAINDER;
+	    gbc.weightx = 1.0;
+	    centerPane.add(strategyPane,gbc);
+		gbc.gridwidth = 1;
+		gbc.weightx = 0.0;
+	    centerPane.add(updateLabel,gbc);
+	    gbc.gridwidth = GridBagConstraints.REMAINDER;
+	    gbc.weightx = 1.0;
+	    centerPane.add(updatePane,gbc);
 		
 		m_contentPane.add(centerPane,BorderLayout.CENTER);
 	}
@@ -251,6 +443,16 @@ public class PhotManOptionsPane extends JDialog {
 					m_originalThumbnail = m_yesButton.isSelected();
 					m_generateMethod = m_methodList.getSelectedValue();
 					m_thumbnailSize = (Integer) m_sizeText.getValue();
+					m_cacheSize = (Integer) m_cacheText.getValue();
+					m_lazyThumbnails = m_lazyYesButton.isSelected();
+					m_thumbnailMemory = (Integer) m_memoryText.getValue();
+					m_saveThreads = (Integer) m_threadsText.getValue();
+					if (m_linkButton.isSelected()) m_saveStrategy = PhotManSaver.Strategy.LINK;
+					else if (m_moveButton.isSelected()) m_saveStrategy = PhotManSaver.Strategy.MOVE;
+					else m_saveStrategy = PhotManSaver.Strategy.COPY;
+					if (m_allButton.isSelected()) m_saveUpdate = PhotManSaver.Update.ALL;
+					else if (m_contentButton.isSelected()) m_saveUpdate = PhotManSaver.Update.CONTENT;
+					else m_saveUpdate = PhotManSaver.Update.CHANGED;
 					processWindowEvent(new WindowEvent(thisWindow,WindowEvent.WINDOW_CLOSING));
 				}
 			}});
@@ -263,6 +465,7 @@ public class PhotManOptionsPane extends JDialog {
 				m_originalThumbnail = true;
 				m_generateMethod = null;
 				m_thumbnailSize = -1;
+				m_cacheSize = -1;
 				processWindowEvent(new WindowEvent(thisWindow,WindowEvent.WINDOW_CLOSING));
 			}});
 		FlowLayout fl = new FlowLayout(FlowLayout.CENTER);
@@ -293,6 +496,21 @@ public class PhotManOptionsPane extends JDialog {
 			showError("The thumbnail size must be between "+m_minThumbnailSize+ " and "+m_maxThumbnailSize+ " !");
 			return false;
 		}
+		int cSize = (Integer) m_cacheText.getValue();
+		if ((cSize < 0) || (cSize > m_maxCacheSize)) {
+			showError("The thumbnails cache size must be between 0 and "+m_maxCacheSize+ " !");
+			return false;
+		}
+		int tMemory = (Integer) m_memoryText.getValue();
+		if ((tMemory < m_minThumbnailMemory) || (tMemory > m_maxThumbnailMemory)) {
+			showError("The thumbnails memory must be between "+m_minThumbnailMemory+ " and "+m_maxThumbnailMemory+ " !");
+			return false;
+		}
+		int sThreads = (Integer) m_threadsText.getValue();
+		if ((sThreads < 1) || (sThreads > m_maxSaveThreads)) {
+			showError("The parallel files copies must be between 1 and "+m_maxSaveThreads+ " !");
+			return false;
+		}
 		return true;
 	}
 	
@@ -0,0 +1,239 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>
+ * This class processes the list of the loaded images: it finds the cameras that took the pictures,
+ * computes and applies the time offsets between the cameras, orders the images by adjusted date and
+ * gives them their new names. It does not depend on the user interface, so that it is used both by
+ * the main window (see PhotManFrame) and by the batch mode (see PhotManBatch).
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding (moved from PhotManFrame).
+ *   2026-10-18 GEB  The pictures are ordered by PhotManTimeline.
+ *   2026-10-18 GEB  The time offsets are converted once into milliseconds per camera. Fixed the minutes
+ *                   and seconds offsets, and the sign of the computed offsets.
+ *   2026-10-18 GEB  Added the estimation of the time offsets from all the pictures.
+ *   2026-10-18 GEB  The new names can be numbered by event (see PhotManEvents).
+ *   2026-10-18 GEB  The time offsets are applied without bounds test. The offsets hours may have more
+ *                   than two digits.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManProcessor {
+	protected static final String m_timeInit = "00:00:00";
+	protected static final long m_maxSkew = 24*3600*1000L;
+
+	/**
+	 * Registers all the cameras that were used to take the given pictures, with a null time offset. The
+	 * adjusted date of each picture is reset to the date it was taken.
+	 * @param pmis the pictures
+	 * @param cameras the cameras and their time offsets, completed by this method
+	 */
+	protected static void analyseImages(List<PhotManImage> pmis, Map<String,String> cameras) {
+		for (PhotManImage pmi : pmis) {
+			String cameraModel = pmi.getCameraModel();
+			long imageTime = pmi.getOriginalTime();
+			pmi.setCreationTime(imageTime);
+			if ((cameraModel != null) && (imageTime != Long.MIN_VALUE))
+				if (!cameras.containsKey(cameraModel)) cameras.put(cameraModel,m_timeInit);
+		}
+	}
+
+	/**
+	 * Computes the time offsets between the cameras from pictures taken at the same time by different
+	 * cameras. The first picture gives the base camera, whose own offset is kept.
+	 * @param pmis the pictures taken at the same time
+	 * @param cameras the cameras and their time offsets, updated by this method
+	 */
+	protected static void presetTimeOffsets(List<PhotManImage> pmis, Map<String,String> cameras) {
+		if (cameras.size() < 2) return;
+		String baseModel = null;
+		long baseTime = Long.MIN_VALUE;
+		HashMap<String,Long> modelTimes = new HashMap<String,Long>();
+		for (PhotManImage pmi : pmis) {
+			if (pmi.getOriginalTime() == Long.MIN_VALUE) continue;
+			if (baseTime == Long.MIN_VALUE) {
+				baseModel = pmi.getCameraModel();
+				baseTime = pmi.getOriginalTime();
+			}
+			else if ((baseModel != null) && !baseModel.equals(pmi.getCameraModel()))
+				modelTimes.put(pmi.getCameraModel(),pmi.getOriginalTime());
+		}
+		if (baseModel == null) return;
+		baseTime += parseOffset(cameras.get(baseModel));
+		// The offset brings the pictures of the other camera to the time of the base camera
+		for (Map.Entry<String,Long> me : modelTimes.entrySet())
+			cameras.put(me.getKey(),formatOffset(baseTime - me.getValue()));
+	}
+
+	/**
+	 * Estimates the time offsets of the cameras from the dates of all the pictures (see
+	 * PhotManSkewEstimator). The camera with the most pictures is the reference: the other cameras get
+	 * the offset which lines up their bursts of pictures with the bursts of the reference camera, plus the
+	 * offset of the reference camera. Only the cameras whose offset is not set yet are modified.
+	 * @param pmis the pictures
+	 * @param cameras the cameras and their time offsets, updated by this method
+	 * @return the estimates of the modified cameras and of the reference camera, maybe empty
+	 */
+	protected static HashMap<String,PhotManSkewEstimator.Estimate> estimateTimeOffsets(List<PhotManImage> pmis,
+			Map<String,String> cameras) {
+		HashMap<String,PhotManSkewEstimator.Estimate> estimates = new HashMap<String,PhotManSkewEstimator.Estimate>();
+		if (cameras.size() < 2) return estimates;
+		PhotManSkewEstimator pse = new PhotManSkewEstimator(pmis,m_maxSkew);
+		short reference = pse.getReference();
+		String refModel = PhotManCameraRegistry.getName(reference);
+		if ((refModel == null) || !cameras.containsKey(refModel)) return estimates;
+		long refOffset = parseOffset(cameras.get(refModel));
+		for (Map.Entry<String,String> me : cameras.entrySet()) {
+			if (me.getKey().equals(refModel) || (parseOffset(me.getValue()) != 0)) continue;
+			PhotManSkewEstimator.Estimate pe = pse.estimate(PhotManCameraRegistry.intern(me.getKey()),reference);
+			if (pe == null) continue;
+			me.setValue(formatOffset(refOffset + pe.getOffset()));
+			estimates.put(me.getKey(),pe);
+		}
+		if (!estimates.isEmpty()) estimates.put(refModel,new PhotManSkewEstimator.Estimate(0,1,true));
+		return estimates;
+	}
+
+	/**
+	 * Modifies the date and time the pictures were taken, with the time offsets of the cameras. The
+	 * offsets are converted once into milliseconds per camera (see createDeltas()), and each picture
+	 * only gets the delta of its camera added to its original date. The deltas are copied into an array
+	 * covering all the registered cameras, so that the loop does not test the bounds.
+	 * @param pmis the pictures
+	 * @param cameras the cameras and their time offsets
+	 */
+	protected static void setTimeOffsets(List<PhotManImage> pmis, Map<String,String> cameras) {
+		long[] deltas = createDeltas(cameras);
+		long[] all = Arrays.copyOf(deltas,Math.max(deltas.length,PhotManCameraRegistry.getCount()+1));
+		for (PhotManImage pmi : pmis) {
+			long time = pmi.getOriginalTime();
+			if (time != Long.MIN_VALUE) pmi.setCreationTime(time + all[pmi.getCameraId()+1]);
+		}
+	}
+
+	/**
+	 * Converts the time offsets of the cameras into milliseconds, in an array indexed by the camera
+	 * identifier plus one (see PhotManCameraRegistry). The pictures of unknown camera have no offset.
+	 * @param cameras the cameras and their time offsets
+	 * @return the time offsets in milliseconds
+	 */
+	protected static long[] createDeltas(Map<String,String> cameras) {
+		int max = -1;
+		for (String camera : cameras.keySet()) max = Math.max(max,PhotManCameraRegistry.intern(camera));
+		long[] deltas = new long[max+2];
+		for (Map.Entry<String,String> me : cameras.entrySet())
+			deltas[PhotManCameraRegistry.intern(me.getKey())+1] = parseOffset(me.getValue());
+		return deltas;
+	}
+
+	/**
+	 * Orders the pictures in increasing order of the adjusted date and time they were taken (see
+	 * PhotManTimeline).
+	 * @param pmis the pictures
+	 * @return the ordered pictures
+	 */
+	protected static PhotManImage[] reorderImages(List<PhotManImage> pmis) {
+		int[] order = new PhotManTimeline(pmis).sort();
+		PhotManImage[] sorted = new PhotManImage[order.length];
+		for (int i1 = 0; i1 < order.length; i1++) sorted[i1] = pmis.get(order[i1]);
+		return sorted;
+	}
+
+	/**
+	 * Gives the pictures their new files names, made of the given prefix and their rank in the list.
+	 * @param pmis the pictures, in their final order
+	 * @param prefix the new files names prefix
+	 */
+	protected static void renameImages(List<PhotManImage> pmis, String prefix) {
+		renameImages(pmis,prefix,false);
+	}
+
+	/**
+	 * Gives the pictures their new files names. The names are made of the given prefix and the rank of
+	 * the pictures in the list or, if numbered by event, of the prefix, the event number and the rank of
+	 * the pictures in their event. The events are then searched again in the list order (see
+	 * PhotManEvents), so that the pictures of one event follow each other and get different names.
+	 * @param pmis the pictures, in their final order
+	 * @param prefix the new files names prefix
+	 * @param byEvent true to number the pictures by event, false otherwise
+	 */
+	protected static void renameImages(List<PhotManImage> pmis, String prefix, boolean byEvent) {
+		DecimalFormat df = new DecimalFormat("0000");
+		if (!byEvent) {
+			for (int i1 = 0; i1 < pmis.size(); i1++)
+				pmis.get(i1).setFinalName(prefix + "_" + df.format(i1) + ".jpg");
+			return;
+		}
+		PhotManEvents.segment(pmis);
+		DecimalFormat ef = new DecimalFormat("000");
+		int event = -1;
+		int rank = 0;
+		for (PhotManImage pmi : pmis) {
+			if (pmi.getEvent() != event) {
+				event = pmi.getEvent();
+				rank = 0;
+			}
+			pmi.setFinalName(prefix + "_E" + ef.format(event) + "_" + df.format(rank++) + ".jpg");
+		}
+	}
+
+	/**
+	 * Checks if a time offset given as a string has the format [+|-]hh:mm:ss. The hours have two to nine
+	 * digits, which covers the offset between any two dates of the EXIF meta-data.
+	 * @param off the time offset as a string
+	 * @return true if the time offset is valid, false otherwise
+	 */
+	protected static boolean isValidOffset(String off) {
+		return (off != null) && off.matches("[+-]?\\d{2,9}:\\d\\d:\\d\\d");
+	}
+
+	/**
+	 * Converts a time offset given as a string with format [+|-]hh:mm:ss into milliseconds.
+	 * @param off the time offset as a string
+	 * @return the time offset in milliseconds, 0 if the string is not a valid offset
+	 */
+	protected static long parseOffset(String off) {
+		if (!isValidOffset(off)) return 0;
+		int sign = off.startsWith("-") ? -1 : 1;
+		String str = ((off.charAt(0) == '+') || (off.charAt(0) == '-')) ? off.substring(1) : off;
+		int length = str.length();
+		long hours = Long.parseLong(str.substring(0,length-6));
+		long minutes = Integer.parseInt(str.substring(length-5,length-3));
+		long seconds = Integer.parseInt(str.substring(length-2));
+		return sign * (((hours * 60 + minutes) * 60 + seconds) * 1000);
+	}
+
+	/**
+	 * Converts a time offset in milliseconds into a string with format [+|-]hh:mm:ss. The hours get more
+	 * than two digits if needed, the milliseconds are dropped.
+	 * @param delta the time offset in milliseconds
+	 * @return the time offset as a string
+	 */
+	protected static String formatOffset(long delta) {
+		DecimalFormat dec2 = new DecimalFormat("00");
+		long seconds = Math.abs(delta) / 1000;
+		return ((delta < 0) ? "-" : "+") + dec2.format(seconds / 3600) + ":" + dec2.format((seconds / 60) % 60)
+				+ ":" + dec2.format(seconds % 60);
+	}
+}
@@ -25,6 +25,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 
 import javax.swing.Icon;
+import javax.swing.JButton;
 import javax.swing.JDialog;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
@@ -38,6 +39,8 @@ import javax.swing.Timer;
  * <pre>
  * Change history:
  *   2014-03-01 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the step by several units.
+ *   2026-10-18 GEB  Added the optional cancel button.
  * </pre>
  * @author Grald Eberle (GEB)
  */
@@ -144,6 +147,24 @@ public class PhotManProgressPane extends JDialog {
 				getOwner().getLocationOnScreen().y+(getOwner().getHeight() - getHeight())/2);
 	}
 
+	/**
+	 * Shows a cancel button under the progress bar. The button is disabled once pressed.
+	 * @param al the listener called when the button is pressed
+	 */
+	protected void setCancelListener(final ActionListener al) {
+		final JButton cancelButton = new JButton("Cancel");
+		cancelButton.addActionListener(new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent ae) {
+				cancelButton.setEnabled(false);
+				al.actionPerformed(ae);
+			}
+		});
+		getContentPane().add(cancelButton, 
+				new GridBagConstraints(0,2,1,1,0.0,0.0,GridBagConstraints.CENTER,GridBagConstraints.NONE,new Insets(2,0,2,0),0,0));
+		setSize(350,105);
+	}
+
 	/**
 	 * Returns the progress bar object
 	 * @return the progress bar object
@@ -156,7 +177,15 @@ public class PhotManProgressPane extends JDialog {
 	 * Goes one step further and shows it.
 	 */
 	protected void step() {
-		m_step++;
+		step(1);
+	}
+
+	/**
+	 * Goes several steps further and shows it.
+	 * @param count the number of steps
+	 */
+	protected void step(int count) {
+		m_step += count;
 		m_progress.setValue(m_step);
 	}
 
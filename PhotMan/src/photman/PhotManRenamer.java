@@ -0,0 +1,307 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <p>
+ * This class renames files inside one directory, when the new names can be the old names of other files.
+ * The renames are ordered so that each file is renamed once, directly to its new name, as soon as this
+ * name is free. Only when the files exchange their names in a cycle (A to B, B to A), one file of the
+ * cycle goes through a temporary name. So N files are renamed with N operations plus one per cycle.
+ * A file which is not renamed itself is never replaced: if a new name is already used by such a file,
+ * nothing is renamed.
+ * </p>
+ * <p>
+ * Before the first rename, the whole list of operations is written into a journal file, in the
+ * .photman/journal directory of the user, and each operation done is then marked in the journal. If the
+ * program is stopped in the middle of the renames, the journal is found at the next start and the
+ * renames can be finished (rolled forward) or undone (rolled back).
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  The files not renamed are never replaced.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManRenamer {
+	private static final int m_magic = 0x504d4a31; // "PMJ1"
+	private static final String m_suffix = ".pmj";
+	private static final String m_tmpSuffix = ".pmtmp";
+	private static final File m_journalDir = new File(System.getProperty("user.home"),".photman"+File.separator+"journal");
+
+	private final File m_dir;
+	private File m_journal = null;
+	private String[] m_from = new String[0];
+	private String[] m_to = new String[0];
+	private int m_done = 0;
+
+	/**
+	 * Class constructor.
+	 * @param dir the directory containing the files to be renamed
+	 */
+	public PhotManRenamer(File dir) {
+		m_dir = dir;
+	}
+
+	/**
+	 * Returns the renames which were interrupted, found in the journal directory.
+	 * @return the interrupted renames, maybe empty
+	 */
+	protected static List<PhotManRenamer> findInterrupted() {
+		ArrayList<PhotManRenamer> renamers = new ArrayList<PhotManRenamer>();
+		File[] journals = m_journalDir.listFiles();
+		if (journals == null) return renamers;
+		for (File journal : journals) {
+			if (!journal.getName().endsWith(m_suffix)) continue;
+			try {
+				renamers.add(readJournal(journal));
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return renamers;
+	}
+
+	/**
+	 * Returns the directory containing the renamed files.
+	 * @return the directory
+	 */
+	protected File getDirectory() {
+		return m_dir;
+	}
+
+	/**
+	 * Returns the number of renames done and the total number of renames.
+	 * @return the number of renames done and the total number, as a string "done/total"
+	 */
+	protected String getProgress() {
+		return m_done+"/"+m_from.length;
+	}
+
+	/**
+	 * Renames the files of the directory. If a rename fails, the renames already done are undone.
+	 * @param oldNames the actual files names
+	 * @param newNames the new files names, in the same order
+	 * @return the number of file system renames done
+	 * @throws IOException if a file cannot be renamed, or if a new name is used by a file not renamed
+	 */
+	protected int rename(List<String> oldNames, List<String> newNames) throws IOException {
+		plan(oldNames,newNames);
+		if (m_from.length == 0) return 0;
+		writeJournal();
+		try (FileOutputStream progress = new FileOutputStream(m_journal,true)) {
+			for (; m_done < m_from.length; m_done++) {
+				Files.move(resolve(m_from[m_done]),resolve(m_to[m_done]));
+				progress.write(1);
+			}
+		}
+		catch (IOException e) {
+			try {
+				rollBack();
+			}
+			catch (IOException e1) {
+				// The journal is kept, the renames will be undone at the next start
+				e1.printStackTrace();
+			}
+			throw e;
+		}
+		deleteJournal();
+		return m_from.length;
+	}
+
+	/**
+	 * Finishes an interrupted rename: does the renames not done yet, then deletes the journal.
+	 * A file is never replaced, so that nothing is lost if the directory was modified meanwhile.
+	 * @throws IOException if a file cannot be renamed
+	 */
+	protected void rollForward() throws IOException {
+		for (int i1 = m_done; i1 < m_from.length; i1++) {
+			Files.move(resolve(m_from[i1]),resolve(m_to[i1]));
+			m_done = i1 + 1;
+		}
+		m_done = m_from.length;
+		deleteJournal();
+	}
+
+	/**
+	 * Undoes an interrupted rename: undoes the renames done, in the reverse order, then deletes the journal.
+	 * A file is never replaced, so that nothing is lost if the directory was modified meanwhile.
+	 * @throws IOException if a file cannot be renamed
+	 */
+	protected void rollBack() throws IOException {
+		for (int i1 = m_done - 1; i1 >= 0; i1--) {
+			Path from = resolve(m_from[i1]);
+			Path to = resolve(m_to[i1]);
+			if (Files.exists(to)) Files.move(to,from);
+			else if (!Files.exists(from)) throw new IOException("The file "+to+" does not exist anymore");
+			m_done = i1;
+		}
+		m_done = 0;
+		deleteJournal();
+	}
+
+	/**
+	 * Computes the list of the renames. A rename is done as soon as its new name is free. When only cycles
+	 * of renames remain, one file of a cycle is renamed to a temporary name, which frees its name.
+	 * @param oldNames the actual files names
+	 * @param newNames the new files names, in the same order
+	 * @throws IOException if a new name is used by a file which is not renamed
+	 */
+	private void plan(List<String> oldNames, List<String> newNames) throws IOException {
+		int size = oldNames.size();
+		String[] current = oldNames.toArray(new String[size]);
+		String[] target = newNames.toArray(new String[size]);
+		HashMap<String,Integer> bySource = new HashMap<String,Integer>();
+		HashMap<String,Integer> byTarget = new HashMap<String,Integer>();
+		HashSet<String> names = new HashSet<String>(current.length*2);
+		HashSet<String> targets = new HashSet<String>(current.length);
+		for (int i1 = 0; i1 < size; i1++) {
+			names.add(current[i1]);
+			names.add(target[i1]);
+			if (!targets.add(target[i1])) throw new IllegalArgumentException("Several files cannot be renamed to "+target[i1]);
+			if (current[i1].equals(target[i1])) continue;
+			byTarget.put(target[i1],i1);
+			bySource.put(current[i1],i1);
+		}
+		// The names are compared without case, as some file systems do
+		HashSet<String> sources = new HashSet<String>(current.length);
+		for (String name : current) sources.add(name.toLowerCase(Locale.ROOT));
+		for (String name : byTarget.keySet())
+			if (!sources.contains(name.toLowerCase(Locale.ROOT)) && Files.exists(resolve(name)))
+				throw new FileAlreadyExistsException(resolve(name).toString(),null,"The file would be replaced by a renamed file");
+		ArrayList<String> from = new ArrayList<String>(size);
+		ArrayList<String> to = new ArrayList<String>(size);
+		ArrayDeque<Integer> ready = new ArrayDeque<Integer>();
+		for (int i : bySource.values())
+			if (!bySource.containsKey(target[i])) ready.add(i);
+		int tmpCount = 0;
+		while (!bySource.isEmpty()) {
+			int i;
+			String name;
+			if (ready.isEmpty()) {
+				i = bySource.values().iterator().next();
+				do {
+					name = current[i]+"."+(tmpCount++)+m_tmpSuffix;
+				}
+				while (names.contains(name) || new File(m_dir,name).exists());
+			}
+			else {
+				i = ready.poll();
+				name = target[i];
+			}
+			String freed = current[i];
+			from.add(freed);
+			to.add(name);
+			bySource.remove(freed);
+			if (!name.equals(target[i])) {
+				current[i] = name;
+				bySource.put(name,i);
+			}
+			Integer waiting = byTarget.get(freed);
+			if ((waiting != null) && bySource.containsKey(current[waiting])) ready.add(waiting);
+		}
+		m_from = from.toArray(new String[from.size()]);
+		m_to = to.toArray(new String[to.size()]);
+		m_done = 0;
+	}
+
+	/**
+	 * Writes the list of the renames into a new journal file, and forces it to the disk. The renames done
+	 * are then marked by appending one byte each to the file.
+	 * @throws IOException if the journal cannot be written
+	 */
+	private void writeJournal() throws IOException {
+		if (!m_journalDir.isDirectory() && !m_journalDir.mkdirs())
+			throw new IOException("The directory "+m_journalDir+" cannot be created");
+		m_journal = File.createTempFile("rename",m_suffix,m_journalDir);
+		try (FileOutputStream fos = new FileOutputStream(m_journal)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos));
+			out.writeInt(m_magic);
+			out.writeUTF(m_dir.getAbsolutePath());
+			out.writeInt(m_from.length);
+			for (int i1 = 0; i1 < m_from.length; i1++) {
+				out.writeUTF(m_from[i1]);
+				out.writeUTF(m_to[i1]);
+			}
+			out.flush();
+			fos.getFD().sync();
+		}
+	}
+
+	/**
+	 * Reads an interrupted rename from its journal file. The number of renames done is given by the marks
+	 * at the end of the file, then checked against the files of the directory, in case the last marks
+	 * were lost: as a new name is always free before its rename, a rename whose new file exists was done.
+	 * @param journal the journal file
+	 * @return the interrupted rename
+	 * @throws IOException if the journal cannot be read
+	 */
+	private static PhotManRenamer readJournal(File journal) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)))) {
+			if (in.readInt() != m_magic) throw new IOException("The file "+journal+" is not a rename journal");
+			PhotManRenamer pmr = new PhotManRenamer(new File(in.readUTF()));
+			pmr.m_journal = journal;
+			int size = in.readInt();
+			pmr.m_from = new String[size];
+			pmr.m_to = new String[size];
+			for (int i1 = 0; i1 < size; i1++) {
+				pmr.m_from[i1] = in.readUTF();
+				pmr.m_to[i1] = in.readUTF();
+			}
+			int done = 0;
+			while ((done < size) && (in.read() >= 0)) done++;
+			while ((done < size) && Files.exists(pmr.resolve(pmr.m_to[done]))) done++;
+			pmr.m_done = done;
+			return pmr;
+		}
+	}
+
+	/**
+	 * Deletes the journal file, once all the renames are done or undone.
+	 */
+	private void deleteJournal() {
+		if ((m_journal != null) && !m_journal.delete()) m_journal.deleteOnExit();
+		m_journal = null;
+	}
+
+	/**
+	 * Returns the path of a file of the directory.
+	 * @param name the file name
+	 * @return the file path
+	 */
+	private Path resolve(String name) {
+		return m_dir.toPath().resolve(name);
+	}
+}
@@ -0,0 +1,173 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * <p>
+ * This class prepares the save of the images (see PhotManSaver): it sorts the images into the files to be
+ * copied from another directory and the files to be renamed inside the destination directory, and finds
+ * the files of the destination directory which would be replaced. The destination directory is listed
+ * only once, and the names are then looked up in memory, so that preparing the save of thousands of
+ * files on a network share does not need thousands of requests. The names are compared without case,
+ * as some file systems do. Two images of the list with the same final name would be saved in the same
+ * file: they are reported as duplicates, and the save must be refused.
+ * </p>
+ * <p>
+ * For an incremental save, the files of the destination directory which are copies of the images (see
+ * PhotManManifest) are not conflicts, as they will be updated.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  The images of the list with the same final name are reported.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManSavePlan {
+	private final File m_destinationDir;
+	private final PhotManManifest m_manifest;
+	private final HashSet<String> m_existing = new HashSet<String>();
+	private final ArrayList<PhotManImage> m_copied = new ArrayList<PhotManImage>();
+	private final ArrayList<PhotManImage> m_renamed = new ArrayList<PhotManImage>();
+	private final ArrayList<PhotManImage> m_conflicts = new ArrayList<PhotManImage>();
+	private final ArrayList<PhotManImage> m_duplicates = new ArrayList<PhotManImage>();
+
+	/**
+	 * Class constructor. Lists the destination directory and prepares the save.
+	 * @param destinationDir the destination directory
+	 * @param pmis the images to be saved
+	 * @param manifest the loaded manifest of the destination directory for an incremental save, or null
+	 */
+	public PhotManSavePlan(File destinationDir, List<PhotManImage> pmis, PhotManManifest manifest) {
+		m_destinationDir = destinationDir;
+		m_manifest = manifest;
+		String[] names = destinationDir.list();
+		if (names != null)
+			for (String name : names) m_existing.add(name.toLowerCase(Locale.ROOT));
+		String destination = destinationDir.getAbsolutePath();
+		HashSet<String> sources = new HashSet<String>();
+		HashSet<String> renamedNames = new HashSet<String>();
+		HashSet<String> finalNames = new HashSet<String>();
+		for (PhotManImage pmi : pmis) {
+			if (!finalNames.add(pmi.getFinalName().toLowerCase(Locale.ROOT))) m_duplicates.add(pmi);
+			File f = pmi.getOriginalFile();
+			if (f.getAbsoluteFile().getParent().equalsIgnoreCase(destination)) {
+				m_renamed.add(pmi);
+				renamedNames.add(f.getName().toLowerCase(Locale.ROOT));
+			}
+			else {
+				m_copied.add(pmi);
+				if (manifest != null) sources.add(f.getAbsolutePath());
+			}
+		}
+		for (PhotManImage pmi : m_copied) {
+			if (!exists(pmi.getFinalName())) continue;
+			if ((manifest != null) && sources.contains(manifest.getSource(pmi.getFinalName()))) continue;
+			m_conflicts.add(pmi);
+		}
+		// A renamed file only replaces a file which is not renamed itself
+		for (PhotManImage pmi : m_renamed) {
+			String name = pmi.getFinalName().toLowerCase(Locale.ROOT);
+			if (m_existing.contains(name) && !renamedNames.contains(name)) m_conflicts.add(pmi);
+		}
+	}
+
+	/**
+	 * Returns the destination directory.
+	 * @return the destination directory
+	 */
+	protected File getDestinationDir() {
+		return m_destinationDir;
+	}
+
+	/**
+	 * Returns the manifest of the destination directory, loaded when the plan was prepared.
+	 * @return the manifest, or null if the save is not incremental
+	 */
+	protected PhotManManifest getManifest() {
+		return m_manifest;
+	}
+
+	/**
+	 * Returns the images whose file is copied (or linked or moved) from another directory.
+	 * @return the copied images
+	 */
+	protected List<PhotManImage> getCopied() {
+		return Collections.unmodifiableList(m_copied);
+	}
+
+	/**
+	 * Returns the images whose file is already in the destination directory and is renamed.
+	 * @return the renamed images
+	 */
+	protected List<PhotManImage> getRenamed() {
+		return Collections.unmodifiableList(m_renamed);
+	}
+
+	/**
+	 * Returns the images whose file will replace a file of the destination directory.
+	 * @return the images in conflict, maybe empty
+	 */
+	protected List<PhotManImage> getConflicts() {
+		return Collections.unmodifiableList(m_conflicts);
+	}
+
+	/**
+	 * Checks if some files of the destination directory would be replaced.
+	 * @return true if some files would be replaced, false otherwise
+	 */
+	protected boolean hasConflicts() {
+		return !m_conflicts.isEmpty();
+	}
+
+	/**
+	 * Returns the images having the same final name as a previous image of the list.
+	 * @return the duplicate images, maybe empty
+	 */
+	protected List<PhotManImage> getDuplicates() {
+		return Collections.unmodifiableList(m_duplicates);
+	}
+
+	/**
+	 * Checks if several images of the list have the same final name, and would be saved in the same file.
+	 * @return true if some final names are duplicated, false otherwise
+	 */
+	protected boolean hasDuplicates() {
+		return !m_duplicates.isEmpty();
+	}
+
+	/**
+	 * Returns the number of images to be saved.
+	 * @return the number of images
+	 */
+	protected int size() {
+		return m_copied.size() + m_renamed.size();
+	}
+
+	/**
+	 * Checks if a file was in the destination directory when the plan was prepared.
+	 * @param name the file name
+	 * @return true if the file existed, false otherwise
+	 */
+	protected boolean exists(String name) {
+		return m_existing.contains(name.toLowerCase(Locale.ROOT));
+	}
+}
@@ -0,0 +1,467 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * This class saves the images files under their final names in the destination directory. The files
+ * coming from another directory are copied, the files already in the destination directory are renamed.
+ * The save is first prepared (see PhotManSavePlan), so that the conflicts can be shown before saving.
+ * It does not depend on the user interface, so that it is used both by the main window (see PhotManFrame)
+ * and by the batch mode (see PhotManBatch). The saver does not modify the images, as it does not run
+ * in the event dispatching thread: the new files of the images moved or renamed are handed to the
+ * listener, which updates the images in the thread owning them.
+ * </p>
+ * <p>
+ * Several files are copied at once, by a pool of threads sized by the options, so that the source and
+ * the destination devices are both kept busy. Each file is first copied under a temporary name (.part),
+ * then moved to its final name, so that a file interrupted by an error or a cancellation never appears
+ * in the destination directory half-written. The save is refused if several images have the same final
+ * name, as they would be written to the same temporary file at once.
+ * </p>
+ * <p>
+ * The files can also be saved without copying their content, when the source and the destination are on
+ * the same disk: either by creating a hard link to the source file, or by moving the source file. When it
+ * is not possible (different disks, file system without links), the file is copied instead.
+ * </p>
+ * <p>
+ * The save can be incremental: the files of the destination directory which are up-to-date copies of
+ * their source (same size and modification time, and optionally same content checksum) are not copied
+ * again, and the copies whose name changed are only renamed. The copies are found through the manifest
+ * of the destination directory (see PhotManManifest), or by comparing the files if not registered. The
+ * copied files keep the modification time of their source.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding (moved from PhotManFrame).
+ *   2026-10-18 GEB  The files are copied in parallel, through temporary files, and the save can be cancelled.
+ *   2026-10-18 GEB  Added the link and move save strategies.
+ *   2026-10-18 GEB  The files are renamed in place by PhotManRenamer.
+ *   2026-10-18 GEB  Added the incremental save (see PhotManManifest).
+ *   2026-10-18 GEB  The save is prepared by PhotManSavePlan, with one listing of the destination directory.
+ *   2026-10-18 GEB  The save is refused if several images have the same final name, and the new files of
+ *                   the images are handed to the listener instead of being set from the saver threads.
+ *   2026-10-18 GEB  The files replaced by renamed files are deleted first, as PhotManRenamer never replaces.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManSaver {
+	private static final long m_transferSize = 8*1024*1024;
+	private static final String m_partSuffix = ".part";
+
+	private final File m_destinationDir;
+	private final int m_threads;
+	private final Strategy m_strategy;
+	private final Update m_update;
+	private volatile boolean m_cancelled = false;
+
+	/**
+	 * The ways the files can be saved in the destination directory.
+	 */
+	protected enum Strategy {
+		/** The file content is copied. */
+		COPY,
+		/** A hard link to the source file is created, or the file is copied if not possible. */
+		LINK,
+		/** The source file is moved, or copied then deleted if not possible. */
+		MOVE
+	}
+
+	/**
+	 * The files which are saved again when they are already in the destination directory.
+	 */
+	protected enum Update {
+		/** All the files are saved again. */
+		ALL,
+		/** Only the files whose size or modification time changed are saved again. */
+		CHANGED,
+		/** Only the files whose size, modification time or content changed are saved again. */
+		CONTENT
+	}
+
+	/**
+	 * This interface must be implemented by the objects following the save progress.
+	 */
+	protected interface Listener {
+		/**
+		 * Called each time the file of an image has been saved. This method can be called from any thread.
+		 * When the file was moved or renamed, the listener must give the image its new file (see
+		 * PhotManImage.setOriginalFile()) in the thread owning the image.
+		 * @param pmi the saved image
+		 * @param file the new file of the image, or null if the file of the image did not change
+		 */
+		void fileSaved(PhotManImage pmi, File file);
+	}
+
+	/**
+	 * Class constructor.
+	 * @param destinationDir the destination directory
+	 * @param threads the number of files copied at once
+	 * @param strategy the way the files are saved
+	 * @param update the files saved again when already in the destination directory
+	 */
+	public PhotManSaver(File destinationDir, int threads, Strategy strategy, Update update) {
+		m_destinationDir = destinationDir;
+		m_threads = Math.max(1,threads);
+		m_strategy = strategy;
+		m_update = update;
+	}
+
+	/**
+	 * Stops the save as soon as possible. The files being copied are abandoned and their temporary files
+	 * deleted. This method can be called from any thread.
+	 */
+	protected void cancel() {
+		m_cancelled = true;
+	}
+
+	/**
+	 * Prepares the save of the given images: finds the files to be copied or renamed, and the files of
+	 * the destination directory which would be replaced. For an incremental save, the manifest of the
+	 * destination directory is loaded.
+	 * @param pmis the images to be saved
+	 * @return the save plan
+	 */
+	protected PhotManSavePlan plan(List<PhotManImage> pmis) {
+		PhotManManifest manifest = null;
+		if (m_update != Update.ALL) {
+			manifest = new PhotManManifest(m_destinationDir);
+			manifest.load();
+		}
+		return new PhotManSavePlan(m_destinationDir,pmis,manifest);
+	}
+
+	/**
+	 * Copies (or links or moves, following the save strategy) the files containing the images from their
+	 * source directory to the destination directory, or renames them if they are already in the destination
+	 * directory, as prepared by the given plan. If two files have the same name, the destination file is
+	 * overwritten by the source file. This method blocks until all the files are saved, so it must not be
+	 * called from the event dispatching thread. Nothing is saved if several images have the same final name.
+	 * @param plan the save plan (see plan())
+	 * @param listener the object following the save progress, or null
+	 * @return true if all the files were saved, false if the save was cancelled
+	 * @throws IOException if a file cannot be copied, or if several images have the same final name
+	 */
+	protected boolean save(PhotManSavePlan plan, Listener listener) throws IOException {
+		if (plan.hasDuplicates())
+			throw new IOException(plan.getDuplicates().size()+" picture(s) have the same name as another picture, first is "
+					+ plan.getDuplicates().get(0).getFinalName());
+		List<PhotManImage> sameDirImages = plan.getRenamed();
+		List<PhotManImage> copiedImages = plan.getCopied();
+		PhotManManifest manifest = copiedImages.isEmpty() ? null : plan.getManifest();
+		try {
+			if (manifest != null) copiedImages = synchronize(copiedImages,plan,listener);
+			if (copiedImages.size() > 0) copyFiles(copiedImages,listener,manifest);
+		}
+		finally {
+			if (manifest != null) manifest.save();
+		}
+		if (m_cancelled) return false;
+		if (sameDirImages.size() > 0) {
+			renameFiles(sameDirImages);
+			if (listener != null)
+				for (PhotManImage pmi : sameDirImages) listener.fileSaved(pmi,new File(m_destinationDir,pmi.getFinalName()));
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the images whose file is already saved in the destination directory. The up-to-date copies
+	 * having the right name are kept as they are, those having another name are renamed.
+	 * @param pmis the images to be saved
+	 * @param plan the save plan, with the manifest and the files of the destination directory
+	 * @param listener the object following the save progress, or null
+	 * @return the images whose file must still be saved
+	 * @throws IOException if a file cannot be read or renamed
+	 */
+	private ArrayList<PhotManImage> synchronize(List<PhotManImage> pmis, PhotManSavePlan plan, Listener listener)
+			throws IOException {
+		PhotManManifest manifest = plan.getManifest();
+		ArrayList<PhotManImage> toSave = new ArrayList<PhotManImage>();
+		ArrayList<PhotManImage> renamed = new ArrayList<PhotManImage>();
+		ArrayList<String> oldNames = new ArrayList<String>();
+		ArrayList<String> newNames = new ArrayList<String>();
+		for (PhotManImage pmi : pmis) {
+			if (m_cancelled) return toSave;
+			Path srcPath = pmi.getOriginalFile().toPath();
+			String source = pmi.getOriginalFile().getAbsolutePath();
+			BasicFileAttributes sa = Files.readAttributes(srcPath,BasicFileAttributes.class);
+			long checksum = (m_update == Update.CONTENT) ? PhotManDuplicates.checksum(srcPath) : -1;
+			String name = manifest.findCopy(source,sa,checksum);
+			if ((name == null) && plan.exists(pmi.getFinalName())
+					&& isSameFile(sa,checksum,m_destinationDir.toPath().resolve(pmi.getFinalName()))) {
+				name = pmi.getFinalName();
+				manifest.put(name,source,sa,checksum);
+			}
+			if (name == null) toSave.add(pmi);
+			else if (name.equals(pmi.getFinalName())) {
+				if (listener != null) listener.fileSaved(pmi,null);
+			}
+			else {
+				oldNames.add(name);
+				newNames.add(pmi.getFinalName());
+				renamed.add(pmi);
+			}
+		}
+		if (oldNames.size() > 0) {
+			deleteReplaced(oldNames,newNames);
+			new PhotManRenamer(m_destinationDir).rename(oldNames,newNames);
+			manifest.rename(oldNames,newNames);
+			if (listener != null)
+				for (PhotManImage pmi : renamed) listener.fileSaved(pmi,null);
+		}
+		return toSave;
+	}
+
+	/**
+	 * Checks if a file of the destination directory, not registered in the manifest, is the same as its
+	 * source file: same size and modification time, and same checksum if asked for.
+	 * @param sa the attributes of the source file
+	 * @param checksum the checksum of the source file, or -1 if not checked
+	 * @param destPath the file of the destination directory
+	 * @return true if the files are the same, false otherwise
+	 * @throws IOException if the file cannot be read
+	 */
+	private boolean isSameFile(BasicFileAttributes sa, long checksum, Path destPath) throws IOException {
+		File dest = destPath.toFile();
+		if (!dest.isFile() || (dest.length() != sa.size()) || (dest.lastModified() != sa.lastModifiedTime().toMillis()))
+			return false;
+		return (checksum == -1) || (PhotManDuplicates.checksum(destPath) == checksum);
+	}
+
+	/**
+	 * Copies the files of the given images to the destination directory, several at once. If a file
+	 * cannot be copied, the other copies are stopped and the error is thrown.
+	 * @param pmis the images whose files are copied
+	 * @param listener the object following the save progress, or null
+	 * @param manifest the manifest registering the copied files, or null
+	 * @throws IOException if a file cannot be copied
+	 */
+	private void copyFiles(List<PhotManImage> pmis, final Listener listener, final PhotManManifest manifest)
+			throws IOException {
+		ExecutorService pool = Executors.newFixedThreadPool(Math.min(m_threads,pmis.size()),new ThreadFactory() {
+			private final AtomicInteger m_count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r,"PhotMan-saver-"+m_count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		IOException error = null;
+		try {
+			ArrayList<Future<Void>> copies = new ArrayList<Future<Void>>(pmis.size());
+			for (final PhotManImage pmi : pmis) {
+				copies.add(pool.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws IOException {
+						if (m_cancelled) return null;
+						saveFile(pmi,manifest,listener);
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> fut : copies) {
+				try {
+					fut.get();
+				}
+				catch (ExecutionException e) {
+					m_cancelled = true;
+					if (error == null) {
+						if (e.getCause() instanceof IOException) error = (IOException) e.getCause();
+						else error = new IOException(e.getCause());
+					}
+				}
+				catch (InterruptedException e) {
+					m_cancelled = true;
+					Thread.currentThread().interrupt();
+					if (error == null) error = new InterruptedIOException("The save was interrupted");
+				}
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+		if (error != null) throw error;
+	}
+
+	/**
+	 * Saves the file of one image in the destination directory, following the save strategy. Unless the
+	 * file is moved at once, it is first linked or copied to a temporary file, which is moved to the final
+	 * name once complete. The listener is called once the file is saved, with the new file of the image
+	 * when the file is moved, and is not called if the save was cancelled.
+	 * @param pmi the image whose file is saved
+	 * @param manifest the manifest registering the saved file, or null
+	 * @param listener the object following the save progress, or null
+	 * @throws IOException if the file cannot be saved
+	 */
+	private void saveFile(PhotManImage pmi, PhotManManifest manifest, Listener listener) throws IOException {
+		Path srcPath = pmi.getOriginalFile().toPath();
+		String source = pmi.getOriginalFile().getAbsolutePath();
+		BasicFileAttributes sa = null;
+		long checksum = -1;
+		if (manifest != null) {
+			sa = Files.readAttributes(srcPath,BasicFileAttributes.class);
+			if (m_update == Update.CONTENT) checksum = PhotManDuplicates.checksum(srcPath);
+		}
+		Path destPath = m_destinationDir.toPath().resolve(pmi.getFinalName());
+		Path partPath = m_destinationDir.toPath().resolve(pmi.getFinalName()+m_partSuffix);
+		if ((m_strategy == Strategy.MOVE) && moveFile(srcPath,destPath)) {
+			if (manifest != null) manifest.put(pmi.getFinalName(),source,sa,checksum);
+			if (listener != null) listener.fileSaved(pmi,destPath.toFile());
+			return;
+		}
+		boolean saved = false;
+		try {
+			if ((m_strategy != Strategy.LINK) || !linkFile(srcPath,partPath)) {
+				if (!copyFile(srcPath,partPath)) return;
+			}
+			try {
+				Files.move(partPath,destPath,StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e) {
+				Files.move(partPath,destPath,StandardCopyOption.REPLACE_EXISTING);
+			}
+			saved = true;
+		}
+		finally {
+			if (!saved) {
+				try {
+					Files.deleteIfExists(partPath);
+				}
+				catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+		if (manifest != null) manifest.put(pmi.getFinalName(),source,sa,checksum);
+		if (m_strategy == Strategy.MOVE) Files.delete(srcPath);
+		if (listener != null) listener.fileSaved(pmi,(m_strategy == Strategy.MOVE) ? destPath.toFile() : null);
+	}
+
+	/**
+	 * Copies the content of a file, by big blocks transferred by the system when possible.
+	 * @param srcPath the file to be copied
+	 * @param partPath the temporary destination file
+	 * @return true if the file was copied, false if the save was cancelled
+	 * @throws IOException if the file cannot be copied
+	 */
+	private boolean copyFile(Path srcPath, Path partPath) throws IOException {
+		try (FileChannel in = FileChannel.open(srcPath,StandardOpenOption.READ);
+				FileChannel out = FileChannel.open(partPath,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING,
+						StandardOpenOption.WRITE)) {
+			long size = in.size();
+			long position = 0;
+			while (position < size) {
+				if (m_cancelled) return false;
+				long n = in.transferTo(position,Math.min(m_transferSize,size-position),out);
+				if (n <= 0) break;
+				position += n;
+			}
+		}
+		Files.setLastModifiedTime(partPath,Files.getLastModifiedTime(srcPath));
+		return true;
+	}
+
+	/**
+	 * Creates a hard link to a file.
+	 * @param srcPath the file to be linked
+	 * @param partPath the temporary destination file
+	 * @return true if the link was created, false if links are not possible between these files
+	 * @throws IOException if the temporary file cannot be replaced
+	 */
+	private boolean linkFile(Path srcPath, Path partPath) throws IOException {
+		Files.deleteIfExists(partPath);
+		try {
+			Files.createLink(partPath,srcPath);
+			return true;
+		}
+		catch (UnsupportedOperationException | FileSystemException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Moves a file at once, which is only possible on the same disk.
+	 * @param srcPath the file to be moved
+	 * @param destPath the destination file
+	 * @return true if the file was moved, false if it is not possible between these files
+	 * @throws IOException if the file cannot be moved
+	 */
+	private boolean moveFile(Path srcPath, Path destPath) throws IOException {
+		try {
+			Files.move(srcPath,destPath,StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		}
+		catch (AtomicMoveNotSupportedException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Renames the files in the given list, which are in the destination directory. The new names can be
+	 * the old names of other files of the list (see PhotManRenamer).
+	 * @param iList the list of the files to be renamed
+	 * @throws IOException if a file cannot be renamed (the renames already done are undone)
+	 */
+	private void renameFiles(List<PhotManImage> iList) throws IOException {
+		ArrayList<String> oldNames = new ArrayList<String>();
+		ArrayList<String> newNames = new ArrayList<String>();
+		for (PhotManImage pmi : iList) {
+			oldNames.add(pmi.getOriginalFile().getName());
+			newNames.add(pmi.getFinalName());
+		}
+		deleteReplaced(oldNames,newNames);
+		new PhotManRenamer(m_destinationDir).rename(oldNames,newNames);
+	}
+
+	/**
+	 * Deletes the files of the destination directory which will be replaced by renamed files, and which
+	 * are not renamed themselves. The save is only done once the replaced files are accepted (see
+	 * PhotManSavePlan.getConflicts()), while PhotManRenamer never replaces a file.
+	 * @param oldNames the actual names of the renamed files
+	 * @param newNames the new names of the renamed files
+	 * @throws IOException if a file cannot be deleted
+	 */
+	private void deleteReplaced(List<String> oldNames, List<String> newNames) throws IOException {
+		HashSet<String> sources = new HashSet<String>(oldNames.size());
+		for (String name : oldNames) sources.add(name.toLowerCase(Locale.ROOT));
+		for (String name : newNames)
+			if (!sources.contains(name.toLowerCase(Locale.ROOT))) Files.deleteIfExists(m_destinationDir.toPath().resolve(name));
+	}
+}
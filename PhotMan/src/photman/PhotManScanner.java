@@ -0,0 +1,204 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * This class searches the image files in one or several source directories, including all their
+ * sub-directories (like the DCIM/100XXXXX directories of the camera cards). Each directory tree is
+ * walked only once, by its own thread, and the size and last modification time of the files are taken
+ * during the walk. The images found are handed over as soon as they are found, through the iterator of
+ * this class, so that they can be loaded while the walk goes on.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManScanner implements Iterable<PhotManImage> {
+	private static final PhotManImage m_end = new PhotManImage();
+
+	private final File[] m_roots;
+	private final BlockingQueue<PhotManImage> m_queue = new LinkedBlockingQueue<>(4096);
+	private final AtomicInteger m_found = new AtomicInteger();
+	private final AtomicInteger m_running = new AtomicInteger();
+	private final AtomicInteger m_errors = new AtomicInteger();
+	private volatile boolean m_cancelled = false;
+
+	/**
+	 * Class constructor.
+	 * @param roots the directories to be searched
+	 */
+	public PhotManScanner(File[] roots) {
+		m_roots = roots;
+	}
+
+	/**
+	 * Starts the search, one thread for each directory.
+	 */
+	protected void start() {
+		m_running.set(m_roots.length);
+		if (m_roots.length == 0) finished();
+		for (int i1 = 0; i1 < m_roots.length; i1++) {
+			final File root = m_roots[i1];
+			Thread t = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						walk(root);
+					}
+					finally {
+						if (m_running.decrementAndGet() == 0) finished();
+					}
+				}
+			},"PhotMan-scanner-"+(i1+1));
+			t.setDaemon(true);
+			t.start();
+		}
+	}
+
+	/**
+	 * Stops the search. The iterator returns no more images.
+	 */
+	protected void cancel() {
+		m_cancelled = true;
+		m_queue.clear();
+		m_queue.offer(m_end);
+	}
+
+	/**
+	 * Returns the number of images found until now.
+	 * @return the number of images
+	 */
+	protected int getFound() {
+		return m_found.get();
+	}
+
+	/**
+	 * Returns the number of files or directories that could not be read.
+	 * @return the number of errors
+	 */
+	protected int getErrors() {
+		return m_errors.get();
+	}
+
+	/**
+	 * Returns an iterator over the images found. The iterator waits for the next image as long as the
+	 * search is not finished. It can be used only once.
+	 * @return the iterator
+	 *
+	 * @see java.lang.Iterable#iterator()
+	 */
+	@Override
+	public Iterator<PhotManImage> iterator() {
+		return new Iterator<PhotManImage>() {
+			private PhotManImage m_next = null;
+			private boolean m_ended = false;
+
+			@Override
+			public boolean hasNext() {
+				if ((m_next == null) && !m_ended) {
+					try {
+						m_next = m_queue.take();
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						m_next = m_end;
+					}
+					if ((m_next == m_end) || m_cancelled) {
+						m_ended = true;
+						m_next = null;
+					}
+				}
+				return m_next != null;
+			}
+
+			@Override
+			public PhotManImage next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				PhotManImage pmi = m_next;
+				m_next = null;
+				return pmi;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Walks a directory tree and hands over the image files found.
+	 * @param root the directory to be searched
+	 */
+	private void walk(File root) {
+		try {
+			Files.walkFileTree(root.toPath(),new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path p, BasicFileAttributes bfa) throws IOException {
+					if (m_cancelled) return FileVisitResult.TERMINATE;
+					if (bfa.isRegularFile() && PhotManFilenameFilter.isAllowed(p.getFileName().toString())) {
+						PhotManImage pmi = PhotManLoader.createImage(p.toFile(),bfa.size(),bfa.lastModifiedTime().toMillis());
+						try {
+							m_queue.put(pmi);
+						}
+						catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+							return FileVisitResult.TERMINATE;
+						}
+						m_found.incrementAndGet();
+					}
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path p, IOException e) throws IOException {
+					m_errors.incrementAndGet();
+					return m_cancelled ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			m_errors.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Signals the end of the search to the iterator.
+	 */
+	private void finished() {
+		try {
+			if (!m_cancelled) m_queue.put(m_end);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * This class indexes the perceptual hashes of the pictures thumbnails (see PhotManLoader), so that the
+ * pictures looking alike, whose hashes differ by a few bits only, are found without comparing each
+ * picture with all the others. The 64 bits hashes are cut into 4 blocks of 16 bits, and the hashes are
+ * sorted by the value of each block. If two hashes differ by at most d bits, at least one of their
+ * blocks differs by at most d/4 bits: so only the hashes having one block equal or very near to the
+ * block of the searched hash are compared, which are a very small part of the index.
+ * </p>
+ * <p>
+ * The index is built once from all the hashes, and is kept in a few arrays of integers: an index of
+ * tens of thousands of pictures needs about one megabyte. The searches are not thread safe.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManSimilarityIndex {
+	private static final int m_blocks = 4;
+	private static final int m_blockBits = 16;
+	private static final int m_blockValues = 1 << m_blockBits;
+	private static final int m_maxBlockDistance = 3;
+
+	private final long[] m_hashes;
+	private final int[] m_items;
+	private final int[][] m_starts = new int[m_blocks][];
+	private final int[][] m_sorted = new int[m_blocks][];
+	private final int[] m_stamps;
+	private int m_stamp = 0;
+
+	/**
+	 * Class constructor. Builds the index.
+	 * @param hashes the perceptual hashes
+	 * @param items the items having these hashes (for instance their indexes in the pictures list)
+	 * @param count the number of hashes
+	 */
+	public PhotManSimilarityIndex(long[] hashes, int[] items, int count) {
+		m_hashes = Arrays.copyOf(hashes,count);
+		m_items = Arrays.copyOf(items,count);
+		m_stamps = new int[count];
+		for (int b = 0; b < m_blocks; b++) {
+			// Counting sort of the hashes by the value of the block
+			int[] starts = new int[m_blockValues+1];
+			for (int i1 = 0; i1 < count; i1++) starts[block(m_hashes[i1],b)+1]++;
+			for (int i1 = 0; i1 < m_blockValues; i1++) starts[i1+1] += starts[i1];
+			int[] next = Arrays.copyOf(starts,m_blockValues);
+			int[] sorted = new int[count];
+			for (int i1 = 0; i1 < count; i1++) sorted[next[block(m_hashes[i1],b)]++] = i1;
+			m_starts[b] = starts;
+			m_sorted[b] = sorted;
+		}
+	}
+
+	/**
+	 * Returns the number of bits differing between two hashes.
+	 * @param hash1 the first hash
+	 * @param hash2 the second hash
+	 * @return the distance, between 0 and 64
+	 */
+	protected static int distance(long hash1, long hash2) {
+		return Long.bitCount(hash1 ^ hash2);
+	}
+
+	/**
+	 * Returns the number of hashes in the index.
+	 * @return the number of hashes
+	 */
+	protected int size() {
+		return m_hashes.length;
+	}
+
+	/**
+	 * Finds the items whose hash differs from the given hash by at most the given distance.
+	 * @param hash the searched hash
+	 * @param maxDistance the maximal distance
+	 * @return the found items, in no particular order
+	 */
+	protected int[] find(long hash, int maxDistance) {
+		Found found = new Found();
+		int blockDistance = maxDistance / m_blocks;
+		if (blockDistance > m_maxBlockDistance) {
+			// Too many block values to try, all the hashes are compared
+			for (int i1 = 0; i1 < m_hashes.length; i1++)
+				if (distance(hash,m_hashes[i1]) <= maxDistance) found.add(m_items[i1]);
+			return found.toArray();
+		}
+		if (++m_stamp == 0) {
+			Arrays.fill(m_stamps,0);
+			m_stamp = 1;
+		}
+		for (int b = 0; b < m_blocks; b++)
+			findBlock(hash,maxDistance,b,block(hash,b),0,blockDistance,found);
+		return found.toArray();
+	}
+
+	/**
+	 * Compares the searched hash with the hashes whose given block has the given value, then with those
+	 * whose block differs from this value by the remaining number of bits, the bits being changed from
+	 * the given one upwards (so that each value is tried once).
+	 * @param hash the searched hash
+	 * @param maxDistance the maximal distance
+	 * @param b the block
+	 * @param value the block value
+	 * @param fromBit the first bit which can be changed
+	 * @param changes the number of bits which can still be changed
+	 * @param found the found items, completed by this method
+	 */
+	private void findBlock(long hash, int maxDistance, int b, int value, int fromBit, int changes, Found found) {
+		int[] sorted = m_sorted[b];
+		for (int i1 = m_starts[b][value]; i1 < m_starts[b][value+1]; i1++) {
+			int node = sorted[i1];
+			if (m_stamps[node] == m_stamp) continue;
+			m_stamps[node] = m_stamp;
+			if (distance(hash,m_hashes[node]) <= maxDistance) found.add(m_items[node]);
+		}
+		if (changes == 0) return;
+		for (int bit = fromBit; bit < m_blockBits; bit++)
+			findBlock(hash,maxDistance,b,value ^ (1 << bit),bit+1,changes-1,found);
+	}
+
+	/**
+	 * Returns the value of one block of a hash.
+	 * @param hash the hash
+	 * @param b the block, from 0 to 3
+	 * @return the block value, from 0 to 65535
+	 */
+	private static int block(long hash, int b) {
+		return (int) (hash >>> (b * m_blockBits)) & (m_blockValues - 1);
+	}
+
+	/**
+	 * This class collects the found items.
+	 */
+	private static class Found {
+		private int[] m_items = new int[16];
+		private int m_size = 0;
+
+		/**
+		 * Adds a found item.
+		 * @param item the item
+		 */
+		private void add(int item) {
+			if (m_size == m_items.length) m_items = Arrays.copyOf(m_items,m_size*2);
+			m_items[m_size++] = item;
+		}
+
+		/**
+		 * Returns the found items.
+		 * @return the found items
+		 */
+		private int[] toArray() {
+			return Arrays.copyOf(m_items,m_size);
+		}
+	}
+}
@@ -0,0 +1,238 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * This class estimates the time offset between the clocks of two cameras from the dates of all their
+ * pictures. When several photographers follow the same event, each moment of the event (the bride
+ * coming in, the rings, the cake...) starts a burst of pictures on every camera. The estimator takes
+ * the start of each burst (a picture taken after a pause), and each pair of burst starts of the two
+ * cameras votes for the time offset that would put them at the same time. The votes are counted in
+ * bins of a few seconds (a cross-correlation of the bursts of both cameras): the offset with the most
+ * votes is the one that lines up most bursts. It is then refined with all the pictures, as the median
+ * of the differences between each picture and the nearest picture of the reference camera.
+ * </p>
+ * <p>
+ * Only the bursts less than a given maximal offset apart vote, and the dates of each camera are sorted,
+ * so that the votes are collected with a sliding window, each vote being a simple increment. After the
+ * sort of the dates, the estimation is linear in the number of bursts times the number of bursts of the
+ * reference camera within the maximal offset. The confidence of an estimate tells how clearly the best
+ * offset wins over all the other offsets.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManSkewEstimator {
+	private static final long m_burstGap = 60000;
+	private static final long m_tolerance = 10000;
+
+	private final long m_maxOffset;
+	private final long[][] m_times;
+	private final long[][] m_bursts;
+
+	/**
+	 * This class contains the estimated time offset of one camera.
+	 */
+	protected static class Estimate {
+		private final long m_offset;
+		private final double m_confidence;
+		private final boolean m_reference;
+
+		/**
+		 * Class constructor.
+		 * @param offset the time offset in milliseconds
+		 * @param confidence the confidence of the estimate, between 0 and 1
+		 * @param reference true for the reference camera, false otherwise
+		 */
+		protected Estimate(long offset, double confidence, boolean reference) {
+			m_offset = offset;
+			m_confidence = confidence;
+			m_reference = reference;
+		}
+
+		/**
+		 * Returns the time offset to be added to the dates of the camera.
+		 * @return the time offset in milliseconds
+		 */
+		protected long getOffset() {
+			return m_offset;
+		}
+
+		/**
+		 * Returns the confidence of the estimate: near 1 when no other offset got votes,
+		 * near 0 when another offset got nearly as many votes.
+		 * @return the confidence, between 0 and 1
+		 */
+		protected double getConfidence() {
+			return m_confidence;
+		}
+
+		/**
+		 * Checks if this is the reference camera, whose offset is not estimated.
+		 * @return true for the reference camera, false otherwise
+		 */
+		protected boolean isReference() {
+			return m_reference;
+		}
+	}
+
+	/**
+	 * Class constructor. Copies and sorts the original dates of the pictures of each camera.
+	 * @param pmis the pictures
+	 * @param maxOffset the maximal time offset between two cameras, in milliseconds
+	 */
+	public PhotManSkewEstimator(List<PhotManImage> pmis, long maxOffset) {
+		m_maxOffset = maxOffset;
+		// The images are read once, the dates are then split by camera
+		int size = pmis.size();
+		long[] times = new long[size];
+		short[] cameras = new short[size];
+		int max = -1;
+		for (int i1 = 0; i1 < size; i1++) {
+			PhotManImage pmi = pmis.get(i1);
+			times[i1] = pmi.getOriginalTime();
+			cameras[i1] = (times[i1] == Long.MIN_VALUE) ? -1 : pmi.getCameraId();
+			max = Math.max(max,cameras[i1]);
+		}
+		int[] counts = new int[max+1];
+		for (short camera : cameras) if (camera >= 0) counts[camera]++;
+		m_times = new long[max+1][];
+		m_bursts = new long[max+1][];
+		for (int i1 = 0; i1 <= max; i1++) m_times[i1] = new long[counts[i1]];
+		Arrays.fill(counts,0);
+		for (int i1 = 0; i1 < size; i1++)
+			if (cameras[i1] >= 0) m_times[cameras[i1]][counts[cameras[i1]]++] = times[i1];
+		for (int i1 = 0; i1 <= max; i1++) {
+			Arrays.sort(m_times[i1]);
+			m_bursts[i1] = findBursts(m_times[i1]);
+		}
+	}
+
+	/**
+	 * Returns the camera with the most dated pictures, best suited as reference.
+	 * @return the camera identifier, or -1 if no picture is dated
+	 */
+	protected short getReference() {
+		short reference = -1;
+		for (short camera = 0; camera < m_times.length; camera++)
+			if ((m_times[camera].length > 0) && ((reference < 0) || (m_times[camera].length > m_times[reference].length)))
+				reference = camera;
+		return reference;
+	}
+
+	/**
+	 * Estimates the time offset which brings the pictures of a camera to the time of the reference camera.
+	 * @param camera the camera identifier
+	 * @param reference the reference camera identifier
+	 * @return the estimate, or null if no burst of the camera is near a burst of the reference camera
+	 */
+	protected Estimate estimate(short camera, short reference) {
+		if ((camera < 0) || (camera >= m_times.length) || (reference < 0) || (reference >= m_times.length)) return null;
+		long[] bursts = m_bursts[camera];
+		long[] refBursts = m_bursts[reference];
+		// Each pair of bursts less than the maximal offset apart votes for their difference, counted in
+		// bins of the tolerance
+		int[] votes = new int[(int) (2*m_maxOffset/m_tolerance) + 2];
+		int pairs = 0;
+		int first = 0;
+		for (long time : bursts) {
+			while ((first < refBursts.length) && (refBursts[first] < time - m_maxOffset)) first++;
+			for (int i1 = first; (i1 < refBursts.length) && (refBursts[i1] <= time + m_maxOffset); i1++) {
+				votes[(int) ((refBursts[i1] - time + m_maxOffset) / m_tolerance)]++;
+				pairs++;
+			}
+		}
+		if (pairs == 0) return null;
+		// The best offset gets the most votes in two neighbour bins, the second best is searched away
+		// from it
+		int best = densestBins(votes,-1);
+		int second = densestBins(votes,best);
+		int bestCount = votes[best] + votes[best+1];
+		int secondCount = (second < 0) ? 0 : votes[second] + votes[second+1];
+		long offset = (best + 1) * m_tolerance - m_maxOffset;
+		offset += refine(m_times[camera],m_times[reference],offset);
+		// The +1 lowers the confidence of an offset found by a few bursts only
+		double confidence = (double) (bestCount - secondCount) / (bestCount + 1);
+		return new Estimate(offset,confidence,false);
+	}
+
+	/**
+	 * Returns the start dates of the bursts of pictures: the first picture, and each picture taken after
+	 * a pause.
+	 * @param times the sorted dates of the pictures of a camera
+	 * @return the start dates of the bursts
+	 */
+	private static long[] findBursts(long[] times) {
+		int count = 0;
+		for (int i1 = 0; i1 < times.length; i1++)
+			if ((i1 == 0) || (times[i1] - times[i1-1] > m_burstGap)) count++;
+		long[] bursts = new long[count];
+		count = 0;
+		for (int i1 = 0; i1 < times.length; i1++)
+			if ((i1 == 0) || (times[i1] - times[i1-1] > m_burstGap)) bursts[count++] = times[i1];
+		return bursts;
+	}
+
+	/**
+	 * Finds the two neighbour bins getting the most votes, optionally away from given bins.
+	 * @param votes the votes counted by bin
+	 * @param ignored the first of the two bins whose neighbourhood is ignored, or -1
+	 * @return the first of the two bins, or -1 if all the bins are ignored
+	 */
+	private static int densestBins(int[] votes, int ignored) {
+		int best = -1;
+		int bestCount = -1;
+		for (int i1 = 0; i1 < votes.length - 1; i1++) {
+			if ((ignored >= 0) && (Math.abs(i1 - ignored) <= 3)) continue;
+			if (votes[i1] + votes[i1+1] > bestCount) {
+				best = i1;
+				bestCount = votes[i1] + votes[i1+1];
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Refines an offset with all the pictures: each picture of the camera, moved by the offset, is
+	 * compared to the nearest picture of the reference camera, and the median of the differences within
+	 * the tolerance gives the correction.
+	 * @param times the sorted dates of the pictures of the camera
+	 * @param refTimes the sorted dates of the pictures of the reference camera
+	 * @param offset the offset to be refined
+	 * @return the correction of the offset, in milliseconds
+	 */
+	private static long refine(long[] times, long[] refTimes, long offset) {
+		long[] diffs = new long[times.length];
+		int size = 0;
+		int next = 0;
+		for (long time : times) {
+			long moved = time + offset;
+			while ((next < refTimes.length) && (refTimes[next] < moved)) next++;
+			long diff = Long.MAX_VALUE;
+			if (next < refTimes.length) diff = refTimes[next] - moved;
+			if ((next > 0) && (moved - refTimes[next-1] < Math.abs(diff))) diff = refTimes[next-1] - moved;
+			if (Math.abs(diff) <= m_tolerance) diffs[size++] = diff;
+		}
+		if (size == 0) return 0;
+		Arrays.sort(diffs,0,size);
+		return diffs[size/2];
+	}
+}
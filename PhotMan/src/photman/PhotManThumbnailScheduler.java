@@ -0,0 +1,284 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.awt.Rectangle;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.JList;
+import javax.swing.JViewport;
+import javax.swing.ListModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+/**
+ * <p>
+ * This class creates on demand the thumbnails of the images shown in the list, when the images were
+ * loaded without thumbnails. Such images are shown with a placeholder icon. Each time the visible part
+ * of the list changes, the thumbnails of the visible cells are requested first, then those of a
+ * prefetch band around the visible cells. The requests for cells that were scrolled far away from the
+ * visible part are cancelled.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  The placeholder icon is managed by PhotManThumbnailStore.
+ *   2026-10-18 GEB  A thumbnail created for an image which does not need it anymore is removed.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManThumbnailScheduler {
+	private final JList<PhotManImage> m_list;
+	private final PhotManLoader m_loader;
+	private final PhotManThumbnailStore m_store;
+	private final ThreadPoolExecutor m_pool;
+	private final Map<PhotManImage,ThumbnailTask> m_pending = new IdentityHashMap<>();
+	private final AtomicInteger m_sequence = new AtomicInteger();
+	private final AtomicBoolean m_scheduled = new AtomicBoolean(false);
+
+	/**
+	 * Class constructor. Attaches the scheduler to the list and to its viewport.
+	 * @param list the list showing the images
+	 * @param viewport the viewport showing the list
+	 * @param loader the loader creating the thumbnails
+	 * @param store the store keeping the thumbnails
+	 */
+	public PhotManThumbnailScheduler(JList<PhotManImage> list, JViewport viewport, PhotManLoader loader,
+			PhotManThumbnailStore store) {
+		m_list = list;
+		m_loader = loader;
+		m_store = store;
+		int threads = Runtime.getRuntime().availableProcessors();
+		m_pool = new ThreadPoolExecutor(threads,threads,30,TimeUnit.SECONDS,new PriorityBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+			private final AtomicInteger m_count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r,"PhotMan-thumbnail-"+m_count.incrementAndGet());
+				t.setDaemon(true);
+				t.setPriority(Thread.NORM_PRIORITY-1);
+				return t;
+			}
+		});
+		m_pool.allowCoreThreadTimeOut(true);
+		viewport.addChangeListener(new ChangeListener() {
+			@Override
+			public void stateChanged(ChangeEvent ce) {
+				schedule();
+			}
+		});
+		m_list.getModel().addListDataListener(new ListDataListener() {
+			@Override
+			public void intervalAdded(ListDataEvent lde) {
+				schedule();
+			}
+
+			@Override
+			public void intervalRemoved(ListDataEvent lde) {
+				schedule();
+			}
+
+			@Override
+			public void contentsChanged(ListDataEvent lde) {
+				schedule();
+			}
+		});
+	}
+
+	/**
+	 * Checks if the given image still waits for its thumbnail.
+	 * @param pmi the image
+	 * @return true if the image shows the placeholder icon, false otherwise
+	 */
+	private boolean needsThumbnail(PhotManImage pmi) {
+		return pmi.isThumbnailPending();
+	}
+
+	/**
+	 * Requests an update of the thumbnails requests. Several calls in a row are coalesced into one update,
+	 * which is done in the event dispatching thread.
+	 */
+	protected void schedule() {
+		if (!m_scheduled.compareAndSet(false,true)) return;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				m_scheduled.set(false);
+				update();
+			}
+		});
+	}
+
+	/**
+	 * Cancels all the pending thumbnails requests.
+	 */
+	protected void cancelAll() {
+		for (ThumbnailTask tt : m_pending.values()) cancel(tt);
+		m_pending.clear();
+	}
+
+	/**
+	 * Updates the thumbnails requests in function of the visible part of the list: the visible cells
+	 * come first, then the cells of the prefetch band (as much cells as visible, before and after). The
+	 * pending requests for cells further than four times the prefetch band are cancelled.
+	 */
+	private void update() {
+		ListModel<PhotManImage> model = m_list.getModel();
+		int size = model.getSize();
+		int first = m_list.getFirstVisibleIndex();
+		int last = m_list.getLastVisibleIndex();
+		if ((size == 0) || (first < 0)) {
+			cancelAll();
+			return;
+		}
+		int visible = last - first + 1;
+		int keepFirst = Math.max(0,first-4*visible);
+		int keepLast = Math.min(size-1,last+4*visible);
+		for (Iterator<Map.Entry<PhotManImage,ThumbnailTask>> it = m_pending.entrySet().iterator(); it.hasNext();) {
+			ThumbnailTask tt = it.next().getValue();
+			int index = tt.m_index;
+			if ((index < keepFirst) || (index > keepLast) || (index >= size) || (model.getElementAt(index) != tt.m_image)) {
+				cancel(tt);
+				it.remove();
+			}
+		}
+		int sequence = m_sequence.incrementAndGet();
+		for (int i1 = first; i1 <= last; i1++) request(model,i1,0,sequence);
+		int bandFirst = Math.max(0,first-visible);
+		int bandLast = Math.min(size-1,last+visible);
+		for (int d = 1; (last+d <= bandLast) || (first-d >= bandFirst); d++) {
+			if (last+d <= bandLast) request(model,last+d,d,sequence);
+			if (first-d >= bandFirst) request(model,first-d,d,sequence);
+		}
+	}
+
+	/**
+	 * Requests the thumbnail of the image at the given index, if it is not already created or requested.
+	 * @param model the list model
+	 * @param index the image index
+	 * @param distance the distance of the image from the visible part of the list (0 if visible)
+	 * @param sequence the number of the actual update, newer updates have precedence
+	 */
+	private void request(ListModel<PhotManImage> model, int index, int distance, int sequence) {
+		PhotManImage pmi = model.getElementAt(index);
+		if (!needsThumbnail(pmi)) return;
+		ThumbnailTask tt = m_pending.get(pmi);
+		if (tt != null) {
+			if (tt.m_started) return;
+			if ((tt.m_sequence == sequence) && (tt.m_distance <= distance)) return;
+			cancel(tt);
+		}
+		tt = new ThumbnailTask(pmi,index,distance,sequence);
+		m_pending.put(pmi,tt);
+		m_pool.execute(tt);
+	}
+
+	/**
+	 * Cancels a thumbnail request.
+	 * @param tt the request to be cancelled
+	 */
+	private void cancel(ThumbnailTask tt) {
+		tt.m_cancelled = true;
+		m_pool.remove(tt);
+	}
+
+	/**
+	 * Sets the created thumbnail in the image and repaints the corresponding cell.
+	 * Must be called from the event dispatching thread.
+	 * @param tt the finished request
+	 * @param thumbnail the identifier of the created thumbnail
+	 */
+	private void thumbnailCreated(ThumbnailTask tt, int thumbnail) {
+		if (m_pending.get(tt.m_image) == tt) m_pending.remove(tt.m_image);
+		if (!needsThumbnail(tt.m_image)) {
+			m_store.remove(thumbnail);
+			return;
+		}
+		tt.m_image.setThumbnail(thumbnail);
+		tt.m_image.setThumbnailPending(false);
+		PhotManListCellRenderer.adjustCellSize(m_list,m_store.get(thumbnail));
+		ListModel<PhotManImage> model = m_list.getModel();
+		if ((tt.m_index < model.getSize()) && (model.getElementAt(tt.m_index) == tt.m_image)) {
+			Rectangle r = m_list.getCellBounds(tt.m_index,tt.m_index);
+			if (r != null) m_list.repaint(r);
+		}
+		else m_list.repaint();
+	}
+
+	/**
+	 * This class is the task creating one thumbnail. The tasks are ordered by update sequence (newest
+	 * first), then by distance from the visible part of the list.
+	 */
+	private class ThumbnailTask implements Runnable, Comparable<ThumbnailTask> {
+		private final PhotManImage m_image;
+		private final int m_index;
+		private final int m_distance;
+		private final int m_sequence;
+		private volatile boolean m_cancelled = false;
+		private volatile boolean m_started = false;
+
+		/**
+		 * Class constructor.
+		 * @param pmi the image
+		 * @param index the image index in the list
+		 * @param distance the distance of the image from the visible part of the list
+		 * @param sequence the number of the update that created the request
+		 */
+		private ThumbnailTask(PhotManImage pmi, int index, int distance, int sequence) {
+			m_image = pmi;
+			m_index = index;
+			m_distance = distance;
+			m_sequence = sequence;
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			if (m_cancelled) return;
+			m_started = true;
+			final int thumbnail = m_loader.loadThumbnail(m_image);
+			final ThumbnailTask tt = this;
+			SwingUtilities.invokeLater(new Runnable() {
+				@Override
+				public void run() {
+					thumbnailCreated(tt,thumbnail);
+				}
+			});
+		}
+
+		/* (non-Javadoc)
+		 * @see java.lang.Comparable#compareTo(java.lang.Object)
+		 */
+		@Override
+		public int compareTo(ThumbnailTask tt) {
+			if (m_sequence != tt.m_sequence) return (m_sequence > tt.m_sequence) ? -1 : 1;
+			if (m_distance != tt.m_distance) return (m_distance < tt.m_distance) ? -1 : 1;
+			return Integer.compare(m_index,tt.m_index);
+		}
+	}
+}
@@ -0,0 +1,338 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.Icon;
+import javax.swing.ImageIcon;
+
+/**
+ * <p>
+ * This class keeps the thumbnails of the images in the list. The images only know the identifier of
+ * their thumbnail. The compressed thumbnails (JPEG) are written into an arena, a temporary file mapped
+ * in memory, outside of the Java heap. The decoded thumbnails are kept in the Java heap only for the
+ * most recently shown images, up to the memory given by the options. When an image whose thumbnail
+ * was dropped must be shown again, the thumbnail is decoded again from the arena. A thumbnail just
+ * created is given with its image, so that it is not decoded when added. If the arena cannot be
+ * created, the compressed thumbnails are kept in the Java heap.
+ * </p>
+ * <p>
+ * The thumbnails of the images removed from the list are removed from the store. When the removed
+ * thumbnails fill half of the arena, the other ones are moved over them, keeping their identifier.
+ * The identifiers are never given twice: after the store is cleared, the thumbnails still requested
+ * with an old identifier (by a task started before) are unknown. The arena file is deleted at once
+ * when the system allows it, otherwise when the program ends.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the removal of the thumbnails. The identifiers are not reused after a clear.
+ *                   The arena file is deleted while mapped.
+ *   2026-10-18 GEB  A thumbnail can be added with its image, which is not decoded again.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManThumbnailStore {
+	private static final int m_chunkSize = 16*1024*1024;
+	private static final long m_minCompaction = 4*1024*1024;
+
+	private final PhotManOptions m_options;
+	private final LinkedHashMap<Integer,Icon> m_decoded = new LinkedHashMap<>(256,0.75f,true);
+	private long m_decodedBytes = 0;
+	private int[] m_chunks = new int[1024];
+	private int[] m_positions = new int[1024];
+	private int[] m_lengths = new int[1024];
+	private byte[][] m_heapData = null;
+	private int m_base = 0;
+	private int m_count = 0;
+	private long m_arenaBytes = 0;
+	private long m_freedBytes = 0;
+	private FileChannel m_channel = null;
+	private final ArrayList<MappedByteBuffer> m_arena = new ArrayList<>();
+	private int m_chunk = 0;
+	private boolean m_arenaFailed = false;
+	private Icon m_placeholder;
+
+	/**
+	 * Class constructor.
+	 * @param options the program options (thumbnails size and memory)
+	 */
+	public PhotManThumbnailStore(PhotManOptions options) {
+		m_options = options;
+	}
+
+	/**
+	 * Adds a thumbnail to the store. The thumbnail is kept decoded as it will most probably be shown soon.
+	 * This method can be called from any thread.
+	 * @param thumbnail the encoded thumbnail image
+	 * @return the thumbnail identifier or -1 if the thumbnail could not be decoded
+	 */
+	protected int add(byte[] thumbnail) {
+		return add(thumbnail,null);
+	}
+
+	/**
+	 * Adds a thumbnail to the store, with its image if it is known. The thumbnail is kept decoded as it
+	 * will most probably be shown soon. This method can be called from any thread.
+	 * @param thumbnail the encoded thumbnail image
+	 * @param image the thumbnail image, or null if it must be decoded
+	 * @return the thumbnail identifier or -1 if the thumbnail could not be decoded
+	 */
+	protected int add(byte[] thumbnail, BufferedImage image) {
+		if (thumbnail == null) return -1;
+		Icon icon = (image == null) ? decode(thumbnail) : new ImageIcon(image);
+		if (icon == null) return -1;
+		synchronized (this) {
+			int id = write(thumbnail);
+			keep(id,icon);
+			return id;
+		}
+	}
+
+	/**
+	 * Returns the thumbnail with the given identifier. If the decoded thumbnail is not in memory anymore,
+	 * it is decoded again from the arena.
+	 * @param id the thumbnail identifier
+	 * @return the thumbnail or null if the identifier is unknown
+	 */
+	protected Icon get(int id) {
+		byte[] thumbnail;
+		synchronized (this) {
+			if (!isKnown(id)) return null;
+			Icon icon = m_decoded.get(id);
+			if (icon != null) return icon;
+			thumbnail = read(id - m_base);
+		}
+		Icon icon = decode(thumbnail);
+		if (icon == null) return null;
+		synchronized (this) {
+			if (isKnown(id)) keep(id,icon);
+		}
+		return icon;
+	}
+
+	/**
+	 * Removes the thumbnail with the given identifier, whose image was removed from the list. The
+	 * identifier is not given again. Unknown identifiers are ignored.
+	 * @param id the thumbnail identifier
+	 */
+	protected synchronized void remove(int id) {
+		if (!isKnown(id)) return;
+		int index = id - m_base;
+		Icon icon = m_decoded.remove(id);
+		if (icon != null) m_decodedBytes -= cost(icon);
+		if (m_chunks[index] < 0) m_heapData[index] = null;
+		else m_freedBytes += m_lengths[index];
+		m_lengths[index] = -1;
+		if ((m_freedBytes > m_minCompaction) && (m_freedBytes * 2 > m_arenaBytes)) compact();
+	}
+
+	/**
+	 * Returns the placeholder icon, shown as long as the thumbnail of an image is not created. The icon
+	 * has the actual thumbnail size.
+	 * @return the placeholder icon
+	 */
+	protected synchronized Icon getPlaceholder() {
+		int size = m_options.getThumbnailSize();
+		if ((m_placeholder == null) || (m_placeholder.getIconWidth() != size)) {
+			BufferedImage bi = new BufferedImage(size,size*3/4,BufferedImage.TYPE_INT_RGB);
+			Graphics2D g2d = bi.createGraphics();
+			g2d.setColor(Color.LIGHT_GRAY);
+			g2d.fillRect(0,0,bi.getWidth(),bi.getHeight());
+			g2d.setColor(Color.GRAY);
+			g2d.drawRect(0,0,bi.getWidth()-1,bi.getHeight()-1);
+			g2d.dispose();
+			m_placeholder = new ImageIcon(bi);
+		}
+		return m_placeholder;
+	}
+
+	/**
+	 * Removes all the thumbnails. The arena is kept and reused for the next thumbnails, the identifiers
+	 * given until now are not valid anymore.
+	 */
+	protected synchronized void clear() {
+		m_decoded.clear();
+		m_decodedBytes = 0;
+		m_base += m_count;
+		m_count = 0;
+		m_chunk = 0;
+		m_arenaBytes = 0;
+		m_freedBytes = 0;
+		m_heapData = null;
+		for (MappedByteBuffer mbb : m_arena) mbb.clear();
+	}
+
+	/**
+	 * Checks if a thumbnail identifier was given since the last clear, and not removed.
+	 * @param id the thumbnail identifier
+	 * @return true if the thumbnail is in the store, false otherwise
+	 */
+	private boolean isKnown(int id) {
+		int index = id - m_base;
+		return (id >= 0) && (index >= 0) && (index < m_count) && (m_lengths[index] >= 0);
+	}
+
+	/**
+	 * Moves the thumbnails of the arena over the space of the removed thumbnails. The thumbnails are
+	 * written in the arena in the order of their identifiers, so that each thumbnail is moved backwards
+	 * and is read before being overwritten.
+	 */
+	private void compact() {
+		for (MappedByteBuffer mbb : m_arena) mbb.clear();
+		m_chunk = 0;
+		for (int i1 = 0; i1 < m_count; i1++) {
+			if ((m_lengths[i1] < 0) || (m_chunks[i1] < 0)) continue;
+			byte[] thumbnail = read(i1);
+			MappedByteBuffer mbb = reserve(thumbnail.length);
+			m_chunks[i1] = m_chunk;
+			m_positions[i1] = mbb.position();
+			mbb.put(thumbnail);
+		}
+		m_arenaBytes -= m_freedBytes;
+		m_freedBytes = 0;
+	}
+
+	/**
+	 * Keeps a decoded thumbnail in memory and drops the least recently used ones, until the memory
+	 * given by the options is respected. The given thumbnail is always kept.
+	 * @param id the thumbnail identifier
+	 * @param icon the decoded thumbnail
+	 */
+	private void keep(int id, Icon icon) {
+		if (m_decoded.put(id,icon) == null) m_decodedBytes += cost(icon);
+		long budget = m_options.getThumbnailMemory()*1024L*1024L;
+		for (Iterator<Map.Entry<Integer,Icon>> it = m_decoded.entrySet().iterator(); it.hasNext() && (m_decodedBytes > budget);) {
+			Map.Entry<Integer,Icon> me = it.next();
+			if (me.getKey() == id) continue;
+			m_decodedBytes -= cost(me.getValue());
+			it.remove();
+		}
+	}
+
+	/**
+	 * Returns the memory used by a decoded thumbnail.
+	 * @param icon the decoded thumbnail
+	 * @return the memory used, in bytes
+	 */
+	private static long cost(Icon icon) {
+		return icon.getIconWidth() * (long) icon.getIconHeight() * 4 + 64;
+	}
+
+	/**
+	 * Decodes a thumbnail.
+	 * @param thumbnail the encoded thumbnail image
+	 * @return the thumbnail or null if the thumbnail could not be decoded
+	 */
+	private static Icon decode(byte[] thumbnail) {
+		ImageIcon icon = new ImageIcon(thumbnail);
+		if ((icon.getIconWidth() <= 0) || (icon.getIconHeight() <= 0)) return null;
+		return icon;
+	}
+
+	/**
+	 * Writes an encoded thumbnail into the arena and registers its position.
+	 * @param thumbnail the encoded thumbnail image
+	 * @return the thumbnail identifier
+	 */
+	private int write(byte[] thumbnail) {
+		int id = m_count++;
+		if (id == m_lengths.length) {
+			int length = m_lengths.length * 2;
+			m_chunks = Arrays.copyOf(m_chunks,length);
+			m_positions = Arrays.copyOf(m_positions,length);
+			m_lengths = Arrays.copyOf(m_lengths,length);
+		}
+		m_lengths[id] = thumbnail.length;
+		MappedByteBuffer mbb = reserve(thumbnail.length);
+		if (mbb == null) {
+			if (m_heapData == null) m_heapData = new byte[m_lengths.length][];
+			else if (m_heapData.length <= id) m_heapData = Arrays.copyOf(m_heapData,m_lengths.length);
+			m_heapData[id] = thumbnail;
+			m_chunks[id] = -1;
+			return m_base + id;
+		}
+		m_chunks[id] = m_chunk;
+		m_positions[id] = mbb.position();
+		mbb.put(thumbnail);
+		m_arenaBytes += thumbnail.length;
+		return m_base + id;
+	}
+
+	/**
+	 * Reads an encoded thumbnail from the arena.
+	 * @param id the thumbnail position in the registered thumbnails (identifier less the base)
+	 * @return the encoded thumbnail image
+	 */
+	private byte[] read(int id) {
+		if (m_chunks[id] < 0) return m_heapData[id];
+		byte[] thumbnail = new byte[m_lengths[id]];
+		MappedByteBuffer mbb = m_arena.get(m_chunks[id]);
+		int position = mbb.position();
+		mbb.position(m_positions[id]);
+		mbb.get(thumbnail);
+		mbb.position(position);
+		return thumbnail;
+	}
+
+	/**
+	 * Returns the arena chunk where the given number of bytes can be written, mapping a new chunk
+	 * if the actual one is full.
+	 * @param length the number of bytes to be written
+	 * @return the chunk, positioned where to write, or null if the arena is not available
+	 */
+	private MappedByteBuffer reserve(int length) {
+		if (m_arenaFailed || (length > m_chunkSize)) return null;
+		try {
+			if (m_channel == null) {
+				Path af = Files.createTempFile("photman",".thumbs");
+				m_channel = FileChannel.open(af,StandardOpenOption.READ,StandardOpenOption.WRITE,
+						StandardOpenOption.DELETE_ON_CLOSE);
+				try {
+					// The mapped chunks stay valid, the file disappears once the program ends
+					Files.delete(af);
+				}
+				catch (IOException e) {
+					// Not allowed by the system while open, deleted when the channel is closed
+				}
+			}
+			if (m_arena.isEmpty()) m_arena.add(m_channel.map(FileChannel.MapMode.READ_WRITE,0,m_chunkSize));
+			MappedByteBuffer mbb = m_arena.get(m_chunk);
+			if (mbb.remaining() >= length) return mbb;
+			m_chunk++;
+			if (m_chunk == m_arena.size())
+				m_arena.add(m_channel.map(FileChannel.MapMode.READ_WRITE,m_chunk*(long) m_chunkSize,m_chunkSize));
+			return m_arena.get(m_chunk);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			m_arenaFailed = true;
+			return null;
+		}
+	}
+}
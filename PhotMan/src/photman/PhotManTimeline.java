@@ -0,0 +1,192 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * This class orders the pictures by adjusted date and time. The dates, the positions in the list and the
+ * cameras of the pictures are copied into arrays of primitive values, so that the sort never touches the
+ * images objects. As the pictures of one camera are nearly always in the order they were taken, the
+ * pictures are first split by camera (keeping their order), each camera's sequence is cut into runs of
+ * increasing dates, and the runs are then merged all at once (k-way merge). Sorting n pictures made of k
+ * runs costs n.log(k) comparisons, that is nearly a single pass for a few cameras.
+ * </p>
+ * <p>
+ * The sort is stable: pictures with the same date keep their order. The pictures without date are put
+ * at the end of the list, as by PhotManImage.compareTo().
+ * </p>
+ * <p>
+ * The original dates are kept too, so that new time offsets of the cameras can be tried without
+ * modifying the pictures: the offsets are added to the dates in one simple loop, and the pictures
+ * are sorted again (see PhotManCameras).
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the time offsets preview.
+ *   2026-10-18 GEB  Fixed the sort of a single run (one camera with ordered pictures).
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManTimeline {
+	private final long[] m_times;
+	private final long[] m_original;
+	private final short[] m_cameras;
+	private int m_runs = 0;
+
+	/**
+	 * Class constructor. Copies the dates and the cameras of the pictures.
+	 * @param pmis the pictures, in the list order
+	 */
+	public PhotManTimeline(List<PhotManImage> pmis) {
+		int size = pmis.size();
+		m_times = new long[size];
+		m_original = new long[size];
+		m_cameras = new short[size];
+		for (int i1 = 0; i1 < size; i1++) {
+			PhotManImage pmi = pmis.get(i1);
+			long time = pmi.getCreationTime();
+			m_times[i1] = (time == Long.MIN_VALUE) ? Long.MAX_VALUE : time;
+			m_original[i1] = pmi.getOriginalTime();
+			m_cameras[i1] = pmi.getCameraId();
+		}
+	}
+
+	/**
+	 * Replaces the dates of the pictures by their original dates plus the time offsets of their cameras.
+	 * The pictures themselves are not modified.
+	 * @param deltas the time offsets in milliseconds (see PhotManProcessor.createDeltas())
+	 */
+	protected void setOffsets(long[] deltas) {
+		// Copies the offsets in an array indexed by all the possible camera identifiers, so that the loop
+		// does not test the bounds
+		int max = -1;
+		for (short camera : m_cameras) max = Math.max(max,camera);
+		long[] all = Arrays.copyOf(deltas,max+2);
+		long[] times = m_times;
+		long[] original = m_original;
+		short[] cameras = m_cameras;
+		for (int i1 = 0; i1 < times.length; i1++)
+			times[i1] = (original[i1] == Long.MIN_VALUE) ? Long.MAX_VALUE : original[i1] + all[cameras[i1]+1];
+	}
+
+	/**
+	 * Returns the number of runs of increasing dates found by the last sort.
+	 * @return the number of runs
+	 */
+	protected int getRuns() {
+		return m_runs;
+	}
+
+	/**
+	 * Orders the pictures by date.
+	 * @return the positions in the list of the pictures, in the date order
+	 */
+	protected int[] sort() {
+		int size = m_times.length;
+		int[] order = new int[size];
+		if (size == 0) return order;
+		int[] byCamera = groupByCamera();
+		// Cuts the sequence of each camera into runs of increasing dates
+		int[] runStart = new int[16];
+		int[] runEnd = new int[16];
+		m_runs = 0;
+		int start = 0;
+		for (int i1 = 1; i1 <= size; i1++) {
+			if ((i1 < size) && (m_cameras[byCamera[i1]] == m_cameras[byCamera[i1-1]])
+					&& (m_times[byCamera[i1]] >= m_times[byCamera[i1-1]])) continue;
+			if (m_runs == runStart.length) {
+				runStart = Arrays.copyOf(runStart,m_runs*2);
+				runEnd = Arrays.copyOf(runEnd,m_runs*2);
+			}
+			runStart[m_runs] = start;
+			runEnd[m_runs++] = i1;
+			start = i1;
+		}
+		// Merges the runs, the next picture of each run being kept in a binary heap
+		int[] heap = new int[m_runs];
+		for (int r = 0; r < m_runs; r++) heap[r] = r;
+		for (int i1 = m_runs/2 - 1; i1 >= 0; i1--) siftDown(heap,m_runs,i1,runStart,byCamera);
+		int heapSize = m_runs;
+		for (int i1 = 0; i1 < size; i1++) {
+			int r = heap[0];
+			order[i1] = byCamera[runStart[r]++];
+			if (runStart[r] == runEnd[r]) heap[0] = heap[--heapSize];
+			// Once the last run is empty, its next position is past the end of the pictures
+			if (heapSize > 0) siftDown(heap,heapSize,0,runStart,byCamera);
+		}
+		return order;
+	}
+
+	/**
+	 * Returns the positions of the pictures grouped by camera, each camera keeping the list order
+	 * (counting sort by camera identifier).
+	 * @return the positions of the pictures
+	 */
+	private int[] groupByCamera() {
+		int size = m_times.length;
+		int max = -1;
+		for (short camera : m_cameras) max = Math.max(max,camera);
+		int[] starts = new int[max+3];
+		for (short camera : m_cameras) starts[camera+2]++;
+		for (int i1 = 1; i1 < starts.length; i1++) starts[i1] += starts[i1-1];
+		int[] byCamera = new int[size];
+		for (int i1 = 0; i1 < size; i1++) byCamera[starts[m_cameras[i1]+1]++] = i1;
+		return byCamera;
+	}
+
+	/**
+	 * Moves a run down the heap until its next picture is not after the next pictures of its children.
+	 * @param heap the heap of runs
+	 * @param heapSize the number of runs in the heap
+	 * @param i the position of the run in the heap
+	 * @param next the position of the next picture of each run, in the grouped positions
+	 * @param byCamera the positions of the pictures grouped by camera
+	 */
+	private void siftDown(int[] heap, int heapSize, int i, int[] next, int[] byCamera) {
+		int r = heap[i];
+		int p = -1;
+		while (true) {
+			int child = 2*i + 1;
+			if (child >= heapSize) break;
+			if (p < 0) p = byCamera[next[r]];
+			int cp = byCamera[next[heap[child]]];
+			if (child + 1 < heapSize) {
+				int cp2 = byCamera[next[heap[child+1]]];
+				if (isBefore(cp2,cp)) {
+					child++;
+					cp = cp2;
+				}
+			}
+			if (!isBefore(cp,p)) break;
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = r;
+	}
+
+	/**
+	 * Checks if a picture comes before another one: older date, or same date and before in the list.
+	 * @param p1 the position of the first picture
+	 * @param p2 the position of the second picture
+	 * @return true if the first picture comes before the second one, false otherwise
+	 */
+	private boolean isBefore(int p1, int p2) {
+		if (m_times[p1] != m_times[p2]) return m_times[p1] < m_times[p2];
+		return p1 < p2;
+	}
+}
@@ -0,0 +1,293 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * <p>
+ * This class watches the source directories (and their sub-directories), so that the pictures added,
+ * modified or deleted while the program runs (for instance by a tethered camera) are reported. The
+ * file system events come in bursts, while a file is being written, so they are gathered until no event
+ * came for a quiet period, then reported all at once in the event dispatching thread. The changes are
+ * reported at the latest after a maximal delay, so that the pictures of a camera shooting without pause
+ * still appear. Only the files concerned by the events are reported. A deleted (or moved away)
+ * directory is reported as removed, with all the files it contained.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  The changes are reported after a maximal delay, the deleted directories are reported.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManWatcher {
+	private static final long m_quietPeriod = 1000;
+	private static final long m_maxDelay = 5000;
+
+	private final Listener m_listener;
+	private final WatchService m_service;
+	private final Map<WatchKey,Path> m_keys = new HashMap<>();
+	private final LinkedHashMap<Path,Boolean> m_changes = new LinkedHashMap<>();
+	private final Thread m_thread;
+
+	/**
+	 * This interface must be implemented by the objects receiving the changes.
+	 */
+	protected interface Listener {
+		/**
+		 * Called in the event dispatching thread with the changes of a burst of events.
+		 * @param changed the image files added or modified
+		 * @param removed the image files and the directories deleted
+		 */
+		void filesChanged(List<File> changed, List<File> removed);
+	}
+
+	/**
+	 * Class constructor. The watching thread is started at once.
+	 * @param listener the object receiving the changes
+	 * @throws IOException if the file system cannot be watched
+	 */
+	public PhotManWatcher(Listener listener) throws IOException {
+		m_listener = listener;
+		m_service = FileSystems.getDefault().newWatchService();
+		m_thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				watch();
+			}
+		},"PhotMan-watcher");
+		m_thread.setDaemon(true);
+		m_thread.start();
+	}
+
+	/**
+	 * Starts watching a source directory and all its sub-directories.
+	 * @param dir the source directory
+	 */
+	protected void register(File dir) {
+		try {
+			Files.walkFileTree(dir.toPath(),new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult preVisitDirectory(Path p, BasicFileAttributes bfa) throws IOException {
+					registerDirectory(p);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path p, IOException e) {
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Stops watching all the directories. The watcher cannot be used anymore.
+	 */
+	protected void close() {
+		try {
+			m_service.close();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+		m_thread.interrupt();
+	}
+
+	/**
+	 * Registers one directory to the watch service.
+	 * @param dir the directory
+	 * @throws IOException if the directory cannot be watched
+	 */
+	private void registerDirectory(Path dir) throws IOException {
+		WatchKey key = dir.register(m_service,StandardWatchEventKinds.ENTRY_CREATE,StandardWatchEventKinds.ENTRY_MODIFY,
+				StandardWatchEventKinds.ENTRY_DELETE);
+		synchronized (m_keys) {
+			m_keys.put(key,dir);
+		}
+	}
+
+	/**
+	 * Waits for the file system events and gathers them, until no event came for the quiet period or
+	 * the first gathered change waited for the maximal delay.
+	 */
+	private void watch() {
+		try {
+			long deadline = 0;
+			while (true) {
+				WatchKey key;
+				if (m_changes.isEmpty()) key = m_service.take();
+				else {
+					long wait = Math.min(m_quietPeriod,deadline - System.currentTimeMillis());
+					key = (wait > 0) ? m_service.poll(wait,TimeUnit.MILLISECONDS) : null;
+				}
+				if (key == null) {
+					flush();
+					continue;
+				}
+				boolean first = m_changes.isEmpty();
+				Path dir;
+				synchronized (m_keys) {
+					dir = m_keys.get(key);
+				}
+				if (dir != null) {
+					for (WatchEvent<?> we : key.pollEvents()) gather(dir,we);
+				}
+				if (!key.reset()) {
+					// The directory was deleted or cannot be watched anymore
+					synchronized (m_keys) {
+						m_keys.remove(key);
+					}
+					if (dir != null) m_changes.put(dir,false);
+				}
+				if (first) deadline = System.currentTimeMillis() + m_maxDelay;
+			}
+		}
+		catch (InterruptedException | ClosedWatchServiceException e) {
+			// The watcher was closed
+		}
+	}
+
+	/**
+	 * Gathers one file system event. The last event of a file gives its state: modified or deleted.
+	 * A new sub-directory is watched at once, and the files it already contains are reported. A deleted
+	 * sub-directory is not watched anymore, and is reported as removed. When events were lost, all the
+	 * files of the directory are reported as modified.
+	 * @param dir the directory of the event
+	 * @param we the event
+	 */
+	private void gather(Path dir, WatchEvent<?> we) {
+		if (we.kind() == StandardWatchEventKinds.OVERFLOW) {
+			gatherAll(dir);
+			return;
+		}
+		Path p = dir.resolve((Path) we.context());
+		if ((we.kind() == StandardWatchEventKinds.ENTRY_CREATE) && Files.isDirectory(p)) {
+			register(p.toFile());
+			gatherTree(p);
+			return;
+		}
+		if ((we.kind() == StandardWatchEventKinds.ENTRY_DELETE) && unregister(p)) {
+			m_changes.put(p,false);
+			return;
+		}
+		if (!PhotManFilenameFilter.isAllowed(p.getFileName().toString())) return;
+		m_changes.remove(p);
+		m_changes.put(p,we.kind() != StandardWatchEventKinds.ENTRY_DELETE);
+	}
+
+	/**
+	 * Stops watching a directory and all its sub-directories.
+	 * @param dir the directory
+	 * @return true if the directory was watched, false otherwise
+	 */
+	private boolean unregister(Path dir) {
+		boolean watched = false;
+		synchronized (m_keys) {
+			for (Iterator<Map.Entry<WatchKey,Path>> it = m_keys.entrySet().iterator(); it.hasNext();) {
+				Map.Entry<WatchKey,Path> me = it.next();
+				if (!me.getValue().startsWith(dir)) continue;
+				watched |= me.getValue().equals(dir);
+				me.getKey().cancel();
+				it.remove();
+			}
+		}
+		return watched;
+	}
+
+	/**
+	 * Reports all the image files of a directory as modified.
+	 * @param dir the directory
+	 */
+	private void gatherAll(Path dir) {
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir)) {
+			for (Path p : ds)
+				if (PhotManFilenameFilter.isAllowed(p.getFileName().toString())) m_changes.put(p,true);
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Reports all the image files of a new directory tree as added.
+	 * @param dir the directory
+	 */
+	private void gatherTree(Path dir) {
+		try {
+			Files.walkFileTree(dir,new SimpleFileVisitor<Path>() {
+				@Override
+				public FileVisitResult visitFile(Path p, BasicFileAttributes bfa) {
+					if (bfa.isRegularFile() && PhotManFilenameFilter.isAllowed(p.getFileName().toString())) m_changes.put(p,true);
+					return FileVisitResult.CONTINUE;
+				}
+
+				@Override
+				public FileVisitResult visitFileFailed(Path p, IOException e) {
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Reports the gathered changes to the listener, in the event dispatching thread.
+	 */
+	private void flush() {
+		final List<File> changed = new ArrayList<>();
+		final List<File> removed = new ArrayList<>();
+		for (Map.Entry<Path,Boolean> me : m_changes.entrySet()) {
+			File f = me.getKey().toFile();
+			if (me.getValue() && f.isFile()) changed.add(f);
+			else if (!f.exists()) removed.add(f);
+		}
+		m_changes.clear();
+		if (changed.isEmpty() && removed.isEmpty()) return;
+		SwingUtilities.invokeLater(new Runnable() {
+			@Override
+			public void run() {
+				m_listener.filesChanged(changed,removed);
+			}
+		});
+	}
+}
@@ -0,0 +1,92 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * <p>
+ * Tests of the persistent cache PhotManCache.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the orientation and the replaced entries test.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManCacheTest {
+	@Rule
+	public TemporaryFolder m_folder = new TemporaryFolder();
+
+	/**
+	 * An entry is read back as it was stored.
+	 */
+	@Test
+	public void putAndGet() {
+		PhotManCache cache = new PhotManCache(m_folder.getRoot());
+		cache.put("key",new PhotManCache.Entry("camera",1234,6,new byte[] {1,2,3},42,true),1024*1024);
+		PhotManCache.Entry ce = cache.get("key");
+		assertEquals("camera",ce.getCamera());
+		assertEquals(1234,ce.getDate());
+		assertEquals(6,ce.getOrientation());
+		assertArrayEquals(new byte[] {1,2,3},ce.getThumbnail());
+		assertTrue(ce.isHashKnown());
+		assertEquals(42,ce.getHash());
+		assertNull(cache.get("other"));
+	}
+
+	/**
+	 * The last use of an entry is only updated when it is older than a day.
+	 */
+	@Test
+	public void lastUseUpdatedDaily() {
+		PhotManCache cache = new PhotManCache(m_folder.getRoot());
+		cache.put("key",new PhotManCache.Entry(null,Long.MIN_VALUE,0,null,0,false),1024*1024);
+		File ef = m_folder.getRoot().listFiles()[0];
+		long recent = System.currentTimeMillis() - 3600*1000L;
+		ef.setLastModified(recent);
+		cache.get("key");
+		assertEquals(recent / 1000,ef.lastModified() / 1000);
+		long old = System.currentTimeMillis() - 2*24*3600*1000L;
+		ef.setLastModified(old);
+		cache.get("key");
+		assertTrue(ef.lastModified() > recent);
+	}
+
+	/**
+	 * Replacing an entry does not count its old size, so it does not evict the other entries.
+	 */
+	@Test
+	public void replacedEntryNotCounted() {
+		PhotManCache cache = new PhotManCache(m_folder.getRoot());
+		PhotManCache.Entry entry = new PhotManCache.Entry("camera",1234,1,new byte[100],0,false);
+		cache.put("key1",entry,1024*1024);
+		long len = m_folder.getRoot().listFiles()[0].length();
+		long maxSize = 2 * len + len / 4;
+		for (int i1 = 0; i1 < 10; i1++) cache.put("key2",entry,maxSize);
+		assertNotNull(cache.get("key1"));
+		assertNotNull(cache.get("key2"));
+	}
+}
@@ -0,0 +1,104 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * <p>
+ * Tests of the split of the pictures into events by PhotManEvents.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManEventsTest {
+	private static final long m_minute = 60*1000L;
+
+	/**
+	 * The pictures without date before the first dated picture belong to no event, the following ones
+	 * to the event of the previous picture.
+	 */
+	@Test
+	public void undated() {
+		PhotManEvents pme = new PhotManEvents();
+		assertEquals(0,pme.add(Long.MIN_VALUE));
+		assertEquals(1,pme.add(0));
+		assertEquals(1,pme.add(Long.MIN_VALUE));
+		assertEquals(1,pme.getCount());
+	}
+
+	/**
+	 * A pause longer than the maximal gap always starts a new event.
+	 */
+	@Test
+	public void maximalGap() {
+		PhotManEvents pme = new PhotManEvents();
+		long time = 0;
+		for (int i1 = 0; i1 < 10; i1++) assertEquals(1,pme.add(time += 20*m_minute));
+		assertEquals(2,pme.add(time += PhotManEvents.m_maxGap + 1));
+	}
+
+	/**
+	 * A pause longer than the minimal gap ends a dense event, but not an event of scattered pictures.
+	 */
+	@Test
+	public void relativeGap() {
+		PhotManEvents dense = new PhotManEvents();
+		long time = 0;
+		for (int i1 = 0; i1 < 20; i1++) assertEquals(1,dense.add(time += 10*1000L));
+		assertEquals(2,dense.add(time += 45*m_minute));
+		PhotManEvents scattered = new PhotManEvents();
+		time = 0;
+		for (int i1 = 0; i1 < 20; i1++) assertEquals(1,scattered.add(time += 25*m_minute));
+		assertEquals(1,scattered.add(time += 45*m_minute));
+	}
+
+	/**
+	 * A picture older than the previous one does not start a new event.
+	 */
+	@Test
+	public void unordered() {
+		PhotManEvents pme = new PhotManEvents();
+		pme.add(10*PhotManEvents.m_maxGap);
+		assertEquals(1,pme.add(0));
+	}
+
+	/**
+	 * The pictures of a list get the number of their event.
+	 */
+	@Test
+	public void segment() {
+		List<PhotManImage> pmis = new ArrayList<>();
+		long[] times = {0,m_minute,2*m_minute,PhotManEvents.m_maxGap*2,PhotManEvents.m_maxGap*2+m_minute};
+		for (long time : times) {
+			PhotManImage pmi = PhotManLoader.createImage(new File("img"+time+".jpg"));
+			pmi.setCreationTime(time);
+			pmis.add(pmi);
+		}
+		assertEquals(2,PhotManEvents.segment(pmis));
+		int[] events = new int[pmis.size()];
+		for (int i1 = 0; i1 < events.length; i1++) events[i1] = pmis.get(i1).getEvent();
+		assertArrayEquals(new int[] {1,1,1,2,2},events);
+	}
+}
@@ -0,0 +1,165 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.GregorianCalendar;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * <p>
+ * Tests of the reading of the EXIF meta-data by PhotManExifReader, with small JPEG files built by the
+ * tests.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManExifReaderTest {
+	private static final byte[] m_thumbnail = {(byte) 0xff,(byte) 0xd8,1,2,3,(byte) 0xff,(byte) 0xd9};
+
+	@Rule
+	public TemporaryFolder m_folder = new TemporaryFolder();
+
+	/**
+	 * Builds a JPEG file with an EXIF segment: camera make and model, orientation, date and thumbnail.
+	 * @param order the byte order of the EXIF segment
+	 * @return the file content
+	 */
+	private static byte[] createJpeg(ByteOrder order) {
+		ByteBuffer tiff = ByteBuffer.allocate(140 + m_thumbnail.length).order(order);
+		tiff.put((byte) (order == ByteOrder.LITTLE_ENDIAN ? 'I' : 'M'));
+		tiff.put((byte) (order == ByteOrder.LITTLE_ENDIAN ? 'I' : 'M'));
+		tiff.putShort((short) 42).putInt(8);
+		// IFD0 at 8: make (at 62), model (inline), orientation, EXIF directory (at 72), then IFD1 (at 110)
+		tiff.putShort((short) 4);
+		entry(tiff,0x010f,2,10,62);
+		tiff.putShort((short) 0x0110).putShort((short) 2).putInt(3).put("X1".getBytes(StandardCharsets.ISO_8859_1)).put((byte) 0).put((byte) 0);
+		tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) 6).putShort((short) 0);
+		entry(tiff,0x8769,4,1,72);
+		tiff.putInt(110);
+		tiff.put("TestMaker\0".getBytes(StandardCharsets.ISO_8859_1));
+		// EXIF directory at 72: date (at 90)
+		tiff.putShort((short) 1);
+		entry(tiff,0x9003,2,20,90);
+		tiff.putInt(0);
+		tiff.put("2024:05:17 13:45:30\0".getBytes(StandardCharsets.ISO_8859_1));
+		// IFD1 at 110: thumbnail (at 140)
+		tiff.putShort((short) 2);
+		entry(tiff,0x0201,4,1,140);
+		entry(tiff,0x0202,4,1,m_thumbnail.length);
+		tiff.putInt(0);
+		tiff.put(m_thumbnail);
+		int segment = 2 + 6 + tiff.capacity();
+		ByteBuffer jpeg = ByteBuffer.allocate(4 + segment + 6);
+		jpeg.putShort((short) 0xffd8).putShort((short) 0xffe1).putShort((short) segment);
+		jpeg.put("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1)).put(tiff.array());
+		jpeg.putShort((short) 0xffda).putShort((short) 4).putShort((short) 0);
+		return jpeg.array();
+	}
+
+	/**
+	 * Writes a directory entry whose value is an integer or an offset.
+	 * @param bb the buffer
+	 * @param tag the tag
+	 * @param type the tag type
+	 * @param count the number of values
+	 * @param value the value or the offset of the values
+	 */
+	private static void entry(ByteBuffer bb, int tag, int type, int count, int value) {
+		bb.putShort((short) tag).putShort((short) type).putInt(count).putInt(value);
+	}
+
+	/**
+	 * Checks the meta-data read from the file built by createJpeg().
+	 * @param exif the meta-data
+	 */
+	private static void assertExif(PhotManExif exif) {
+		assertEquals("TestMaker X1",exif.getCameraModel());
+		assertEquals(6,exif.getOrientation());
+		assertEquals(new GregorianCalendar(2024,4,17,13,45,30).getTimeInMillis(),exif.getDateTimeOriginal());
+	}
+
+	/**
+	 * The meta-data are read from a buffer, in both byte orders.
+	 * @throws IOException if the meta-data cannot be read
+	 */
+	@Test
+	public void readBuffer() throws IOException {
+		for (ByteOrder order : new ByteOrder[] {ByteOrder.BIG_ENDIAN,ByteOrder.LITTLE_ENDIAN}) {
+			byte[] jpeg = createJpeg(order);
+			PhotManExif exif = PhotManExifReader.read(jpeg,jpeg.length,true);
+			assertExif(exif);
+			assertArrayEquals(m_thumbnail,exif.getThumbnail());
+			assertNull(PhotManExifReader.read(jpeg,jpeg.length,false).getThumbnail());
+		}
+	}
+
+	/**
+	 * The meta-data are read from a file.
+	 * @throws IOException if the meta-data cannot be read
+	 */
+	@Test
+	public void readFile() throws IOException {
+		File f = m_folder.newFile("exif.jpg");
+		Files.write(f.toPath(),createJpeg(ByteOrder.LITTLE_ENDIAN));
+		PhotManExif exif = PhotManExifReader.read(f,true);
+		assertExif(exif);
+		assertArrayEquals(m_thumbnail,exif.getThumbnail());
+	}
+
+	/**
+	 * A JPEG file without EXIF segment has no meta-data, another file is refused.
+	 * @throws IOException if the meta-data cannot be read
+	 */
+	@Test
+	public void noExif() throws IOException {
+		byte[] jpeg = {(byte) 0xff,(byte) 0xd8,(byte) 0xff,(byte) 0xda,0,4,0,0};
+		assertNull(PhotManExifReader.read(jpeg,jpeg.length,true));
+		byte[] png = {(byte) 0x89,'P','N','G',0,0,0,0};
+		try {
+			PhotManExifReader.read(png,png.length,true);
+			fail("Not a JPEG file accepted");
+		}
+		catch (IOException e) {
+			// Expected
+		}
+	}
+
+	/**
+	 * The EXIF dates are converted in the local time zone, the invalid dates are unknown.
+	 */
+	@Test
+	public void parseDate() {
+		assertEquals(new GregorianCalendar(2001,11,31,23,59,58).getTimeInMillis(),PhotManExifReader.parseDate("2001:12:31 23:59:58"));
+		assertEquals(Long.MIN_VALUE,PhotManExifReader.parseDate("0000:00:00 00:00:00"));
+		assertEquals(Long.MIN_VALUE,PhotManExifReader.parseDate("2001:12:31"));
+		assertEquals(Long.MIN_VALUE,PhotManExifReader.parseDate(null));
+	}
+}
@@ -0,0 +1,57 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+
+/**
+ * <p>
+ * Tests of the new order of the list computed by PhotManListItemTransferHandler after a drag and drop.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManListItemTransferHandlerTest {
+
+	/**
+	 * Scattered images moved towards the beginning of the list follow each other before the drop location.
+	 */
+	@Test
+	public void moveBackwards() {
+		assertArrayEquals(new int[] {0,2,4,1,3,5},PhotManListItemTransferHandler.createOrder(new int[] {2,4},1,6));
+	}
+
+	/**
+	 * Scattered images moved towards the end of the list follow each other before the drop location.
+	 */
+	@Test
+	public void moveForwards() {
+		assertArrayEquals(new int[] {1,3,0,2,4,5},PhotManListItemTransferHandler.createOrder(new int[] {0,2},4,6));
+	}
+
+	/**
+	 * Images dropped at the end of the list, or around themselves, are moved accordingly.
+	 */
+	@Test
+	public void moveToEndAndInPlace() {
+		assertArrayEquals(new int[] {1,2,3,0},PhotManListItemTransferHandler.createOrder(new int[] {0},4,4));
+		assertArrayEquals(new int[] {0,1,2,3},PhotManListItemTransferHandler.createOrder(new int[] {1,2},2,4));
+		assertArrayEquals(new int[] {0,1,2,3},PhotManListItemTransferHandler.createOrder(new int[] {1,2},3,4));
+	}
+}
@@ -0,0 +1,152 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>
+ * Tests of the bulk operations of PhotManListModel.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManListModelTest {
+	private PhotManListModel m_model;
+	private List<PhotManImage> m_images;
+	private final List<ListDataEvent> m_events = new ArrayList<>();
+
+	/**
+	 * Creates a list of five images, and records the events of the list.
+	 */
+	@Before
+	public void setUp() {
+		m_model = new PhotManListModel();
+		m_images = new ArrayList<>();
+		for (int i1 = 0; i1 < 5; i1++) m_images.add(PhotManLoader.createImage(new File("img"+i1+".jpg")));
+		m_model.addAll(m_images);
+		m_model.addListDataListener(new ListDataListener() {
+			@Override
+			public void intervalAdded(ListDataEvent e) {
+				m_events.add(e);
+			}
+
+			@Override
+			public void intervalRemoved(ListDataEvent e) {
+				m_events.add(e);
+			}
+
+			@Override
+			public void contentsChanged(ListDataEvent e) {
+				m_events.add(e);
+			}
+		});
+	}
+
+	/**
+	 * Checks the images of the list.
+	 * @param positions the positions of the expected images in the initial list
+	 */
+	private void assertImages(int... positions) {
+		assertEquals(positions.length,m_model.getSize());
+		for (int i1 = 0; i1 < positions.length; i1++) assertSame(m_images.get(positions[i1]),m_model.get(i1));
+	}
+
+	/**
+	 * The images are reordered with one event.
+	 */
+	@Test
+	public void permute() {
+		m_model.permute(new int[] {4,2,0,1,3});
+		assertImages(4,2,0,1,3);
+		assertEquals(1,m_events.size());
+		assertEquals(ListDataEvent.CONTENTS_CHANGED,m_events.get(0).getType());
+	}
+
+	/**
+	 * An order repeating or missing a position is refused, and the list is not modified.
+	 */
+	@Test
+	public void permuteInvalid() {
+		for (int[] order : new int[][] {{0,1,2,3},{0,1,1,3,4},{0,1,2,3,5},{0,-1,2,3,4}}) {
+			try {
+				m_model.permute(order);
+				fail("Order accepted");
+			}
+			catch (IllegalArgumentException e) {
+				// Expected
+			}
+		}
+		assertImages(0,1,2,3,4);
+		assertEquals(0,m_events.size());
+	}
+
+	/**
+	 * Images following each other are removed with one event.
+	 */
+	@Test
+	public void removeIndicesBlock() {
+		m_model.removeIndices(new int[] {1,2,3});
+		assertImages(0,4);
+		assertEquals(1,m_events.size());
+		assertEquals(ListDataEvent.INTERVAL_REMOVED,m_events.get(0).getType());
+		assertEquals(1,m_events.get(0).getIndex0());
+		assertEquals(3,m_events.get(0).getIndex1());
+	}
+
+	/**
+	 * Scattered images are removed with a change event followed by a removal event at the end.
+	 */
+	@Test
+	public void removeIndicesScattered() {
+		m_model.removeIndices(new int[] {0,2,4});
+		assertImages(1,3);
+		assertEquals(2,m_events.size());
+		assertEquals(ListDataEvent.CONTENTS_CHANGED,m_events.get(0).getType());
+		assertEquals(ListDataEvent.INTERVAL_REMOVED,m_events.get(1).getType());
+		assertEquals(2,m_events.get(1).getIndex0());
+		assertEquals(4,m_events.get(1).getIndex1());
+	}
+
+	/**
+	 * Images inserted in the middle of the list are added with one event.
+	 */
+	@Test
+	public void addAll() {
+		List<PhotManImage> added = new ArrayList<>();
+		added.add(PhotManLoader.createImage(new File("new1.jpg")));
+		added.add(PhotManLoader.createImage(new File("new2.jpg")));
+		m_model.addAll(2,added);
+		assertEquals(7,m_model.getSize());
+		assertSame(added.get(0),m_model.get(2));
+		assertSame(m_images.get(2),m_model.get(4));
+		assertEquals(1,m_events.size());
+		assertEquals(ListDataEvent.INTERVAL_ADDED,m_events.get(0).getType());
+	}
+}
@@ -0,0 +1,84 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.junit.Test;
+
+/**
+ * <p>
+ * Tests of the time offsets of PhotManProcessor.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManProcessorTest {
+
+	/**
+	 * The offsets of more than 99 hours are formatted and read back.
+	 */
+	@Test
+	public void offsetsOverNinetyNineHours() {
+		long delta = -((123L * 60 + 4) * 60 + 5) * 1000;
+		String off = PhotManProcessor.formatOffset(delta);
+		assertEquals("-123:04:05",off);
+		assertTrue(PhotManProcessor.isValidOffset(off));
+		assertEquals(delta,PhotManProcessor.parseOffset(off));
+		assertEquals(3600*1000L,PhotManProcessor.parseOffset("01:00:00"));
+		assertFalse(PhotManProcessor.isValidOffset("1:00:00"));
+		assertFalse(PhotManProcessor.isValidOffset("+01:00"));
+	}
+
+	/**
+	 * Each picture gets the offset of its camera, the pictures without date are not modified.
+	 */
+	@Test
+	public void setTimeOffsets() {
+		PhotManImage a = image("processor-a",10000);
+		PhotManImage b = image("processor-b",20000);
+		PhotManImage none = image(null,30000);
+		PhotManImage undated = image("processor-b",Long.MIN_VALUE);
+		HashMap<String,String> cameras = new HashMap<>();
+		cameras.put("processor-b","-00:00:05");
+		PhotManProcessor.setTimeOffsets(Arrays.asList(a,b,none,undated),cameras);
+		assertEquals(10000,a.getCreationTime());
+		assertEquals(15000,b.getCreationTime());
+		assertEquals(30000,none.getCreationTime());
+		assertEquals(Long.MIN_VALUE,undated.getCreationTime());
+	}
+
+	/**
+	 * Creates a picture.
+	 * @param camera the camera model, or null if unknown
+	 * @param time the date of the picture in milliseconds, or Long.MIN_VALUE if unknown
+	 * @return the picture
+	 */
+	private static PhotManImage image(String camera, long time) {
+		PhotManImage pmi = PhotManLoader.createImage(new File("img"+time+".jpg"));
+		pmi.setCameraModel(camera);
+		pmi.setOriginalTime(time);
+		pmi.setCreationTime(time);
+		return pmi;
+	}
+}
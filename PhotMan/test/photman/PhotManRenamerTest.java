@@ -0,0 +1,174 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * <p>
+ * Tests of the renames in place by PhotManRenamer.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ *   2026-10-18 GEB  Added the test of a new name used by a file not renamed.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManRenamerTest {
+	@Rule
+	public TemporaryFolder m_folder = new TemporaryFolder();
+
+	/**
+	 * Creates files whose content is their initial name.
+	 * @param names the files names
+	 * @throws IOException if a file cannot be created
+	 */
+	private void create(String... names) throws IOException {
+		for (String name : names)
+			Files.write(new File(m_folder.getRoot(),name).toPath(),name.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Checks the content of a file, which is its initial name.
+	 * @param name the file name
+	 * @param initialName the expected initial name of the file
+	 * @throws IOException if the file cannot be read
+	 */
+	private void assertContent(String name, String initialName) throws IOException {
+		assertEquals(initialName,new String(Files.readAllBytes(new File(m_folder.getRoot(),name).toPath()),StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Renames the files of the temporary directory.
+	 * @param oldNames the actual files names
+	 * @param newNames the new files names
+	 * @return the number of file system renames done
+	 * @throws IOException if a file cannot be renamed
+	 */
+	private int rename(List<String> oldNames, List<String> newNames) throws IOException {
+		return new PhotManRenamer(m_folder.getRoot()).rename(oldNames,newNames);
+	}
+
+	/**
+	 * A chain of renames is done with one rename per file, the last new name first.
+	 * @throws IOException if a file cannot be renamed
+	 */
+	@Test
+	public void chain() throws IOException {
+		create("a.jpg","b.jpg");
+		assertEquals(2,rename(Arrays.asList("a.jpg","b.jpg"),Arrays.asList("b.jpg","c.jpg")));
+		assertContent("b.jpg","a.jpg");
+		assertContent("c.jpg","b.jpg");
+		assertFalse(new File(m_folder.getRoot(),"a.jpg").exists());
+	}
+
+	/**
+	 * Files exchanging their names need one more rename, through a temporary name.
+	 * @throws IOException if a file cannot be renamed
+	 */
+	@Test
+	public void cycle() throws IOException {
+		create("a.jpg","b.jpg","c.jpg");
+		assertEquals(4,rename(Arrays.asList("a.jpg","b.jpg","c.jpg"),Arrays.asList("b.jpg","c.jpg","a.jpg")));
+		assertContent("b.jpg","a.jpg");
+		assertContent("c.jpg","b.jpg");
+		assertContent("a.jpg","c.jpg");
+		assertEquals(3,m_folder.getRoot().list().length);
+	}
+
+	/**
+	 * The files keeping their name are not renamed.
+	 * @throws IOException if a file cannot be renamed
+	 */
+	@Test
+	public void unchanged() throws IOException {
+		create("a.jpg");
+		assertEquals(0,rename(Arrays.asList("a.jpg"),Arrays.asList("a.jpg")));
+		assertContent("a.jpg","a.jpg");
+	}
+
+	/**
+	 * Several files with the same new name are refused before any rename.
+	 * @throws IOException if a file cannot be renamed
+	 */
+	@Test
+	public void duplicateNewNames() throws IOException {
+		create("a.jpg","b.jpg");
+		try {
+			rename(Arrays.asList("a.jpg","b.jpg"),Arrays.asList("c.jpg","c.jpg"));
+			fail("Renames accepted");
+		}
+		catch (IllegalArgumentException e) {
+			// Expected
+		}
+		assertContent("a.jpg","a.jpg");
+		assertContent("b.jpg","b.jpg");
+	}
+
+	/**
+	 * A file which is not renamed is never replaced: nothing is renamed.
+	 * @throws IOException if a file cannot be renamed
+	 */
+	@Test
+	public void unrelatedTarget() throws IOException {
+		create("a.jpg","b.jpg","img_0005.jpg");
+		try {
+			rename(Arrays.asList("a.jpg","b.jpg"),Arrays.asList("b.jpg","img_0005.jpg"));
+			fail("File replaced");
+		}
+		catch (FileAlreadyExistsException e) {
+			// Expected
+		}
+		assertContent("a.jpg","a.jpg");
+		assertContent("b.jpg","b.jpg");
+		assertContent("img_0005.jpg","img_0005.jpg");
+		assertEquals(3,m_folder.getRoot().list().length);
+	}
+
+	/**
+	 * When a rename fails, the renames already done are undone.
+	 * @throws IOException if a file cannot be renamed
+	 */
+	@Test
+	public void failureRollsBack() throws IOException {
+		create("a.jpg","b.jpg");
+		try {
+			rename(Arrays.asList("a.jpg","b.jpg","missing.jpg"),Arrays.asList("x.jpg","y.jpg","z.jpg"));
+			fail("Rename of a missing file accepted");
+		}
+		catch (IOException e) {
+			// Expected
+		}
+		String[] names = m_folder.getRoot().list();
+		Arrays.sort(names);
+		assertArrayEquals(new String[] {"a.jpg","b.jpg"},names);
+		assertContent("a.jpg","a.jpg");
+	}
+}
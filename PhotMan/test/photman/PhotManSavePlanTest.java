@@ -0,0 +1,138 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * <p>
+ * Tests of the preparation of the save by PhotManSavePlan.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManSavePlanTest {
+	@Rule
+	public TemporaryFolder m_folder = new TemporaryFolder();
+
+	private File m_sourceDir;
+	private File m_destinationDir;
+
+	/**
+	 * Creates the source and destination directories.
+	 * @throws IOException if a directory cannot be created
+	 */
+	@Before
+	public void setUp() throws IOException {
+		m_sourceDir = m_folder.newFolder("source");
+		m_destinationDir = m_folder.newFolder("destination");
+	}
+
+	/**
+	 * Creates a picture.
+	 * @param dir the directory of the picture file
+	 * @param name the name of the picture file
+	 * @param finalName the new name of the picture
+	 * @return the picture
+	 */
+	private static PhotManImage image(File dir, String name, String finalName) {
+		PhotManImage pmi = PhotManLoader.createImage(new File(dir,name));
+		pmi.setFinalName(finalName);
+		return pmi;
+	}
+
+	/**
+	 * The pictures of the destination directory are renamed, the others are copied.
+	 * @throws IOException if a file cannot be created
+	 */
+	@Test
+	public void copiedAndRenamed() throws IOException {
+		new File(m_destinationDir,"b.jpg").createNewFile();
+		List<PhotManImage> pmis = new ArrayList<>();
+		pmis.add(image(m_sourceDir,"a.jpg","img-001.jpg"));
+		pmis.add(image(m_destinationDir,"b.jpg","img-002.jpg"));
+		PhotManSavePlan plan = new PhotManSavePlan(m_destinationDir,pmis,null);
+		assertEquals(2,plan.size());
+		assertSame(pmis.get(0),plan.getCopied().get(0));
+		assertSame(pmis.get(1),plan.getRenamed().get(0));
+		assertFalse(plan.hasConflicts());
+		assertFalse(plan.hasDuplicates());
+	}
+
+	/**
+	 * A copied picture replacing a file of the destination directory is a conflict, whatever the case
+	 * of the name.
+	 * @throws IOException if a file cannot be created
+	 */
+	@Test
+	public void conflictWithExistingFile() throws IOException {
+		new File(m_destinationDir,"IMG-001.JPG").createNewFile();
+		List<PhotManImage> pmis = new ArrayList<>();
+		pmis.add(image(m_sourceDir,"a.jpg","img-001.jpg"));
+		pmis.add(image(m_sourceDir,"b.jpg","img-002.jpg"));
+		PhotManSavePlan plan = new PhotManSavePlan(m_destinationDir,pmis,null);
+		assertTrue(plan.hasConflicts());
+		assertEquals(1,plan.getConflicts().size());
+		assertSame(pmis.get(0),plan.getConflicts().get(0));
+		assertTrue(plan.exists("img-001.jpg"));
+	}
+
+	/**
+	 * Two pictures of the destination directory exchanging their names are not conflicts.
+	 * @throws IOException if a file cannot be created
+	 */
+	@Test
+	public void renamedExchange() throws IOException {
+		new File(m_destinationDir,"a.jpg").createNewFile();
+		new File(m_destinationDir,"b.jpg").createNewFile();
+		List<PhotManImage> pmis = new ArrayList<>();
+		pmis.add(image(m_destinationDir,"a.jpg","b.jpg"));
+		pmis.add(image(m_destinationDir,"b.jpg","a.jpg"));
+		PhotManSavePlan plan = new PhotManSavePlan(m_destinationDir,pmis,null);
+		assertEquals(2,plan.getRenamed().size());
+		assertFalse(plan.hasConflicts());
+	}
+
+	/**
+	 * Two pictures of the list with the same new name, whatever the case, are duplicates.
+	 */
+	@Test
+	public void duplicateFinalNames() {
+		List<PhotManImage> pmis = new ArrayList<>();
+		pmis.add(image(m_sourceDir,"a.jpg","img-001.jpg"));
+		pmis.add(image(m_sourceDir,"b.jpg","img-002.jpg"));
+		pmis.add(image(m_folder.getRoot(),"c.jpg","IMG-001.jpg"));
+		PhotManSavePlan plan = new PhotManSavePlan(m_destinationDir,pmis,null);
+		assertFalse(plan.hasConflicts());
+		assertTrue(plan.hasDuplicates());
+		assertEquals(1,plan.getDuplicates().size());
+		assertSame(pmis.get(2),plan.getDuplicates().get(0));
+	}
+}
@@ -0,0 +1,98 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * <p>
+ * Tests of the estimation of the time offsets of the cameras by PhotManSkewEstimator.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManSkewEstimatorTest {
+	private static final long m_hour = 3600*1000L;
+	private static final long[] m_moments = {0,12*60000L,47*60000L,61*60000L,95*60000L,130*60000L,142*60000L,190*60000L};
+	private static final long[] m_shots = {0,1300,3900,4500,8200};
+
+	/**
+	 * Adds a burst of pictures of a camera.
+	 * @param pmis the pictures
+	 * @param camera the camera model
+	 * @param start the date of the first picture
+	 * @param count the number of pictures, taken at irregular intervals
+	 */
+	private static void addBurst(List<PhotManImage> pmis, String camera, long start, int count) {
+		for (int i1 = 0; i1 < count; i1++) {
+			PhotManImage pmi = PhotManLoader.createImage(new File(camera+"-"+pmis.size()+".jpg"));
+			pmi.setCameraModel(camera);
+			pmi.setOriginalTime(start + m_shots[i1]);
+			pmis.add(pmi);
+		}
+	}
+
+	/**
+	 * The offset of a camera taking one picture at each moment followed by the reference camera is found.
+	 */
+	@Test
+	public void offsetFound() {
+		List<PhotManImage> pmis = new ArrayList<>();
+		long offset = 7*60000L + 3000;
+		for (long moment : m_moments) {
+			addBurst(pmis,"skew-a",moment,5);
+			addBurst(pmis,"skew-b",moment - offset + 200,1);
+		}
+		PhotManSkewEstimator pse = new PhotManSkewEstimator(pmis,m_hour);
+		short a = PhotManCameraRegistry.intern("skew-a");
+		short b = PhotManCameraRegistry.intern("skew-b");
+		assertEquals(a,pse.getReference());
+		PhotManSkewEstimator.Estimate pe = pse.estimate(b,a);
+		assertTrue(Math.abs(pe.getOffset() - offset) <= 500);
+		assertTrue(pe.getConfidence() > 0.5);
+	}
+
+	/**
+	 * No offset is estimated for a camera whose pictures are all further than the maximal offset.
+	 */
+	@Test
+	public void noOverlap() {
+		List<PhotManImage> pmis = new ArrayList<>();
+		for (long moment : m_moments) addBurst(pmis,"skew-c",moment,2);
+		addBurst(pmis,"skew-d",10*m_hour,2);
+		PhotManSkewEstimator pse = new PhotManSkewEstimator(pmis,m_hour);
+		assertNull(pse.estimate(PhotManCameraRegistry.intern("skew-d"),PhotManCameraRegistry.intern("skew-c")));
+	}
+
+	/**
+	 * Without dated pictures, there is no reference camera.
+	 */
+	@Test
+	public void noDate() {
+		List<PhotManImage> pmis = new ArrayList<>();
+		addBurst(pmis,"skew-e",Long.MIN_VALUE,1);
+		assertEquals(-1,new PhotManSkewEstimator(pmis,m_hour).getReference());
+	}
+}
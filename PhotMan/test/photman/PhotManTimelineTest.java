@@ -0,0 +1,121 @@
+/**   
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package photman;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * <p>
+ * Tests of the ordering of the pictures by PhotManTimeline.
+ * </p>
+ * <pre>
+ * Change history:
+ *   2026-10-18 GEB  Initial coding.
+ * </pre>
+ * @author Grald Eberle (GEB)
+ */
+public class PhotManTimelineTest {
+
+	/**
+	 * Creates a picture.
+	 * @param camera the camera model, or null if unknown
+	 * @param time the date of the picture in milliseconds, or Long.MIN_VALUE if unknown
+	 * @return the picture
+	 */
+	private static PhotManImage image(String camera, long time) {
+		PhotManImage pmi = PhotManLoader.createImage(new File("img"+time+".jpg"));
+		pmi.setCameraModel(camera);
+		pmi.setOriginalTime(time);
+		pmi.setCreationTime(time);
+		return pmi;
+	}
+
+	/**
+	 * The pictures of a single camera, already ordered, make a single run.
+	 */
+	@Test
+	public void sortSingleOrderedCamera() {
+		for (int size : new int[] {1,2,5}) {
+			List<PhotManImage> pmis = new ArrayList<>();
+			int[] expected = new int[size];
+			for (int i1 = 0; i1 < size; i1++) {
+				pmis.add(image("camera-a",1000L*i1));
+				expected[i1] = i1;
+			}
+			PhotManTimeline timeline = new PhotManTimeline(pmis);
+			assertArrayEquals(expected,timeline.sort());
+			assertEquals(1,timeline.getRuns());
+		}
+	}
+
+	/**
+	 * An empty list gives an empty order.
+	 */
+	@Test
+	public void sortEmpty() {
+		assertArrayEquals(new int[0],new PhotManTimeline(new ArrayList<PhotManImage>()).sort());
+	}
+
+	/**
+	 * The pictures of two cameras are merged by date.
+	 */
+	@Test
+	public void sortTwoCameras() {
+		List<PhotManImage> pmis = new ArrayList<>();
+		pmis.add(image("camera-a",10));
+		pmis.add(image("camera-a",30));
+		pmis.add(image("camera-b",20));
+		pmis.add(image("camera-b",40));
+		pmis.add(image("camera-a",50));
+		assertArrayEquals(new int[] {0,2,1,3,4},new PhotManTimeline(pmis).sort());
+	}
+
+	/**
+	 * The pictures with the same date keep their order, the pictures without date come last.
+	 */
+	@Test
+	public void sortStableUndatedLast() {
+		List<PhotManImage> pmis = new ArrayList<>();
+		pmis.add(image("camera-a",Long.MIN_VALUE));
+		pmis.add(image("camera-b",20));
+		pmis.add(image("camera-a",20));
+		pmis.add(image(null,10));
+		pmis.add(image("camera-a",5));
+		assertArrayEquals(new int[] {4,3,1,2,0},new PhotManTimeline(pmis).sort());
+	}
+
+	/**
+	 * The time offsets of the cameras change the order without modifying the pictures.
+	 */
+	@Test
+	public void setOffsets() {
+		List<PhotManImage> pmis = new ArrayList<>();
+		pmis.add(image("camera-a",1000));
+		pmis.add(image("camera-b",2000));
+		PhotManTimeline timeline = new PhotManTimeline(pmis);
+		assertArrayEquals(new int[] {0,1},timeline.sort());
+		long[] deltas = new long[PhotManCameraRegistry.intern("camera-b")+2];
+		deltas[PhotManCameraRegistry.intern("camera-b")+1] = -1500;
+		timeline.setOffsets(deltas);
+		assertArrayEquals(new int[] {1,0},timeline.sort());
+		assertEquals(2000,pmis.get(1).getCreationTime());
+	}
+}